@@ -0,0 +1,114 @@
+package com.github.andreptb.fitnesse;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+
+import org.apache.commons.lang3.StringUtils;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+/**
+ * Compares two JMH results in JSON format, such as the baseline of a released version and the results of the current version:
+ *
+ * <pre>
+ * java -jar target/benchmarks.jar -prof gc -rf json -rff target/current.json
+ * java -cp target/benchmarks.jar com.github.andreptb.fitnesse.BenchmarkComparison baselines/1.0.3.json target/current.json
+ * </pre>
+ *
+ * Prints the score and the memory allocated by operation (<b>gc.alloc.rate.norm</b>, if results were produced with <code>-prof gc</code>) of each benchmark in both results. Exits
+ * with status 1 if any benchmark is slower or allocates more than the tolerance, 10% by default (third argument, in percent).
+ */
+public class BenchmarkComparison {
+
+	private static final String ALLOCATION_METRIC = "gc.alloc.rate.norm";
+	/**
+	 * Allocation differences up to this amount of bytes are measurement noise, even if they are more than the tolerance of an operation allocating almost nothing
+	 */
+	private static final double ALLOCATION_NOISE_IN_BYTES = 8;
+
+	public static void main(String[] args) throws IOException {
+		if (args.length < 2) {
+			System.err.println("Usage: BenchmarkComparison <baseline.json> <current.json> [tolerance in percent]");
+			System.exit(2);
+		}
+		double tolerance = args.length > 2 ? Double.parseDouble(args[2]) / 100 : 0.1;
+		Map<String, JsonObject> baseline = read(args[0]);
+		Map<String, JsonObject> current = read(args[1]);
+		int regressions = 0;
+		System.out.println(String.format("%-90s %14s %14s %8s %13s %13s %8s", "Benchmark", "Baseline", "Current", "Change", "Baseline B/op", "Current B/op", "Change"));
+		for (Entry<String, JsonObject> result : current.entrySet()) {
+			JsonObject baselineResult = baseline.get(result.getKey());
+			if (baselineResult == null) {
+				System.out.println(String.format("%-90s %14s %14.3f", result.getKey(), "-", score(result.getValue())));
+				continue;
+			}
+			double scoreChange = change(score(baselineResult), score(result.getValue()));
+			// throughput is better when higher, other modes (average time, sample time...) are better when lower
+			boolean slower = "thrpt".equals(result.getValue().get("mode").getAsString()) ? scoreChange < -tolerance : scoreChange > tolerance;
+			Double baselineAllocation = allocation(baselineResult);
+			Double currentAllocation = allocation(result.getValue());
+			boolean allocatesMore = false;
+			String allocation = StringUtils.EMPTY;
+			if (baselineAllocation != null && currentAllocation != null) {
+				double allocationChange = change(baselineAllocation, currentAllocation);
+				allocatesMore = allocationChange > tolerance && currentAllocation - baselineAllocation > BenchmarkComparison.ALLOCATION_NOISE_IN_BYTES;
+				allocation = String.format("%13.1f %13.1f %7.1f%%", baselineAllocation, currentAllocation, allocationChange * 100);
+			}
+			if (slower || allocatesMore) {
+				regressions++;
+			}
+			System.out.println(String.format("%-90s %14.3f %14.3f %7.1f%% %s%s", result.getKey(), score(baselineResult), score(result.getValue()), scoreChange * 100, allocation, slower || allocatesMore ? " REGRESSION" : StringUtils.EMPTY));
+		}
+		System.out.println(String.format("%d regression(s) with %.0f%% tolerance", regressions, tolerance * 100));
+		System.exit(regressions > 0 ? 1 : 0);
+	}
+
+	/**
+	 * @return results by benchmark and parameters
+	 */
+	private static Map<String, JsonObject> read(String file) throws IOException {
+		Map<String, JsonObject> results = new LinkedHashMap<>();
+		try (Reader reader = Files.newBufferedReader(Paths.get(file), StandardCharsets.UTF_8)) {
+			for (JsonElement element : new JsonParser().parse(reader).getAsJsonArray()) {
+				JsonObject result = element.getAsJsonObject();
+				StringBuilder key = new StringBuilder(result.get("benchmark").getAsString());
+				if (result.has("params")) {
+					Map<String, String> params = new TreeMap<>();
+					result.getAsJsonObject("params").entrySet().forEach(param -> params.put(param.getKey(), param.getValue().getAsString()));
+					key.append(params);
+				}
+				results.put(key.toString(), result);
+			}
+		}
+		return results;
+	}
+
+	private static double score(JsonObject result) {
+		return result.getAsJsonObject("primaryMetric").get("score").getAsDouble();
+	}
+
+	/**
+	 * @return bytes allocated by operation, null if results were produced without <code>-prof gc</code>
+	 */
+	private static Double allocation(JsonObject result) {
+		JsonObject secondaryMetrics = result.getAsJsonObject("secondaryMetrics");
+		if (secondaryMetrics == null) {
+			return null;
+		}
+		// JMH prefixes profiler metrics with a middle dot
+		return secondaryMetrics.entrySet().stream().filter(metric -> metric.getKey().endsWith(BenchmarkComparison.ALLOCATION_METRIC)).map(metric -> metric.getValue().getAsJsonObject().get("score").getAsDouble()).findFirst().orElse(null);
+	}
+
+	private static double change(double baseline, double current) {
+		return baseline == 0 ? (current == 0 ? 0 : 1) : (current - baseline) / baseline;
+	}
+}
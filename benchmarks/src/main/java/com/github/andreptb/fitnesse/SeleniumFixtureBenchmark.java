@@ -0,0 +1,71 @@
+package com.github.andreptb.fitnesse;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.andreptb.fitnesse.selenium.FakeWebDriver;
+import com.github.andreptb.fitnesse.selenium.WebDriverHelper;
+
+/**
+ * Overhead of fixture commands, from the locator received by the fixture to the value returned to FitNesse (see {@link WebDriverHelper#getWhenAvailable}), against an
+ * in-memory {@link FakeWebDriver} page without latency, so the browser takes almost no time:
+ * <ul>
+ * <li><b>text</b>: reading an element text</li>
+ * <li><b>textMatching</b>: checking an element text with a regular expression</li>
+ * <li><b>attributeIn</b>: checking an element attribute</li>
+ * </ul>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SeleniumFixtureBenchmark {
+
+	private static final String PAGE_URL = "http://benchmark.fitnesse-selenium-slim/";
+	private static final String CLASS_NAME = "greeting";
+
+	private SeleniumFixture fixture;
+
+	@Setup
+	public void startBrowser() throws ReflectiveOperationException, IOException {
+		FakeWebDriver.registerPage(SeleniumFixtureBenchmark.PAGE_URL, "<p id=\"message\" class=\"" + SeleniumFixtureBenchmark.CLASS_NAME + "\">Hello World</p>");
+		this.fixture = new SeleniumFixture();
+		this.fixture.startBrowser(FakeWebDriver.BROWSER_NAME);
+		this.fixture.open(SeleniumFixtureBenchmark.PAGE_URL);
+	}
+
+	@TearDown
+	public void quitBrowser() {
+		this.fixture.quitBrowser();
+		FakeWebDriver.clearPages();
+	}
+
+	@Benchmark
+	public String text() {
+		return this.fixture.text("id=message");
+	}
+
+	@Benchmark
+	public String textMatching() {
+		return this.fixture.text("id=message->=~/Hello.*/");
+	}
+
+	@Benchmark
+	public String attributeIn() {
+		return this.fixture.attributeIn("class->" + SeleniumFixtureBenchmark.CLASS_NAME, "css=#message");
+	}
+}
@@ -0,0 +1,146 @@
+package com.github.andreptb.fitnesse.plugins;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.lang3.ArrayUtils;
+import org.apache.commons.lang3.ClassUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.reflect.FieldUtils;
+import org.apache.commons.lang3.reflect.MethodUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.andreptb.fitnesse.SeleniumFixture;
+import com.github.andreptb.fitnesse.util.FitnesseMarkup;
+
+import fitnesse.testsystems.TestExecutionException;
+import fitnesse.testsystems.slim.HtmlTableScanner;
+import fitnesse.testsystems.slim.SlimTestContextImpl;
+import fitnesse.testsystems.slim.Table;
+import fitnesse.testsystems.slim.tables.ScriptTable;
+import fitnesse.testsystems.slim.tables.SlimAssertion;
+
+/**
+ * Cost of creating the instructions of a selenium table with {@value #ROWS} rows, mostly check, ensure and reject actions which get the value to check injected in the first
+ * argument, see {@link SeleniumScriptTable}:
+ * <ul>
+ * <li><b>reflective</b>: injecting as done before, reading and writing instruction fields and looking up fixture methods with reflection for every row</li>
+ * <li><b>getAssertions</b>: injecting while instructions are created</li>
+ * </ul>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SeleniumScriptTableBenchmark {
+
+	private static final int ROWS = 1000;
+	private static final String[][] ROW_CELLS = {
+		{ "check", "text", "id=message", "Hello World" },
+		{ "ensure", "present", "css=#login > button" },
+		{ "reject", "present", "id=error" },
+		{ "check not", "title", "Error" },
+		{ "ensure", "type", "fitnesse", "in", "name=username" },
+		{ "check", "value", "name=username", "fitnesse" },
+		{ "click", "link=Next" } };
+
+	private Table table;
+
+	@Setup
+	public void createTable() {
+		StringBuilder html = new StringBuilder("<table><tr><td>").append(SeleniumScriptTable.TABLE_KEYWORD).append("</td></tr>");
+		for (int row = 0; row < SeleniumScriptTableBenchmark.ROWS; row++) {
+			html.append("<tr>");
+			for (String cell : SeleniumScriptTableBenchmark.ROW_CELLS[row % SeleniumScriptTableBenchmark.ROW_CELLS.length]) {
+				html.append("<td>").append(cell).append("</td>");
+			}
+			html.append("</tr>");
+		}
+		this.table = new HtmlTableScanner(html.append("</table>").toString()).getTable(0);
+	}
+
+	@Benchmark
+	public List<SlimAssertion> reflective() throws TestExecutionException {
+		return new ReflectiveScriptTable(this.table).getAssertions();
+	}
+
+	@Benchmark
+	public List<SlimAssertion> getAssertions() throws TestExecutionException {
+		return new SeleniumScriptTable(this.table, "benchmark", new SlimTestContextImpl(null)).getAssertions();
+	}
+
+	/**
+	 * Script table injecting the value to check after instructions are created, with reflection
+	 */
+	private static class ReflectiveScriptTable extends ScriptTable {
+
+		private FitnesseMarkup fitnesseMarkup = new FitnesseMarkup();
+
+		ReflectiveScriptTable(Table table) {
+			super(table, "benchmark", new SlimTestContextImpl(null));
+		}
+
+		@Override
+		protected String getTableKeyword() {
+			return SeleniumScriptTable.TABLE_KEYWORD;
+		}
+
+		@Override
+		protected List<SlimAssertion> ensure(int row) {
+			List<SlimAssertion> assertions = super.ensure(row);
+			injectValueInFirstArg(assertions, false, true);
+			return assertions;
+		}
+
+		@Override
+		protected List<SlimAssertion> reject(int row) {
+			List<SlimAssertion> assertions = super.reject(row);
+			injectValueInFirstArg(assertions, false, false);
+			return assertions;
+		}
+
+		@Override
+		protected List<SlimAssertion> checkAction(int row) {
+			List<SlimAssertion> assertions = super.checkAction(row);
+			injectValueInFirstArg(assertions, false, this.fitnesseMarkup.clean(this.table.getCellContents(this.table.getColumnCountInRow(row) - 1, row)));
+			return assertions;
+		}
+
+		@Override
+		protected List<SlimAssertion> checkNotAction(int row) {
+			List<SlimAssertion> assertions = super.checkNotAction(row);
+			injectValueInFirstArg(assertions, true, this.fitnesseMarkup.clean(this.table.getCellContents(this.table.getColumnCountInRow(row) - 1, row)));
+			return assertions;
+		}
+
+		private void injectValueInFirstArg(List<SlimAssertion> assertions, boolean not, Object contentToCheck) {
+			SlimAssertion.getInstructions(assertions).forEach(instruction -> {
+				try {
+					String valueToInject = FitnesseMarkup.SELECTOR_VALUE_SEPARATOR + (not ? FitnesseMarkup.SELECTOR_VALUE_DENY_INDICATOR : StringUtils.EMPTY) + contentToCheck;
+					Object[] args = (Object[]) FieldUtils.readField(instruction, "args", true);
+					Object[] argsToInject = ArrayUtils.isEmpty(args) ? ArrayUtils.toArray(valueToInject) : args;
+					if (ArrayUtils.isNotEmpty(args)) {
+						argsToInject[0] += valueToInject;
+					}
+					String methodName = (String) FieldUtils.readField(instruction, "methodName", true);
+					if (MethodUtils.getAccessibleMethod(SeleniumFixture.class, methodName, ClassUtils.toClass(argsToInject)) != null) {
+						FieldUtils.writeField(instruction, "args", argsToInject, true);
+					}
+				} catch (IllegalArgumentException | ClassCastException | ReflectiveOperationException e) {
+					// not a call instruction
+				}
+			});
+		}
+	}
+}
@@ -0,0 +1,86 @@
+package com.github.andreptb.fitnesse.selenium;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.lang3.EnumUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.tuple.Pair;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openqa.selenium.By;
+
+import com.github.andreptb.fitnesse.selenium.SeleniumLocatorParser.ByFocus;
+import com.github.andreptb.fitnesse.selenium.SeleniumLocatorParser.WebElementSelector;
+import com.github.andreptb.fitnesse.util.FitnesseMarkup;
+
+/**
+ * Cost of parsing the locator of a command, see {@link SeleniumLocatorParser#parse(String)}:
+ * <ul>
+ * <li><b>reflective</b>: parsing as done before parsed locators were kept, cleaning the locator twice and creating {@link By} with reflection</li>
+ * <li><b>compile</b>: parsing without looking up parsed locators</li>
+ * <li><b>parse</b>: parsing a locator already parsed, as commands polling the browser and repeating locators do</li>
+ * </ul>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SeleniumLocatorParserBenchmark {
+
+	private enum ReflectiveLocatorType {
+		id(By.ById.class),
+		name(By.ByName.class),
+		css(By.ByCssSelector.class),
+		xpath(By.ByXPath.class),
+		link(By.ByLinkText.class);
+
+		private Class<? extends By> byClass;
+
+		ReflectiveLocatorType(Class<? extends By> byClass) {
+			this.byClass = byClass;
+		}
+	}
+
+	@Param({ "id=username", "css=#login > button@value->Sign in", "//table[@id='results']//tr[2]/td[1]", "<span keycode=\"\uE007\">enter</span>" })
+	public String locator;
+
+	private SeleniumLocatorParser parser = new SeleniumLocatorParser();
+	private FitnesseMarkup fitnesseMarkup = new FitnesseMarkup();
+
+	@Benchmark
+	public WebElementSelector reflective() throws ReflectiveOperationException {
+		Pair<String, String> elementAndValue = this.fitnesseMarkup.cleanAndParseKeyValue(this.locator, FitnesseMarkup.SELECTOR_VALUE_SEPARATOR);
+		String element = elementAndValue.getKey();
+		if (StringUtils.isBlank(element)) {
+			return new WebElementSelector(element, new ByFocus(), elementAndValue.getValue());
+		}
+		Pair<String, String> prefixAndSelector = this.fitnesseMarkup.cleanAndParseKeyValue(element, FitnesseMarkup.KEY_VALUE_SEPARATOR);
+		String selector = prefixAndSelector.getValue();
+		ReflectiveLocatorType selectorType = EnumUtils.getEnum(ReflectiveLocatorType.class, prefixAndSelector.getKey());
+		if (selectorType == null) {
+			selector = element;
+			selectorType = ReflectiveLocatorType.xpath;
+		}
+		return new WebElementSelector(element, selectorType.byClass.getConstructor(String.class).newInstance(selector), elementAndValue.getValue(), selectorType.name(), selector);
+	}
+
+	@Benchmark
+	public WebElementSelector compile() {
+		return this.parser.compile(this.locator);
+	}
+
+	@Benchmark
+	public WebElementSelector parse() {
+		return this.parser.parse(this.locator);
+	}
+}
@@ -0,0 +1,41 @@
+package com.github.andreptb.fitnesse.selenium;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openqa.selenium.remote.DesiredCapabilities;
+
+/**
+ * Cost of parsing the capabilities of 'start browser', see {@link WebDriverCapabilitiesHelper#parse(String, String, String)}. Parsed capabilities are kept, so this is the cost
+ * paid by each browser started after the first one with the same configuration
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WebDriverCapabilitiesHelperBenchmark {
+
+	@Param({ "chrome", "firefox" })
+	public String browser;
+
+	@Param({ "", "platform='LINUX' version='55' name='benchmark with spaces'" })
+	public String capabilities;
+
+	private WebDriverCapabilitiesHelper capabilitiesHelper = new WebDriverCapabilitiesHelper();
+
+	@Benchmark
+	public DesiredCapabilities parse() {
+		return this.capabilitiesHelper.parse(this.browser, this.capabilities, "browser.download.dir='/tmp'");
+	}
+}
@@ -0,0 +1,70 @@
+package com.github.andreptb.fitnesse.util;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.lang.ObjectUtils;
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.lang3.tuple.Pair;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of processing FitNesse markup of a symbol:
+ * <ul>
+ * <li><b>regularExpressions</b>: cleaning as done before markup was scanned, with a regular expression compiled by each replacement</li>
+ * <li><b>clean</b>: current cleaning, see {@link FitnesseMarkup#clean(Object)}</li>
+ * <li><b>compare</b>: comparing the symbol with a regular expression, see {@link FitnesseMarkup#compare(Object, Object)}</li>
+ * <li><b>swapValueToCheck</b>: moving the value checked by an attribute command to the locator, see {@link FitnesseMarkup#swapValueToCheck(String, String)}</li>
+ * </ul>
+ * Run with <code>-prof gc</code> to also compare the memory allocated by each call (<code>gc.alloc.rate.norm</code>).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FitnesseMarkupBenchmark {
+
+	@Param({ "id=username", "<a href=\"http://localhost:8080/login\">http://localhost:8080/login</a>", "<span keycode=\"\uE007\">${KEY_ENTER}</span>",
+		"<span class=\"meta\">undefined variable: PAGE</span>" })
+	public String symbol;
+
+	private FitnesseMarkup fitnesseMarkup = new FitnesseMarkup();
+
+	@Benchmark
+	public String regularExpressions() {
+		String strippedSymbol = StringUtils.remove(StringUtils.strip(ObjectUtils.toString(this.symbol)), "null");
+		if (StringUtils.isBlank(strippedSymbol)) {
+			return strippedSymbol;
+		}
+		strippedSymbol = strippedSymbol.replaceAll("<span keycode=\"([^\"]+)\"[^/]+/span>", "$1");
+		strippedSymbol = strippedSymbol.replaceAll("<span[^>]+>undefined variable:[^<]+</span>", StringUtils.EMPTY);
+		strippedSymbol = strippedSymbol.replaceAll("<a[^>]+>\\[\\?\\]</a>", StringUtils.EMPTY);
+		strippedSymbol = strippedSymbol.replaceAll("<span[^>]+>undefined variable:[^<]+</span>", StringUtils.EMPTY);
+		return strippedSymbol.replaceAll("</?.[^>]+>", StringUtils.EMPTY);
+	}
+
+	@Benchmark
+	public String clean() {
+		return this.fitnesseMarkup.clean(this.symbol);
+	}
+
+	@Benchmark
+	public boolean compare() {
+		return this.fitnesseMarkup.compare("=~/.*(user|login|KEY|PAGE).*/", this.symbol);
+	}
+
+	@Benchmark
+	public Pair<String, String> swapValueToCheck() {
+		return this.fitnesseMarkup.swapValueToCheck("class->greeting", this.symbol);
+	}
+}
@@ -4,9 +4,16 @@ package com.github.andreptb.fitnesse;
 import com.github.andreptb.fitnesse.selenium.BrowserDialogHelper;
 import com.github.andreptb.fitnesse.selenium.FrameWebElementHelper;
 import com.github.andreptb.fitnesse.selenium.SelectWebElementHelper;
+import com.github.andreptb.fitnesse.selenium.WaitCircuitBreaker;
+import com.github.andreptb.fitnesse.selenium.WaitStrategy;
+import com.github.andreptb.fitnesse.selenium.WebDriverCache;
 import com.github.andreptb.fitnesse.selenium.WebDriverHelper;
 import com.github.andreptb.fitnesse.selenium.WebDriverHelper.StopTestWithWebDriverException;
+import com.github.andreptb.fitnesse.selenium.WebDriverSessionContext;
+import com.github.andreptb.fitnesse.selenium.WebElementCache;
+import com.github.andreptb.fitnesse.selenium.WireCommandTracer;
 import com.github.andreptb.fitnesse.util.FitnesseMarkup;
+import com.github.andreptb.fitnesse.util.FitnesseMarkup.Expectation;
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.lang3.ClassUtils;
@@ -20,6 +27,7 @@ import org.openqa.selenium.remote.RemoteWebElement;
 import java.io.IOException;
 import java.util.*;
 import java.util.NoSuchElementException;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 
 /**
@@ -55,9 +63,9 @@ public class SeleniumFixture {
 	private static final String BLANK_PAGE = "about:blank";
 
 	/**
-	 * Instance that wraps {@link WebDriver} providing utility methods to manipulate elements and such. Attribute is static to keep state between table invocations
+	 * Instance that wraps {@link WebDriver} providing utility methods to manipulate elements and such. Obtained from {@link WebDriverSessionContext} to keep state between table invocations
 	 */
-	private static WebDriverHelper WEB_DRIVER = new WebDriverHelper();
+	private WebDriverHelper webDriver;
 
 	/**
 	 * Utility to help selecting drop downs
@@ -76,6 +84,46 @@ public class SeleniumFixture {
 	 */
 	private FitnesseMarkup fitnesseMarkup = new FitnesseMarkup();
 
+	/**
+	 * Creates a fixture bound to the default browser session, see {@link WebDriverSessionContext#DEFAULT_SESSION}. Tables without a session name always use the default session, even
+	 * if a previous table (possibly in a previous page) used another one
+	 */
+	public SeleniumFixture() {
+		this(WebDriverSessionContext.DEFAULT_SESSION);
+	}
+
+	/**
+	 * <p>
+	 * <code>
+	 * | script | selenium fixture | <i>session</i> |
+	 * </code>
+	 * </p>
+	 * Creates a fixture bound to a named browser session, see {@link #useBrowserSession(String)}
+	 *
+	 * @param session browser session name
+	 */
+	public SeleniumFixture(String session) {
+		useBrowserSession(session);
+	}
+
+	/**
+	 * <p>
+	 * <code>
+	 * | $previousSession= | use browser session | <i>session</i> |
+	 * </code>
+	 * </p>
+	 * Binds this fixture to a named browser session, until the end of the table. Each session has its own browsers and configurations (such as wait timeout),
+	 * allowing independent browser flows to run concurrently in the same JVM. Default session is <b>default</b>.
+	 *
+	 * @param session browser session name
+	 * @return previous browser session name
+	 */
+	public String useBrowserSession(String session) {
+		String previousSession = WebDriverSessionContext.currentName();
+		this.webDriver = WebDriverSessionContext.use(this.fitnesseMarkup.clean(session));
+		return previousSession;
+	}
+
 	/**
 	 * <p>
 	 * <code>
@@ -158,7 +206,7 @@ public class SeleniumFixture {
 	 * @throws IOException if IO error occurs if invalid URL is used when connecting to remote drivers
 	 */
 	public boolean startBrowserWithAndPreferences(String browser, String capabilities, String browserPreferences) throws ReflectiveOperationException, IOException {
-		SeleniumFixture.WEB_DRIVER.connect(browser, capabilities, browserPreferences);
+		this.webDriver.connect(browser, capabilities, browserPreferences);
 		return true;
 	}
 
@@ -174,11 +222,193 @@ public class SeleniumFixture {
 	 * @return previous timeout value
 	 */
 	public int setWaitTimeout(int timeoutInSeconds) {
-		int previousTimeoutInSeconds = SeleniumFixture.WEB_DRIVER.getTimeoutInSeconds();
-		SeleniumFixture.WEB_DRIVER.setTimeoutInSeconds(timeoutInSeconds);
+		int previousTimeoutInSeconds = this.webDriver.getTimeoutInSeconds();
+		this.webDriver.setTimeoutInSeconds(timeoutInSeconds);
 		return previousTimeoutInSeconds;
 	}
 
+	/**
+	 * <p>
+	 * <code>
+	 * | $previousTimeout= | set wait timeout in millis | <i>timeout in milliseconds</i> |
+	 * </code>
+	 * </p>
+	 * Sets the time to wait while finding an element, with millisecond precision.
+	 *
+	 * @param timeoutInMillis wait milliseconds to timeout
+	 * @return previous timeout value, in milliseconds
+	 */
+	public long setWaitTimeoutInMillis(long timeoutInMillis) {
+		long previousTimeoutInMillis = this.webDriver.getTimeoutInMillis();
+		this.webDriver.setTimeoutInMillis(timeoutInMillis);
+		return previousTimeoutInMillis;
+	}
+
+	/**
+	 * <p>
+	 * <code>
+	 * | $previousStrategy= | set wait strategy | <i>strategy</i> |
+	 * </code>
+	 * </p>
+	 * Sets how long to wait between attempts while finding an element. Built-in strategies are <b>exponential</b> (default, polls fast first and backs off up to 250 milliseconds),
+	 * <b>fixed</b> (every 500 milliseconds), <b>jittered</b> (exponential with random delays) and <b>mutation</b> (waits inside the browser until the page changes, instead of polling).
+	 * A {@link WaitStrategy} implementation class name can be used as well.
+	 * <p>
+	 * Note that <b>mutation</b> sets the script timeout of the browser to 3 seconds the first time it waits, and the previous value isn't restored (selenium can't read it), so
+	 * asynchronous scripts ran afterwards by <b>run script</b> time out after 3 seconds as well.
+	 * </p>
+	 *
+	 * @param strategy wait strategy name
+	 * @return previous wait strategy name
+	 */
+	public String setWaitStrategy(String strategy) {
+		String previousStrategy = WaitStrategy.nameOf(this.webDriver.getWaitStrategy());
+		this.webDriver.setWaitStrategy(WaitStrategy.forName(this.fitnesseMarkup.clean(strategy)));
+		return previousStrategy;
+	}
+
+	/**
+	 * <p>
+	 * <code>
+	 * | $previousMinIdle= | set browser pool min idle | <i>standby browsers</i> |
+	 * </code>
+	 * </p>
+	 * Sets how many standby browsers are launched in background for each browser configuration used with <b>start browser</b>, so subsequent <b>start browser</b> commands don't wait for
+	 * the browser to launch. Pool is shared by all tests ran by the same slim server. Default is 0 (disabled), see {@link WebDriverHelper#getBrowserPoolMinIdle()}
+	 *
+	 * @param minIdle standby browsers to keep for each browser configuration
+	 * @return previous value
+	 */
+	public int setBrowserPoolMinIdle(int minIdle) {
+		int previousMinIdle = this.webDriver.getBrowserPoolMinIdle();
+		this.webDriver.setBrowserPoolMinIdle(minIdle);
+		return previousMinIdle;
+	}
+
+	/**
+	 * <p>
+	 * <code>
+	 * | $previousMaxSize= | set browser pool max size | <i>standby browsers</i> |
+	 * </code>
+	 * </p>
+	 * Sets how many browsers are kept as standby for each browser configuration. While below this limit, <b>quit browser</b> cleans the browser (cookies, storage and extra windows) and keeps it
+	 * for the next <b>start browser</b> with the same configuration instead of closing it. Default is 0 (browsers are always closed)
+	 *
+	 * @param maxSize maximum standby browsers kept for each browser configuration
+	 * @return previous value
+	 */
+	public int setBrowserPoolMaxSize(int maxSize) {
+		int previousMaxSize = this.webDriver.getBrowserPoolMaxSize();
+		this.webDriver.setBrowserPoolMaxSize(maxSize);
+		return previousMaxSize;
+	}
+
+	/**
+	 * <p>
+	 * <code>
+	 * | $previousMax= | set max consecutive timeouts | <i>timeouts</i> |
+	 * </code>
+	 * </p>
+	 * Sets after how many consecutive timeouts commands stop waiting for elements, so a broken deployment doesn't make every row wait the full timeout. Commands are evaluated
+	 * without waiting until one succeeds or another page starts. Default is 0 (always wait), see {@link WaitCircuitBreaker}
+	 *
+	 * @param maxConsecutiveTimeouts consecutive timeouts, 0 to always wait
+	 * @return previous value
+	 */
+	public int setMaxConsecutiveTimeouts(int maxConsecutiveTimeouts) {
+		WaitCircuitBreaker circuitBreaker = this.webDriver.getCircuitBreaker();
+		int previousMaxConsecutiveTimeouts = circuitBreaker.getMaxConsecutiveTimeouts();
+		circuitBreaker.setMaxConsecutiveTimeouts(maxConsecutiveTimeouts);
+		return previousMaxConsecutiveTimeouts;
+	}
+
+	/**
+	 * <p>
+	 * <code>
+	 * | $previousBudget= | set page wait budget in seconds | <i>seconds</i> |
+	 * </code>
+	 * </p>
+	 * Sets how long commands of the same page can spend waiting for elements that never show up. Once exhausted, commands are evaluated without waiting until one succeeds or
+	 * another page starts. Default is 0 (no budget), see {@link WaitCircuitBreaker}
+	 *
+	 * @param pageWaitBudgetInSeconds seconds spent on timed out waits, per page
+	 * @return previous value
+	 */
+	public int setPageWaitBudgetInSeconds(int pageWaitBudgetInSeconds) {
+		WaitCircuitBreaker circuitBreaker = this.webDriver.getCircuitBreaker();
+		int previousPageWaitBudgetInSeconds = circuitBreaker.getPageWaitBudgetInSeconds();
+		circuitBreaker.setPageWaitBudgetInSeconds(pageWaitBudgetInSeconds);
+		return previousPageWaitBudgetInSeconds;
+	}
+
+	/**
+	 * <p>
+	 * <code>
+	 * | $previousMaxSize= | set browser cache max size | <i>live browsers</i> |
+	 * </code>
+	 * </p>
+	 * Sets how many browsers (with different configurations) can be alive in the current browser session. When <b>start browser</b> exceeds this limit, the least recently used browser is
+	 * closed. Default is 0 (unbounded), see {@link WebDriverCache}
+	 *
+	 * @param maxSize maximum live browsers
+	 * @return previous value
+	 */
+	public int setBrowserCacheMaxSize(int maxSize) {
+		WebDriverCache cache = this.webDriver.getBrowserCache();
+		int previousMaxSize = cache.getMaxSize();
+		cache.setMaxSize(maxSize);
+		return previousMaxSize;
+	}
+
+	/**
+	 * <p>
+	 * <code>
+	 * | $previousIdleTimeout= | set browser cache idle timeout | <i>timeout in seconds</i> |
+	 * </code>
+	 * </p>
+	 * Sets how long a browser can stay unused before being closed. Default is 0 (disabled), see {@link WebDriverCache}
+	 *
+	 * @param idleTimeoutInSeconds seconds a browser can stay unused
+	 * @return previous value
+	 */
+	public long setBrowserCacheIdleTimeout(long idleTimeoutInSeconds) {
+		WebDriverCache cache = this.webDriver.getBrowserCache();
+		long previousIdleTimeoutInSeconds = cache.getIdleTimeoutInSeconds();
+		cache.setIdleTimeoutInSeconds(idleTimeoutInSeconds);
+		return previousIdleTimeoutInSeconds;
+	}
+
+	/**
+	 * <p>
+	 * <code>
+	 * | $previousMaxAge= | set browser cache max age | <i>age in seconds</i> |
+	 * </code>
+	 * </p>
+	 * Sets how long a browser can live before being closed. The browser in use is never closed. Default is 0 (disabled), see {@link WebDriverCache}
+	 *
+	 * @param maxAgeInSeconds seconds a browser can live
+	 * @return previous value
+	 */
+	public long setBrowserCacheMaxAge(long maxAgeInSeconds) {
+		WebDriverCache cache = this.webDriver.getBrowserCache();
+		long previousMaxAgeInSeconds = cache.getMaxAgeInSeconds();
+		cache.setMaxAgeInSeconds(maxAgeInSeconds);
+		return previousMaxAgeInSeconds;
+	}
+
+	/**
+	 * <p>
+	 * <code>
+	 * | show | browser cache evictions |
+	 * </code>
+	 * </p>
+	 *
+	 * @return how many browsers of the current browser session were closed by each eviction cause, in <i>cause=count</i> format. For example: <i>size=1, idle=0, age=0</i>
+	 */
+	public String browserCacheEvictions() {
+		return StringUtils.join(this.webDriver.getBrowserCache().getEvictions().entrySet(), ", ");
+	}
+
 	/**
 	 * <p>
 	 * <code>
@@ -189,7 +419,114 @@ public class SeleniumFixture {
 	 * @return how much time the last command took to complete. Useful to ensure tests perfomance and such. Will be 0 if no commands were executed
 	 */
 	public long lastCommandDuration() {
-		return SeleniumFixture.WEB_DRIVER.getLastActionDurationInSeconds();
+		return this.webDriver.getLastActionDurationInSeconds();
+	}
+
+	/**
+	 * <p>
+	 * <code>
+	 * | check | last command duration in millis | &lt; <i>duration in milliseconds</i> |
+	 * </code>
+	 * </p>
+	 *
+	 * @return how much time the last command took to complete, in milliseconds. Will be 0 if no commands were executed
+	 */
+	public long lastCommandDurationInMillis() {
+		return TimeUnit.NANOSECONDS.toMillis(this.webDriver.getLastActionDurationInNanos());
+	}
+
+	/**
+	 * <p>
+	 * <code>
+	 * | show | command stats |
+	 * </code>
+	 * </p>
+	 *
+	 * @return latency statistics of each command ran by this slim server (count, p50, p95, p99 and max duration in milliseconds, browser polls and timeouts), one command per line
+	 */
+	public String commandStats() {
+		return this.webDriver.getMetrics().format(System.lineSeparator());
+	}
+
+	/**
+	 * <p>
+	 * <code>
+	 * | show | wire command stats |
+	 * </code>
+	 * </p>
+	 * Requires <b>fitnesse.selenium.trace.file</b> system property, see {@link WireCommandTracer}
+	 *
+	 * @return statistics of the wire commands (HTTP round-trips to the browser driver) issued by each command of the current page (count, total, p95 and max duration in
+	 *         milliseconds, request and response bytes), one wire command per line
+	 */
+	public String wireCommandStats() {
+		return WireCommandTracer.summary(System.lineSeparator());
+	}
+
+	/**
+	 * <p>
+	 * <code>
+	 * | $previousElementCache= | set element cache | <i>on/off</i> |
+	 * </code>
+	 * </p>
+	 * Commands repeating a locator reuse the element found by previous commands instead of searching it again, until an action runs or the page changes, see {@link WebElementCache}.
+	 * Default is off
+	 *
+	 * @param enableElementCache on (true) or off (false)
+	 * @return previous value
+	 */
+	public String setElementCache(String enableElementCache) {
+		WebElementCache elementCache = this.webDriver.getElementCache();
+		return acceptConfigReturnPrevious(enableElementCache, elementCache.isEnabled(), elementCache::setEnabled);
+	}
+
+	/**
+	 * <p>
+	 * <code>
+	 * | show | element cache stats |
+	 * </code>
+	 * </p>
+	 *
+	 * @return how many times commands of the current browser session reused an element (hits), searched it in the browser (misses) and discarded all elements of a browser
+	 *         (invalidations). For example: <i>hits=10, misses=4, invalidations=3</i>
+	 */
+	public String elementCacheStats() {
+		return this.webDriver.getElementCache().toString();
+	}
+
+	/**
+	 * <p>
+	 * <code>
+	 * | $hits= | element cache hits |
+	 * </code>
+	 * </p>
+	 *
+	 * @return how many times commands of the current browser session reused an element, see {@link #elementCacheStats()}
+	 */
+	public long elementCacheHits() {
+		return this.webDriver.getElementCache().getHits();
+	}
+
+	/**
+	 * <p>
+	 * <code>
+	 * | $invalidations= | element cache invalidations |
+	 * </code>
+	 * </p>
+	 *
+	 * @return how many times all elements of a browser of the current browser session were discarded, see {@link #elementCacheStats()}
+	 */
+	public long elementCacheInvalidations() {
+		return this.webDriver.getElementCache().getInvalidations();
+	}
+
+	/**
+	 * Invoked by selenium tables before anything else, see {@link WebDriverHelper#startPage(String)}
+	 *
+	 * @param page full path of the page running the table
+	 */
+	public void startPage(String page) {
+		this.webDriver.startPage(page);
 	}
 
 	/**
@@ -204,7 +541,11 @@ public class SeleniumFixture {
 	 * @return result Boolean result indication of assertion/operation
 	 */
 	public boolean open(String url) {
-		return SeleniumFixture.WEB_DRIVER.doWhenAvailable(url, (driver, parsedLocator) -> driver.get(parsedLocator.getOriginalSelector()));
+		return this.webDriver.doWhenAvailable("open", url, (driver, parsedLocator) -> {
+			driver.get(parsedLocator.getOriginalSelector());
+			// navigating selects the top frame
+			this.webDriver.getElementCache().selectFrame(driver, null);
+		});
 	}
 
 	/**
@@ -218,7 +559,10 @@ public class SeleniumFixture {
 	 * @return result Boolean result indication of assertion/operation
 	 */
 	public boolean refresh() {
-		return SeleniumFixture.WEB_DRIVER.doWhenAvailable(StringUtils.EMPTY, (driver, parsedLocator) -> driver.navigate().refresh());
+		return this.webDriver.doWhenAvailable("refresh", StringUtils.EMPTY, (driver, parsedLocator) -> {
+			driver.navigate().refresh();
+			this.webDriver.getElementCache().selectFrame(driver, null);
+		});
 	}
 
 	/**
@@ -232,7 +576,10 @@ public class SeleniumFixture {
 	 * @return result Boolean result indication of assertion/operation
 	 */
 	public boolean goBack() {
-		return SeleniumFixture.WEB_DRIVER.doWhenAvailable(StringUtils.EMPTY, (driver, parsedLocator) -> driver.navigate().back());
+		return this.webDriver.doWhenAvailable("goBack", StringUtils.EMPTY, (driver, parsedLocator) -> {
+			driver.navigate().back();
+			this.webDriver.getElementCache().selectFrame(driver, null);
+		});
 	}
 
 	/**
@@ -260,13 +607,14 @@ public class SeleniumFixture {
 	 * @return the current page title
 	 */
 	public String currentUrl(String expectedUrl) {
-		return SeleniumFixture.WEB_DRIVER.getWhenAvailable(expectedUrl, (driver, locator) -> driver.getCurrentUrl());
+		return this.webDriver.getWhenAvailable("currentUrl", expectedUrl, (driver, locator) -> driver.getCurrentUrl());
 	}
 
 	private void openWindow(WebDriver driver, String url) {
 		String cleansedUrl = this.fitnesseMarkup.clean(url);
 		if (CollectionUtils.isEmpty(driver.getWindowHandles())) {
 			driver.get(cleansedUrl);
+			this.webDriver.getElementCache().selectFrame(driver, null);
 		} else if (driver instanceof JavascriptExecutor) {
 			((JavascriptExecutor) driver).executeScript("window.open(arguments[0])", cleansedUrl);
 		}
@@ -285,7 +633,7 @@ public class SeleniumFixture {
 	 * @return result Boolean result indication of assertion/operation
 	 */
 	public boolean openWindow(String url) {
-		return SeleniumFixture.WEB_DRIVER.doWhenAvailable(url, (driver, parsedLocator) -> openWindow(driver, parsedLocator.getOriginalSelector()));
+		return this.webDriver.doWhenAvailable("openWindow", url, (driver, parsedLocator) -> openWindow(driver, parsedLocator.getOriginalSelector()));
 	}
 
 	/**
@@ -301,12 +649,15 @@ public class SeleniumFixture {
 	 * @return result Boolean result indication of assertion/operation
 	 */
 	public boolean selectWindow(String locator) {
-		return SeleniumFixture.WEB_DRIVER.doWhenAvailable(locator, (driver, parsedLocator) -> {
+		return this.webDriver.doWhenAvailable("selectWindow", locator, (driver, parsedLocator) -> {
 			String parsedWindowLocator = parsedLocator.getOriginalSelector();
+			Expectation windowExpectation = this.fitnesseMarkup.expectation(parsedWindowLocator);
 			String currentWindow = driver.getWindowHandle();
+			// selecting a window selects its top frame
+			this.webDriver.getElementCache().selectFrame(driver, null);
 			for (String windowId : driver.getWindowHandles()) {
 				WebDriver window = driver.switchTo().window(windowId);
-				if (this.fitnesseMarkup.compare(parsedWindowLocator, windowId) || this.fitnesseMarkup.compare(parsedWindowLocator, window.getTitle()) || this.fitnesseMarkup.compare(parsedWindowLocator, window.getCurrentUrl())) {
+				if (windowExpectation.matches(windowId) || windowExpectation.matches(window.getTitle()) || windowExpectation.matches(window.getCurrentUrl())) {
 					return;
 				}
 			}
@@ -332,7 +683,7 @@ public class SeleniumFixture {
 	 * @return result Boolean result indication of assertion/operation
 	 */
 	public boolean selectFrame(String locator) {
-		return this.frameHelper.select(SeleniumFixture.WEB_DRIVER, locator);
+		return this.frameHelper.select(this.webDriver, locator);
 	}
 
 	/**
@@ -361,7 +712,7 @@ public class SeleniumFixture {
 	 * @return the current page title
 	 */
 	public String currentWindow(String expectedWindowHandle) {
-		return SeleniumFixture.WEB_DRIVER.getWhenAvailable(expectedWindowHandle, (driver, locator) -> driver.getWindowHandle());
+		return this.webDriver.getWhenAvailable("currentWindow", expectedWindowHandle, (driver, locator) -> driver.getWindowHandle());
 	}
 
 	/**
@@ -375,7 +726,7 @@ public class SeleniumFixture {
 	 * @return the window size after maximizing
 	 */
 	public String windowMaximize() {
-		return SeleniumFixture.WEB_DRIVER.getWhenAvailable(StringUtils.EMPTY, (driver, parsedLocator) -> {
+		return this.webDriver.getWhenAvailable("windowMaximize", StringUtils.EMPTY, (driver, parsedLocator) -> {
 			Window window = driver.manage().window();
 			window.maximize();
 			return this.fitnesseMarkup.formatWidthAndHeight(window.getSize().getWidth(), window.getSize().getHeight());
@@ -395,7 +746,7 @@ public class SeleniumFixture {
 	 * @throws IllegalArgumentException if widthAndHeight is malformed
 	 */
 	public boolean setWindowSize(String widthAndHeight) {
-		return SeleniumFixture.WEB_DRIVER.doWhenAvailable(StringUtils.EMPTY, (driver, parsedLocator) -> {
+		return this.webDriver.doWhenAvailable("setWindowSize", StringUtils.EMPTY, (driver, parsedLocator) -> {
 			Pair<Integer, Integer> parsedWidthAndHeight = this.fitnesseMarkup.parseWidthAndHeight(widthAndHeight);
 			driver.manage().window().setSize(new Dimension(parsedWidthAndHeight.getLeft(), parsedWidthAndHeight.getRight()));
 		});
@@ -426,7 +777,7 @@ public class SeleniumFixture {
 	 * @return windows size, in [width]x[height] format
 	 */
 	public String windowSize(String expectedWindowSize) {
-		return SeleniumFixture.WEB_DRIVER.getWhenAvailable(expectedWindowSize, (driver, parsedLocator) -> {
+		return this.webDriver.getWhenAvailable("windowSize", expectedWindowSize, (driver, parsedLocator) -> {
 			Dimension dimension = driver.manage().window().getSize();
 			return String.format("%dx%d", dimension.getWidth(), dimension.getHeight());
 		});
@@ -458,7 +809,7 @@ public class SeleniumFixture {
 	 * @return the current page title
 	 */
 	public String title(String expectedTitle) {
-		return SeleniumFixture.WEB_DRIVER.getWhenAvailable(expectedTitle, (driver, locator) -> driver.getTitle());
+		return this.webDriver.getWhenAvailable("title", expectedTitle, (driver, locator) -> driver.getTitle());
 	}
 
 	/**
@@ -472,8 +823,9 @@ public class SeleniumFixture {
 	 * @return result Boolean result indication of assertion/operation
 	 */
 	public boolean closeBrowserTab() {
-		return SeleniumFixture.WEB_DRIVER.doWhenAvailable(StringUtils.EMPTY, (driver, parsedLocator) -> {
+		return this.webDriver.doWhenAvailable("closeBrowserTab", StringUtils.EMPTY, (driver, parsedLocator) -> {
 			driver.close();
+			this.webDriver.getElementCache().selectFrame(driver, null);
 			Iterator<String> currentWindows = driver.getWindowHandles().iterator();
 			if (currentWindows.hasNext()) {
 				// if there's still windows opened focus anyone that's still opened
@@ -493,7 +845,7 @@ public class SeleniumFixture {
 	 * @return result Boolean result indication of assertion/operation
 	 */
 	public boolean quitBrowser() {
-		SeleniumFixture.WEB_DRIVER.quit();
+		this.webDriver.quit();
 		return true;
 	}
 
@@ -571,8 +923,8 @@ public class SeleniumFixture {
 
 	private boolean sendKeysIn(String value, String locator, boolean clearBefore) {
 		Pair<String, String> valueAndLocator = this.fitnesseMarkup.swapValueToCheck(value, locator);
-		return SeleniumFixture.WEB_DRIVER.doWhenAvailable(valueAndLocator.getValue(), (driver, parsedLocator) -> {
-			WebElement element = driver.findElement(parsedLocator.getBy());
+		return this.webDriver.doWhenAvailable("sendKeysIn", valueAndLocator.getValue(), (driver, parsedLocator) -> {
+			WebElement element = this.webDriver.findElement(driver, parsedLocator);
 			String cleanedValue = cleanValueToSend(driver, element, valueAndLocator.getKey());
 			if (clearBefore) {
 				element.clear();
@@ -629,11 +981,11 @@ public class SeleniumFixture {
 	 * @return result Boolean result indication of assertion/operation
 	 */
 	public boolean click(String locator) {
-		return SeleniumFixture.WEB_DRIVER.doWhenAvailable(locator, (driver, parsedLocator) -> {
+		return this.webDriver.doWhenAvailable("click", locator, (driver, parsedLocator) -> {
 			if (this.dialogHelper.click(driver, parsedLocator)) {
 				return;
 			}
-			WebElement element = driver.findElement(parsedLocator.getBy());
+			WebElement element = this.webDriver.findElement(driver, parsedLocator);
 			if (!element.isEnabled()) {
 				throw new InvalidElementStateException("Element found but is disabled: " + element);
 			}
@@ -683,7 +1035,7 @@ public class SeleniumFixture {
 	 * @return result Boolean result indication of assertion/operation
 	 */
 	public boolean selectIn(String optionLocator, String locator) {
-		return this.selectHelper.select(SeleniumFixture.WEB_DRIVER, optionLocator, locator);
+		return this.selectHelper.select(this.webDriver, optionLocator, locator);
 	}
 
 	/**
@@ -724,7 +1076,7 @@ public class SeleniumFixture {
 	 * @return the appropriate information associated with the select
 	 */
 	public String selectedIn(String optionType, String locator) {
-		return this.selectHelper.selected(SeleniumFixture.WEB_DRIVER, optionType, locator);
+		return this.selectHelper.selected(this.webDriver, optionType, locator);
 	}
 
 	/**
@@ -740,8 +1092,8 @@ public class SeleniumFixture {
 	 * @return value associated with the locator
 	 */
 	public String value(String locator) {
-		return SeleniumFixture.WEB_DRIVER.getWhenAvailable(locator, (driver, parsedLocator) -> {
-			WebElement element = driver.findElement(parsedLocator.getBy());
+		return this.webDriver.getWhenAvailable("value", locator, (driver, parsedLocator) -> {
+			WebElement element = this.webDriver.findElement(driver, parsedLocator);
 			String inputType = element.getAttribute(SeleniumFixture.INPUT_TYPE_ATTRIBUTE);
 			if (StringUtils.equals(inputType, SeleniumFixture.INPUT_TYPE_CHECKBOX) || StringUtils.equals(inputType, SeleniumFixture.INPUT_TYPE_RADIO)) {
 				return this.fitnesseMarkup.booleanToOnOrOff(element.isSelected());
@@ -764,7 +1116,7 @@ public class SeleniumFixture {
 	 */
 	public String attributeIn(String attributeName, String locator) {
 		Pair<String, String> attributeAndLocatorWithValue = this.fitnesseMarkup.swapValueToCheck(attributeName, locator);
-		return SeleniumFixture.WEB_DRIVER.getWhenAvailable(attributeAndLocatorWithValue.getRight(), (driver, parsedLocator) -> driver.findElement(parsedLocator.getBy()).getAttribute(this.fitnesseMarkup.clean(attributeAndLocatorWithValue.getLeft())));
+		return this.webDriver.getWhenAvailable("attributeIn", attributeAndLocatorWithValue.getRight(), (driver, parsedLocator) -> this.webDriver.findElement(driver, parsedLocator).getAttribute(this.fitnesseMarkup.clean(attributeAndLocatorWithValue.getLeft())));
 	}
 
 	/**
@@ -799,9 +1151,9 @@ public class SeleniumFixture {
 	 * @return text associated with the locator
 	 */
 	public String text(String locator) {
-		return SeleniumFixture.WEB_DRIVER.getWhenAvailable(locator, (driver, parsedLocator) -> {
+		return this.webDriver.getWhenAvailable("text", locator, (driver, parsedLocator) -> {
 			return Optional.ofNullable(this.dialogHelper.text(driver, parsedLocator)).orElseGet(() -> {
-				return driver.findElement(parsedLocator.getBy()).getText();
+				return this.webDriver.findElement(driver, parsedLocator).getText();
 			});
 		});
 	}
@@ -818,11 +1170,13 @@ public class SeleniumFixture {
 	 * @throws IOException if something goes wrong while manipulating screenshot file
 	 */
 	public String screenshot() throws IOException {
-		return SeleniumFixture.WEB_DRIVER.getWhenAvailable(StringUtils.EMPTY, (driver, parsedLocator) -> {
-			if (driver instanceof TakesScreenshot) {
-				return this.fitnesseMarkup.imgLink(((TakesScreenshot) driver).getScreenshotAs(OutputType.BASE64));
+		return this.webDriver.getWhenAvailable("screenshot", StringUtils.EMPTY, (driver, parsedLocator) -> {
+			try {
+				String screenshot = this.webDriver.takeScreenshot(driver, "screenshot");
+				return screenshot == null ? null : this.fitnesseMarkup.imgLink(screenshot);
+			} catch (IOException e) {
+				throw new WebDriverException("Failed to write screenshot file", e);
 			}
-			return null;
 		});
 	}
 
@@ -847,7 +1201,7 @@ public class SeleniumFixture {
 	 * @return result Boolean result indication of assertion/operation
 	 */
 	public boolean present(String locator) {
-		return Boolean.valueOf(SeleniumFixture.WEB_DRIVER.getWhenAvailable(locator, (driver, parsedLocator) -> {
+		return Boolean.valueOf(this.webDriver.getWhenAvailable("present", locator, (driver, parsedLocator) -> {
 			boolean ensuring = Boolean.valueOf(parsedLocator.getExpectedValue());
 			boolean elementFound = false;
 			try {
@@ -874,9 +1228,14 @@ public class SeleniumFixture {
 	 * @return of the javascript snippet that ran
 	 */
 	public String runScript(String script) {
-		return SeleniumFixture.WEB_DRIVER.getWhenAvailable(script, (driver, parsedLocator) -> {
+		return this.webDriver.getWhenAvailable("runScript", script, (driver, parsedLocator) -> {
 			if (driver instanceof JavascriptExecutor) {
-				return Objects.toString(((JavascriptExecutor) driver).executeScript(parsedLocator.getOriginalSelector()), null);
+				try {
+					return Objects.toString(((JavascriptExecutor) driver).executeScript(parsedLocator.getOriginalSelector()), null);
+				} finally {
+					// scripts may change the page
+					this.webDriver.getElementCache().invalidate(driver);
+				}
 			}
 			return null;
 		});
@@ -898,7 +1257,7 @@ public class SeleniumFixture {
 	 * @return previous configuration value. If enabled will return <b>on</b>, <b>off</b> otherwise.
 	 */
 	public String stopTestOnFirstFailure(String shouldStop) {
-		return acceptConfigReturnPrevious(shouldStop, SeleniumFixture.WEB_DRIVER.getStopTestOnFirstFailure(), SeleniumFixture.WEB_DRIVER::setStopTestOnFirstFailure);
+		return acceptConfigReturnPrevious(shouldStop, this.webDriver.getStopTestOnFirstFailure(), this.webDriver::setStopTestOnFirstFailure);
 	}
 
 
@@ -912,15 +1271,32 @@ public class SeleniumFixture {
 	 * @return previous configuration value. If enabled will return <b>on</b>, <b>off</b> otherwise.
 	 */
 	public String setTakeScreenshotOnFailure(String shouldTake) {
-		return acceptConfigReturnPrevious(shouldTake, SeleniumFixture.WEB_DRIVER.getTakeScreenshotOnFailure(), SeleniumFixture.WEB_DRIVER::setTakeScreenshotOnFailure);
+		return acceptConfigReturnPrevious(shouldTake, this.webDriver.getTakeScreenshotOnFailure(), this.webDriver::setTakeScreenshotOnFailure);
+	}
+
+	/**
+	 * <p>
+	 * <code>
+	 * | $previousMax= | set max screenshots per page | <i>screenshots</i> |
+	 * </code>
+	 * </p>
+	 * Limits how many screenshots are taken after failures in the same page, so pages failing everywhere don't spend time taking screenshots. Default is 0 (no limit)
+	 *
+	 * @param maxScreenshotsPerPage maximum screenshots taken after failures in the same page, 0 for no limit
+	 * @return previous value
+	 */
+	public int setMaxScreenshotsPerPage(int maxScreenshotsPerPage) {
+		int previousMaxScreenshotsPerPage = this.webDriver.getMaxScreenshotsPerPage();
+		this.webDriver.setMaxScreenshotsPerPage(maxScreenshotsPerPage);
+		return previousMaxScreenshotsPerPage;
 	}
 
 	public String setDryRun(String enableDryRun) {
 		boolean dryRun = this.fitnesseMarkup.onOrOffToBoolean(enableDryRun);
-		String dryRunWindow = SeleniumFixture.WEB_DRIVER.getDryRunWindow();
+		String dryRunWindow = this.webDriver.getDryRunWindow();
 		boolean isDryRunAlreadyEnabled = StringUtils.isNotBlank(dryRunWindow);
 		if(!dryRun) {
-			SeleniumFixture.WEB_DRIVER.setDryRunWindow(null);
+			this.webDriver.setDryRunWindow(null);
 			if (isDryRunAlreadyEnabled) {
 				selectWindow(dryRunWindow);
 				closeBrowserTab();
@@ -930,14 +1306,14 @@ public class SeleniumFixture {
 		if(isDryRunAlreadyEnabled) {
 			return FitnesseMarkup.ON_VALUE;
 		}
-		SeleniumFixture.WEB_DRIVER.doWhenAvailable(null, (driver, parsedLocator) -> {
+		this.webDriver.doWhenAvailable("setDryRun", null, (driver, parsedLocator) -> {
 			Collection<String> previousHandles = driver.getWindowHandles();
 			openWindow(driver, SeleniumFixture.BLANK_PAGE);
 			Optional<String> dryRunWindowId = driver.getWindowHandles().stream().filter(w -> !previousHandles.contains(w)).findFirst();
 			if(!dryRunWindowId.isPresent()) {
 				throw new StopTestWithWebDriverException("Unable to create blank window to run test in dry run mode");
 			}
-			SeleniumFixture.WEB_DRIVER.setDryRunWindow(dryRunWindowId.get());
+			this.webDriver.setDryRunWindow(dryRunWindowId.get());
 		});
 		return FitnesseMarkup.OFF_VALUE;
 	}
@@ -957,6 +1333,6 @@ public class SeleniumFixture {
 	 * @return if the informed file exists on the filesystem
 	 */
 	public boolean fileExists(String file) {
-		return Boolean.valueOf(SeleniumFixture.WEB_DRIVER.getWhenAvailable(file, (driver, parsedLocator) -> Boolean.toString(this.fitnesseMarkup.cleanFile(parsedLocator.getOriginalSelector()).exists())));
+		return Boolean.valueOf(this.webDriver.getWhenAvailable("fileExists", file, (driver, parsedLocator) -> Boolean.toString(this.fitnesseMarkup.cleanFile(parsedLocator.getOriginalSelector()).exists())));
 	}
 }
@@ -3,20 +3,17 @@ package com.github.andreptb.fitnesse.plugins;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
-import java.util.Objects;
 import java.util.Optional;
-import java.util.logging.Level;
+import java.util.Set;
+import java.util.function.Supplier;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
 
-import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.lang3.ArrayUtils;
-import org.apache.commons.lang3.ClassUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.math.NumberUtils;
-import org.apache.commons.lang3.reflect.FieldUtils;
-import org.apache.commons.lang3.reflect.MethodUtils;
 
 import com.github.andreptb.fitnesse.SeleniumFixture;
 import com.github.andreptb.fitnesse.util.FitnesseMarkup;
@@ -24,10 +21,12 @@ import com.github.andreptb.fitnesse.util.FitnesseMarkup;
 import fitnesse.slim.instructions.CallInstruction;
 import fitnesse.slim.instructions.ImportInstruction;
 import fitnesse.slim.instructions.Instruction;
+import fitnesse.testsystems.TestPage;
 import fitnesse.testsystems.TestResult;
 import fitnesse.testsystems.slim.SlimTestContext;
 import fitnesse.testsystems.slim.Table;
 import fitnesse.testsystems.slim.results.SlimExceptionResult;
+import fitnesse.testsystems.slim.tables.Disgracer;
 import fitnesse.testsystems.slim.tables.ScriptTable;
 import fitnesse.testsystems.slim.tables.SlimAssertion;
 import fitnesse.testsystems.slim.tables.SlimExpectation;
@@ -56,17 +55,29 @@ public class SeleniumScriptTable extends ScriptTable {
 	private static final String SELENIUM_FIXTURE_PACKAGE_TO_IMPORT = "com.github.andreptb.fitnesse";
 
 	/**
-	 * Constant to reference {@link CallInstruction} args private field
+	 * Signatures (see {@link #signature(String, int)}) of {@link SeleniumFixture} methods taking only strings, the ones that can receive the value to check in the first argument.
+	 * Indexed once, so instructions are checked without reflection
 	 */
-	private static final String CALL_INSTRUCTION_METHODNAME_FIELD = "methodName";
+	private static final Set<String> INJECTABLE_METHODS = Collections.unmodifiableSet(Arrays.stream(SeleniumFixture.class.getMethods())
+		.filter(method -> Arrays.stream(method.getParameterTypes()).allMatch(String.class::equals))
+		.map(method -> SeleniumScriptTable.signature(method.getName(), method.getParameterCount()))
+		.collect(Collectors.toSet()));
 	/**
-	 * Constant to reference {@link CallInstruction} args private field
+	 * Suffix added by {@link ScriptTable} to the table type to name the fixture instance
 	 */
-	private static final String CALL_INSTRUCTION_ARGS_FIELD = "args";
+	private static final String ACTOR_INSTANCE_SUFFIX = "Actor";
+	/**
+	 * Fixture method notified of the page running the table, see {@link SeleniumFixture#startPage(String)}
+	 */
+	private static final String START_PAGE_METHOD = "startPage";
 	/**
 	 * Utility to process FitNesse markup
 	 */
 	private FitnesseMarkup fitnesseMarkup = new FitnesseMarkup();
+	/**
+	 * Value to inject in the first argument of the {@link CallInstruction} being created by a check, ensure or reject action, see {@link #callFunction(String, String, Object...)}
+	 */
+	private String valueToInject;
 
 	public SeleniumScriptTable(Table table, String id, SlimTestContext testContext) {
 		super(table, id, testContext);
@@ -90,67 +101,79 @@ public class SeleniumScriptTable extends ScriptTable {
 		List<SlimAssertion> assertions = new ArrayList<>();
 		assertions.add(makeAssertion(new ImportInstruction(ImportInstruction.INSTRUCTION, SeleniumScriptTable.SELENIUM_FIXTURE_PACKAGE_TO_IMPORT), SlimExpectation.NOOP_EXPECTATION));
 		assertions.addAll(startActor(NumberUtils.INTEGER_ZERO, SeleniumFixture.class.getName(), NumberUtils.INTEGER_ZERO));
+		TestPage page = getTestContext().getPageToTest();
+		if (page != null) {
+			assertions.add(makeAssertion(callFunction(getTableType() + SeleniumScriptTable.ACTOR_INSTANCE_SUFFIX, SeleniumScriptTable.START_PAGE_METHOD, page.getFullPath()), SlimExpectation.NOOP_EXPECTATION));
+		}
 		return assertions;
 	}
 
 	@Override
 	protected List<SlimAssertion> ensure(int row) {
-		List<SlimAssertion> assertions = super.ensure(row);
-		injectValueInFirstArg(assertions, false, true);
-		return assertions;
+		return injectValueInFirstArg(() -> super.ensure(row), false, true);
 	}
 
 	@Override
 	protected List<SlimAssertion> reject(int row) {
-		List<SlimAssertion> assertions = super.reject(row);
-		injectValueInFirstArg(assertions, false, false);
-		return assertions;
+		return injectValueInFirstArg(() -> super.reject(row), false, false);
 	}
 
 	@Override
 	protected List<SlimAssertion> checkAction(int row) {
-		List<SlimAssertion> assertions = super.checkAction(row);
-		injectResultToAction(row, assertions, false);
-		return assertions;
+		return injectResultToAction(row, () -> super.checkAction(row), false);
 	}
 
 	@Override
 	protected List<SlimAssertion> checkNotAction(int row) {
-		List<SlimAssertion> assertions = super.checkNotAction(row);
-		injectResultToAction(row, assertions, true);
-		return assertions;
+		return injectResultToAction(row, () -> super.checkNotAction(row), true);
 	}
 
-	private void injectResultToAction(int row, List<SlimAssertion> assertions, boolean not) {
+	private List<SlimAssertion> injectResultToAction(int row, Supplier<List<SlimAssertion>> action, boolean not) {
 		String contentToCheck = this.fitnesseMarkup.clean(this.table.getCellContents(this.table.getColumnCountInRow(row) - 1, row));
-		if (CollectionUtils.isEmpty(assertions) || StringUtils.isBlank(contentToCheck)) {
-			return;
+		if (StringUtils.isBlank(contentToCheck)) {
+			return action.get();
 		}
-		injectValueInFirstArg(assertions, not, contentToCheck);
+		return injectValueInFirstArg(action, not, contentToCheck);
 	}
 
-	private void injectValueInFirstArg(List<SlimAssertion> assertions, boolean not, Object contentToCheck) {
-		SlimAssertion.getInstructions(assertions).forEach(instruction -> {
-			try {
-				String valueToInject = FitnesseMarkup.SELECTOR_VALUE_SEPARATOR + (not ? FitnesseMarkup.SELECTOR_VALUE_DENY_INDICATOR : StringUtils.EMPTY) + contentToCheck;
-				Object args = FieldUtils.readField(instruction, SeleniumScriptTable.CALL_INSTRUCTION_ARGS_FIELD, true);
-				Object[] argsToInject;
-				if (args instanceof Object[] && ArrayUtils.getLength(args) > NumberUtils.INTEGER_ZERO) {
-					argsToInject = (Object[]) args;
-					argsToInject[NumberUtils.INTEGER_ZERO] += valueToInject;
-				} else {
-					argsToInject = ArrayUtils.toArray(valueToInject);
-				}
-				String methodName = Objects.toString(FieldUtils.readField(instruction, SeleniumScriptTable.CALL_INSTRUCTION_METHODNAME_FIELD, true));
-				if (Objects.isNull(MethodUtils.getAccessibleMethod(SeleniumFixture.class, Objects.toString(methodName), ClassUtils.toClass(argsToInject)))) {
-					SeleniumScriptTable.LOGGER.fine("Method for instruction not found on SeleniumFixture, injection aborted: " + instruction);
-					return;
-				}
-				FieldUtils.writeField(instruction, SeleniumScriptTable.CALL_INSTRUCTION_ARGS_FIELD, argsToInject, true);
-			} catch (IllegalArgumentException | ReflectiveOperationException e) {
-				SeleniumScriptTable.LOGGER.log(Level.FINE, "Failed to inject check value using reflection", e);
-			}
-		});
+	/**
+	 * Creates the assertions of the action with the value to check injected in the first argument of its instruction, see {@link #callFunction(String, String, Object...)}
+	 */
+	private List<SlimAssertion> injectValueInFirstArg(Supplier<List<SlimAssertion>> action, boolean not, Object contentToCheck) {
+		this.valueToInject = FitnesseMarkup.SELECTOR_VALUE_SEPARATOR + (not ? FitnesseMarkup.SELECTOR_VALUE_DENY_INDICATOR : StringUtils.EMPTY) + contentToCheck;
+		try {
+			return action.get();
+		} finally {
+			this.valueToInject = null;
+		}
+	}
+
+	/**
+	 * Injects the value to check, if any, in the first argument of the instruction, as long as {@link SeleniumFixture} has a method receiving it
+	 */
+	@Override
+	protected Instruction callFunction(String instanceName, String functionName, Object... args) {
+		if (this.valueToInject == null) {
+			return super.callFunction(instanceName, functionName, args);
+		}
+		Object[] argsToInject;
+		if (ArrayUtils.getLength(args) > NumberUtils.INTEGER_ZERO) {
+			argsToInject = args.clone();
+			argsToInject[NumberUtils.INTEGER_ZERO] += this.valueToInject;
+		} else {
+			argsToInject = ArrayUtils.toArray(this.valueToInject);
+		}
+		// same method name the instruction calls
+		String methodName = Disgracer.disgraceMethodName(functionName);
+		if (!Arrays.stream(argsToInject).allMatch(String.class::isInstance) || !SeleniumScriptTable.INJECTABLE_METHODS.contains(SeleniumScriptTable.signature(methodName, argsToInject.length))) {
+			SeleniumScriptTable.LOGGER.fine("Method for instruction not found on SeleniumFixture, injection aborted: " + methodName);
+			return super.callFunction(instanceName, functionName, args);
+		}
+		return super.callFunction(instanceName, functionName, argsToInject);
+	}
+
+	private static String signature(String methodName, int parameterCount) {
+		return methodName + "/" + parameterCount;
 	}
 
 	@Override
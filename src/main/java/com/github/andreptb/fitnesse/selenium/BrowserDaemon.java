@@ -0,0 +1,134 @@
+package com.github.andreptb.fitnesse.selenium;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang3.ArrayUtils;
+import org.apache.commons.lang3.EnumUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.chrome.ChromeDriver;
+import org.openqa.selenium.chrome.ChromeDriverService;
+import org.openqa.selenium.edge.EdgeDriver;
+import org.openqa.selenium.edge.EdgeDriverService;
+import org.openqa.selenium.firefox.FirefoxDriver;
+import org.openqa.selenium.firefox.GeckoDriverService;
+import org.openqa.selenium.ie.InternetExplorerDriver;
+import org.openqa.selenium.ie.InternetExplorerDriverService;
+import org.openqa.selenium.opera.OperaDriver;
+import org.openqa.selenium.opera.OperaDriverService;
+import org.openqa.selenium.phantomjs.PhantomJSDriver;
+import org.openqa.selenium.phantomjs.PhantomJSDriverService;
+import org.openqa.selenium.remote.service.DriverService;
+
+/**
+ * Long-lived local process that owns browser driver services (such as chromedriver and geckodriver), so browsers launched through them survive slim server restarts.
+ * When {@link #DIRECTORY_PROPERTY} points to the daemon directory, {@link WebDriverHelper} creates local browsers as remote sessions on the daemon services and re-attaches
+ * to them in subsequent test runs, see {@link BrowserDaemonClient}. Usage:
+ * <p>
+ * <code>
+ * java -cp [fitnesse-selenium-slim and selenium classpath] -Dfitnesse.selenium.daemon.dir=[directory] com.github.andreptb.fitnesse.selenium.BrowserDaemon [browser...]
+ * </code>
+ * </p>
+ * Supported browsers are listed in {@link DriverServiceFactory}, default is chrome and firefox. The daemon runs until it's killed, stopping all driver services (and their browsers).
+ */
+public class BrowserDaemon {
+
+	/**
+	 * System property with the daemon directory, used by the daemon to publish its services and by slim servers to find them. Default is {@link #DEFAULT_DIRECTORY} in user home
+	 */
+	public static final String DIRECTORY_PROPERTY = "fitnesse.selenium.daemon.dir";
+
+	/**
+	 * Default daemon directory, relative to user home
+	 */
+	static final String DEFAULT_DIRECTORY = ".fitnesse-selenium-slim";
+
+	/**
+	 * File within daemon directory mapping driver class names to driver service URLs
+	 */
+	static final String SERVICES_FILE = "services.properties";
+
+	private static final Logger LOGGER = Logger.getLogger(BrowserDaemon.class.getName());
+
+	/**
+	 * Enum mapping browsers to the driver services able to serve them
+	 */
+	private enum DriverServiceFactory {
+		chrome(ChromeDriver.class, ChromeDriverService::createDefaultService),
+		firefox(FirefoxDriver.class, GeckoDriverService::createDefaultService),
+		edge(EdgeDriver.class, EdgeDriverService::createDefaultService),
+		internetexplorer(InternetExplorerDriver.class, InternetExplorerDriverService::createDefaultService),
+		opera(OperaDriver.class, OperaDriverService::createDefaultService),
+		phantomjs(PhantomJSDriver.class, PhantomJSDriverService::createDefaultService);
+
+		private Class<? extends WebDriver> driverClass;
+		private Supplier<DriverService> serviceFactory;
+
+		private DriverServiceFactory(Class<? extends WebDriver> driverClass, Supplier<DriverService> serviceFactory) {
+			this.driverClass = driverClass;
+			this.serviceFactory = serviceFactory;
+		}
+	}
+
+	public static void main(String[] args) throws IOException, InterruptedException {
+		String[] browsers = ArrayUtils.isEmpty(args) ? new String[] { DriverServiceFactory.chrome.name(), DriverServiceFactory.firefox.name() } : args;
+		File directory = BrowserDaemon.directory();
+		Properties services = new Properties();
+		List<DriverService> startedServices = new ArrayList<>();
+		Arrays.stream(browsers).map(browser -> EnumUtils.getEnum(DriverServiceFactory.class, StringUtils.lowerCase(browser))).forEach(factory -> {
+			if (factory == null) {
+				BrowserDaemon.LOGGER.warning("Unsupported browser ignored, supported browsers are: " + Arrays.toString(DriverServiceFactory.values()));
+				return;
+			}
+			try {
+				DriverService service = factory.serviceFactory.get();
+				service.start();
+				startedServices.add(service);
+				services.setProperty(factory.driverClass.getName(), service.getUrl().toString());
+				BrowserDaemon.LOGGER.info("Serving " + factory + " at " + service.getUrl());
+			} catch (Exception e) {
+				BrowserDaemon.LOGGER.log(Level.WARNING, "Failed to start driver service for " + factory, e);
+			}
+		});
+		if (startedServices.isEmpty()) {
+			throw new IllegalStateException("No driver service could be started");
+		}
+		FileUtils.forceMkdir(directory);
+		File servicesFile = new File(directory, BrowserDaemon.SERVICES_FILE);
+		try (OutputStream output = Files.newOutputStream(servicesFile.toPath())) {
+			services.store(output, "fitnesse-selenium-slim browser daemon services");
+		}
+		CountDownLatch stopped = new CountDownLatch(1);
+		Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+			FileUtils.deleteQuietly(servicesFile);
+			FileUtils.deleteQuietly(new File(directory, BrowserDaemonClient.SESSIONS_DIRECTORY));
+			startedServices.forEach(DriverService::stop);
+			stopped.countDown();
+		}, "fitnesse-selenium-daemon-shutdown"));
+		BrowserDaemon.LOGGER.info("Browser daemon running, services published at " + servicesFile);
+		stopped.await();
+	}
+
+	/**
+	 * @return daemon directory, see {@link #DIRECTORY_PROPERTY}
+	 */
+	static File directory() {
+		String directory = System.getProperty(BrowserDaemon.DIRECTORY_PROPERTY);
+		if (StringUtils.isBlank(directory)) {
+			return new File(FileUtils.getUserDirectory(), BrowserDaemon.DEFAULT_DIRECTORY);
+		}
+		return new File(directory);
+	}
+}
@@ -0,0 +1,224 @@
+package com.github.andreptb.fitnesse.selenium;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.reflect.FieldUtils;
+import org.openqa.selenium.Capabilities;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.remote.CommandExecutor;
+import org.openqa.selenium.remote.Dialect;
+import org.openqa.selenium.remote.HttpCommandExecutor;
+import org.openqa.selenium.remote.RemoteWebDriver;
+import org.openqa.selenium.remote.http.HttpClient;
+
+/**
+ * Creates browsers on the driver services published by {@link BrowserDaemon} and re-attaches to them after slim server restarts. Browsers are matched by the same id
+ * {@link WebDriverHelper} uses to identify a browser configuration (browser, capabilities and preferences).
+ * <p>
+ * Browsers are never quit by this client: when detached (see {@link #detach(Integer, WebDriver)}, or when the JVM exits) the browser session is recorded in the daemon directory, so the next
+ * {@link #connect(Integer, URL, Capabilities)} with the same configuration re-attaches to it, even from another JVM.
+ * </p>
+ */
+public class BrowserDaemonClient {
+
+	/**
+	 * Directory within daemon directory containing detached browser sessions
+	 */
+	static final String SESSIONS_DIRECTORY = "sessions";
+
+	/**
+	 * {@link HttpCommandExecutor} private fields defining the wire protocol, only set when the session is created by the executor itself
+	 */
+	private static final String[] EXECUTOR_CODEC_FIELDS = { "commandCodec", "responseCodec" };
+
+	private static final String SESSION_URL = "url";
+	private static final String SESSION_ID = "session";
+	private static final String SESSION_DIALECT = "dialect";
+
+	private Logger logger = Logger.getLogger(BrowserDaemonClient.class.getName());
+
+	private final File directory;
+
+	/**
+	 * HTTP connections to the daemon service
+	 */
+	private final HttpClient.Factory httpClientFactory;
+
+	/**
+	 * Browsers currently attached to this JVM, detached on JVM exit
+	 */
+	private final Map<DaemonWebDriver, Integer> attachedDrivers = new ConcurrentHashMap<>();
+
+	BrowserDaemonClient(File directory, HttpClient.Factory httpClientFactory) {
+		this.directory = directory;
+		this.httpClientFactory = httpClientFactory;
+		Runtime.getRuntime().addShutdownHook(new Thread(() -> this.attachedDrivers.forEach((driver, driverId) -> detach(driverId, driver)), "fitnesse-selenium-daemon-detach"));
+	}
+
+	/**
+	 * @param httpClientFactory HTTP connections to the daemon service
+	 * @return client for the daemon configured by {@link BrowserDaemon#DIRECTORY_PROPERTY}, or null if the property is not set
+	 */
+	static BrowserDaemonClient fromSystemProperties(HttpClient.Factory httpClientFactory) {
+		if (StringUtils.isBlank(System.getProperty(BrowserDaemon.DIRECTORY_PROPERTY))) {
+			return null;
+		}
+		return new BrowserDaemonClient(BrowserDaemon.directory(), httpClientFactory);
+	}
+
+	/**
+	 * @param driverClass local driver implementation
+	 * @return URL of the daemon service able to create browsers for this implementation, if the daemon is running and serves it
+	 */
+	public Optional<URL> serviceUrl(Class<? extends WebDriver> driverClass) {
+		return Optional.ofNullable(load(new File(this.directory, BrowserDaemon.SERVICES_FILE)).getProperty(driverClass.getName())).map(this::toUrl);
+	}
+
+	/**
+	 * Re-attaches to the detached browser with the same configuration or, if there is none (or it's no longer available), creates a new browser in the daemon service
+	 *
+	 * @param driverId browser configuration id
+	 * @param serviceUrl daemon service URL, see {@link #serviceUrl(Class)}
+	 * @param capabilities used to create new browsers
+	 * @return driver attached to a daemon browser
+	 * @throws IOException if daemon directory can't be read
+	 */
+	public WebDriver connect(Integer driverId, URL serviceUrl, Capabilities capabilities) throws IOException {
+		DaemonWebDriver driver = reattach(driverId, serviceUrl, capabilities);
+		if (driver == null) {
+			driver = new DaemonWebDriver(new HttpCommandExecutor(Collections.emptyMap(), serviceUrl, this.httpClientFactory), capabilities);
+		}
+		this.attachedDrivers.put(driver, driverId);
+		return driver;
+	}
+
+	private DaemonWebDriver reattach(Integer driverId, URL serviceUrl, Capabilities capabilities) throws IOException {
+		File sessionFile = sessionFile(driverId);
+		File claimedSessionFile = new File(sessionFile.getParentFile(), sessionFile.getName() + "." + System.nanoTime());
+		try {
+			// moving the file claims the session, so it's never attached by two JVMs
+			Files.move(sessionFile.toPath(), claimedSessionFile.toPath(), StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException e) {
+			return null;
+		}
+		Properties session = load(claimedSessionFile);
+		FileUtils.deleteQuietly(claimedSessionFile);
+		if (!StringUtils.equals(session.getProperty(BrowserDaemonClient.SESSION_URL), serviceUrl.toString())) {
+			return null;
+		}
+		try {
+			HttpCommandExecutor executor = new HttpCommandExecutor(Collections.emptyMap(), serviceUrl, this.httpClientFactory);
+			Dialect dialect = Dialect.valueOf(session.getProperty(BrowserDaemonClient.SESSION_DIALECT));
+			FieldUtils.writeField(executor, BrowserDaemonClient.EXECUTOR_CODEC_FIELDS[0], dialect.getCommandCodec(), true);
+			FieldUtils.writeField(executor, BrowserDaemonClient.EXECUTOR_CODEC_FIELDS[1], dialect.getResponseCodec(), true);
+			DaemonWebDriver driver = new DaemonWebDriver(executor, session.getProperty(BrowserDaemonClient.SESSION_ID), capabilities);
+			if (WebDriverPool.cleanup(driver)) {
+				this.logger.info("Re-attached to daemon browser session " + driver.getSessionId());
+				return driver;
+			}
+		} catch (IllegalArgumentException | ReflectiveOperationException e) {
+			this.logger.log(Level.FINE, "Failed to re-attach to daemon browser session", e);
+		}
+		return null;
+	}
+
+	/**
+	 * Releases the browser so it can be re-attached later. If there is already a detached browser with the same configuration, this one is quit.
+	 *
+	 * @param driverId browser configuration id
+	 * @param driver to be detached
+	 */
+	public void detach(Integer driverId, WebDriver driver) {
+		if (!(driver instanceof DaemonWebDriver) || this.attachedDrivers.remove(driver) == null) {
+			return;
+		}
+		DaemonWebDriver daemonDriver = (DaemonWebDriver) driver;
+		File sessionFile = sessionFile(driverId);
+		try {
+			CommandExecutor executor = TracingCommandExecutor.unwrap(daemonDriver.getCommandExecutor());
+			Object codec = FieldUtils.readField(executor, BrowserDaemonClient.EXECUTOR_CODEC_FIELDS[0], true);
+			Optional<Dialect> dialect = Arrays.stream(Dialect.values()).filter(value -> codec != null && value.getCommandCodec().getClass() == codec.getClass()).findFirst();
+			if (!sessionFile.exists() && dialect.isPresent() && daemonDriver.getSessionId() != null) {
+				Properties session = new Properties();
+				session.setProperty(BrowserDaemonClient.SESSION_URL, ((HttpCommandExecutor) executor).getAddressOfRemoteServer().toString());
+				session.setProperty(BrowserDaemonClient.SESSION_ID, daemonDriver.getSessionId().toString());
+				session.setProperty(BrowserDaemonClient.SESSION_DIALECT, dialect.get().name());
+				FileUtils.forceMkdir(sessionFile.getParentFile());
+				File temporaryFile = new File(sessionFile.getParentFile(), sessionFile.getName() + ".tmp" + System.nanoTime());
+				try (OutputStream output = Files.newOutputStream(temporaryFile.toPath())) {
+					session.store(output, null);
+				}
+				Files.move(temporaryFile.toPath(), sessionFile.toPath(), StandardCopyOption.ATOMIC_MOVE);
+				return;
+			}
+		} catch (IOException | ReflectiveOperationException e) {
+			this.logger.log(Level.WARNING, "Failed to detach daemon browser session, it will be quit", e);
+		}
+		WebDriverQuitter.quit(driver);
+	}
+
+	private File sessionFile(Integer driverId) {
+		return FileUtils.getFile(this.directory, BrowserDaemonClient.SESSIONS_DIRECTORY, driverId + ".properties");
+	}
+
+	private Properties load(File file) {
+		Properties properties = new Properties();
+		if (!file.isFile()) {
+			return properties;
+		}
+		try (InputStream input = Files.newInputStream(file.toPath())) {
+			properties.load(input);
+		} catch (IOException e) {
+			this.logger.log(Level.FINE, "Failed to read daemon file " + file, e);
+		}
+		return properties;
+	}
+
+	private URL toUrl(String url) {
+		try {
+			return new URL(url);
+		} catch (IOException e) {
+			throw new IllegalStateException("Invalid daemon service URL: " + url, e);
+		}
+	}
+
+	/**
+	 * {@link RemoteWebDriver} bound to a daemon browser. Can be created with a new browser session or re-attached to an existing one
+	 */
+	public static class DaemonWebDriver extends RemoteWebDriver {
+
+		private Capabilities desiredCapabilities;
+
+		DaemonWebDriver(CommandExecutor executor, Capabilities capabilities) {
+			super(executor, capabilities);
+		}
+
+		DaemonWebDriver(CommandExecutor executor, String sessionId, Capabilities capabilities) {
+			super();
+			this.desiredCapabilities = capabilities;
+			setCommandExecutor(executor);
+			setSessionId(sessionId);
+		}
+
+		@Override
+		public Capabilities getCapabilities() {
+			return Optional.ofNullable(super.getCapabilities()).orElse(this.desiredCapabilities);
+		}
+	}
+}
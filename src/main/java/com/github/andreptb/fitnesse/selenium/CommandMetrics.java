@@ -0,0 +1,216 @@
+package com.github.andreptb.fitnesse.selenium;
+
+import java.text.MessageFormat;
+import java.util.Collection;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * Collects latency statistics of selenium commands: a {@link LatencyHistogram} per command, plus how many times the command polled the browser and how many times it timed out.
+ * Statistics are kept for the whole JVM (all browser sessions) and written to stderr when the JVM exits.
+ */
+public class CommandMetrics {
+
+	/**
+	 * Name under which screenshots taken after failures are recorded
+	 */
+	public static final String SCREENSHOT = "screenshotOnFailure";
+
+	/**
+	 * Name under which screenshot thumbnails encoding is recorded
+	 */
+	public static final String THUMBNAIL = "screenshotThumbnail";
+
+	private final Map<String, CommandStats> commands = new ConcurrentHashMap<>();
+	private final AtomicInteger inFlightWaits = new AtomicInteger();
+	private final LongAdder screenshotBytes = new LongAdder();
+
+	public CommandMetrics() {
+		Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+			if (!this.commands.isEmpty()) {
+				// logging may already be reset by its own shutdown hook, so statistics are written directly to stderr (available in FitNesse execution log)
+				System.err.println("Selenium command statistics:" + StringUtils.LF + format(StringUtils.LF));
+			}
+		}, "fitnesse-selenium-metrics-dump"));
+	}
+
+	/**
+	 * @param command command name, usually the fixture method
+	 * @return statistics of the command, created if needed
+	 */
+	public CommandStats get(String command) {
+		return this.commands.computeIfAbsent(StringUtils.defaultString(command), CommandStats::new);
+	}
+
+	/**
+	 * @param separator between commands
+	 * @return statistics of all commands, sorted by command name. Durations in milliseconds
+	 */
+	public String format(String separator) {
+		return getCommands().stream().map(CommandStats::toString).collect(Collectors.joining(separator));
+	}
+
+	/**
+	 * @return statistics of all commands, sorted by command name
+	 */
+	public Collection<CommandStats> getCommands() {
+		return new TreeMap<>(this.commands).values();
+	}
+
+	/**
+	 * @return amount of commands executed, not counting {@link #SCREENSHOT} and {@link #THUMBNAIL}
+	 */
+	public long getCommandsExecuted() {
+		return this.commands.values().stream().filter(stats -> !CommandMetrics.SCREENSHOT.equals(stats.command) && !CommandMetrics.THUMBNAIL.equals(stats.command)).mapToLong(stats -> stats.latency.getCount()).sum();
+	}
+
+	/**
+	 * @return amount of times commands timed out
+	 */
+	public long getTimeouts() {
+		return this.commands.values().stream().mapToLong(CommandStats::getTimeouts).sum();
+	}
+
+	/**
+	 * @return amount of times commands polled the browser
+	 */
+	public long getPolls() {
+		return this.commands.values().stream().mapToLong(CommandStats::getPolls).sum();
+	}
+
+	/**
+	 * @return amount of times commands polled the browser again after the first attempt failed
+	 */
+	public long getRetries() {
+		return this.commands.values().stream().mapToLong(CommandStats::getRetries).sum();
+	}
+
+	/**
+	 * Marks the start of a wait for an element, see {@link #getInFlightWaits()}
+	 */
+	public void waitStarted() {
+		this.inFlightWaits.incrementAndGet();
+	}
+
+	/**
+	 * Marks the end of a wait started with {@link #waitStarted()}
+	 */
+	public void waitFinished() {
+		this.inFlightWaits.decrementAndGet();
+	}
+
+	/**
+	 * @return amount of commands currently waiting for elements
+	 */
+	public int getInFlightWaits() {
+		return this.inFlightWaits.get();
+	}
+
+	/**
+	 * @param bytes size of a screenshot taken
+	 */
+	public void recordScreenshotBytes(long bytes) {
+		this.screenshotBytes.add(bytes);
+	}
+
+	/**
+	 * @param base64Screenshot screenshot taken, encoded in base64. Its decoded size is recorded
+	 * @return decoded size of the screenshot
+	 */
+	public long recordScreenshot(String base64Screenshot) {
+		int length = StringUtils.length(base64Screenshot);
+		long bytes = length * 3L / 4 - (StringUtils.endsWith(base64Screenshot, "==") ? 2 : StringUtils.endsWith(base64Screenshot, "=") ? 1 : 0);
+		recordScreenshotBytes(bytes);
+		return bytes;
+	}
+
+	/**
+	 * @return total size of screenshots taken
+	 */
+	public long getScreenshotBytes() {
+		return this.screenshotBytes.sum();
+	}
+
+	/**
+	 * Discards all statistics
+	 */
+	public void clear() {
+		this.commands.clear();
+	}
+
+	/**
+	 * Statistics of a single command
+	 */
+	public static class CommandStats {
+
+		private final String command;
+		private final LatencyHistogram latency = new LatencyHistogram();
+		private final LongAdder polls = new LongAdder();
+		private final LongAdder retries = new LongAdder();
+		private final LongAdder timeouts = new LongAdder();
+
+		private CommandStats(String command) {
+			this.command = command;
+		}
+
+		/**
+		 * @param nanos command duration
+		 */
+		public void record(long nanos) {
+			this.latency.record(nanos);
+		}
+
+		/**
+		 * @param attempt attempt of the command evaluating the browser, starting from 1. Attempts after the first are accounted as retries
+		 */
+		public void recordPoll(int attempt) {
+			this.polls.increment();
+			if (attempt > 1) {
+				this.retries.increment();
+			}
+		}
+
+		public void recordTimeout() {
+			this.timeouts.increment();
+		}
+
+		public String getCommand() {
+			return this.command;
+		}
+
+		public LatencyHistogram getLatency() {
+			return this.latency;
+		}
+
+		public long getPolls() {
+			return this.polls.sum();
+		}
+
+		public long getRetries() {
+			return this.retries.sum();
+		}
+
+		public long getTimeouts() {
+			return this.timeouts.sum();
+		}
+
+		@Override
+		public String toString() {
+			return MessageFormat.format("{0}: count={1}, p50={2}ms, p95={3}ms, p99={4}ms, max={5}ms, polls={6}, timeouts={7}", this.command, String.valueOf(this.latency.getCount()),
+				CommandStats.millis(this.latency.getPercentile(50)), CommandStats.millis(this.latency.getPercentile(95)), CommandStats.millis(this.latency.getPercentile(99)),
+				CommandStats.millis(this.latency.getMax()), String.valueOf(getPolls()), String.valueOf(getTimeouts()));
+		}
+
+		private static String millis(long nanos) {
+			return String.format(Locale.ROOT, "%.1f", nanos / (double) TimeUnit.MILLISECONDS.toNanos(1));
+		}
+	}
+}
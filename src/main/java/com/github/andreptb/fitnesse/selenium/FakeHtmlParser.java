@@ -0,0 +1,213 @@
+package com.github.andreptb.fitnesse.selenium;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.apache.commons.lang3.StringUtils;
+import org.w3c.dom.DOMException;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+/**
+ * Lenient HTML parser building the documents of {@link FakeWebDriver} pages. Understands what test pages usually have: quoted, unquoted and valueless attributes, void elements,
+ * comments, character references and raw text elements. As browsers do, elements left open are closed by the end tag of an ancestor, and paragraphs, list items, options and table
+ * cells are closed by the next one.
+ */
+final class FakeHtmlParser {
+
+	private static final Set<String> VOID_ELEMENTS = new HashSet<>(Arrays.asList("area", "base", "br", "col", "embed", "hr", "img", "input", "link", "meta", "param", "source", "track", "wbr"));
+	/**
+	 * Elements which content is text, even if it looks like markup
+	 */
+	private static final Set<String> RAW_TEXT_ELEMENTS = new HashSet<>(Arrays.asList("script", "style", "textarea", "title"));
+	/**
+	 * Elements closed by the start of a sibling of the same kind
+	 */
+	private static final Set<String> SIBLING_CLOSED_ELEMENTS = new HashSet<>(Arrays.asList("p", "li", "option", "dt", "dd"));
+	private static final Set<String> TABLE_CELLS = new HashSet<>(Arrays.asList("td", "th"));
+	private static final Pattern TAG_NAME_PATTERN = Pattern.compile("^[a-zA-Z][^\\s/>]*");
+	private static final Pattern ATTRIBUTE_PATTERN = Pattern.compile("([^\\s=/>\"']+)(?:\\s*=\\s*(?:\"([^\"]*)\"|'([^']*)'|([^\\s>]+)))?");
+	private static final Pattern CHARACTER_REFERENCE_PATTERN = Pattern.compile("&(#[0-9]+|#[xX][0-9a-fA-F]+|[a-zA-Z]+);");
+	private static final Map<String, String> NAMED_CHARACTERS = new HashMap<>();
+	private static final DocumentBuilderFactory DOCUMENT_BUILDER_FACTORY = DocumentBuilderFactory.newInstance();
+
+	static {
+		FakeHtmlParser.NAMED_CHARACTERS.put("amp", "&");
+		FakeHtmlParser.NAMED_CHARACTERS.put("lt", "<");
+		FakeHtmlParser.NAMED_CHARACTERS.put("gt", ">");
+		FakeHtmlParser.NAMED_CHARACTERS.put("quot", "\"");
+		FakeHtmlParser.NAMED_CHARACTERS.put("apos", "'");
+		FakeHtmlParser.NAMED_CHARACTERS.put("nbsp", "\u00A0");
+		FakeHtmlParser.NAMED_CHARACTERS.put("copy", "\u00A9");
+	}
+
+	private FakeHtmlParser() {
+	}
+
+	/**
+	 * @param html page source
+	 * @return document with an <b>html</b> root element, whether the source has it or not
+	 */
+	static Document parse(String html) {
+		Document document = newDocument();
+		Element root = document.createElement("html");
+		document.appendChild(root);
+		Deque<Element> openElements = new ArrayDeque<>();
+		openElements.push(root);
+		String source = StringUtils.defaultString(html);
+		int index = 0;
+		while (index < source.length()) {
+			int tagStart = source.indexOf('<', index);
+			if (tagStart < 0) {
+				appendText(openElements.peek(), source.substring(index));
+				break;
+			}
+			appendText(openElements.peek(), source.substring(index, tagStart));
+			if (source.startsWith("<!--", tagStart)) {
+				index = skipPast(source, "-->", tagStart + 4);
+				continue;
+			}
+			int tagEnd = source.indexOf('>', tagStart);
+			if (tagEnd < 0) {
+				appendText(openElements.peek(), source.substring(tagStart));
+				break;
+			}
+			index = tagEnd + 1;
+			String tag = source.substring(tagStart + 1, tagEnd);
+			if (tag.startsWith("!") || tag.startsWith("?")) {
+				// doctype and processing instructions
+				continue;
+			}
+			if (tag.startsWith("/")) {
+				close(openElements, StringUtils.lowerCase(StringUtils.trim(tag.substring(1))));
+				continue;
+			}
+			Matcher nameMatcher = FakeHtmlParser.TAG_NAME_PATTERN.matcher(tag);
+			if (!nameMatcher.find()) {
+				// not a tag, such as "a < b"
+				appendText(openElements.peek(), "<");
+				index = tagStart + 1;
+				continue;
+			}
+			String name = StringUtils.lowerCase(nameMatcher.group());
+			Element element = "html".equals(name) ? root : createElement(document, name);
+			if (element == null) {
+				continue;
+			}
+			setAttributes(element, StringUtils.removeEnd(tag.substring(nameMatcher.end()), "/"));
+			if (element == root) {
+				continue;
+			}
+			closeImplied(openElements, name);
+			openElements.peek().appendChild(element);
+			if (FakeHtmlParser.RAW_TEXT_ELEMENTS.contains(name)) {
+				int contentEnd = StringUtils.indexOfIgnoreCase(source, "</" + name, index);
+				String content = source.substring(index, contentEnd < 0 ? source.length() : contentEnd);
+				element.appendChild(document.createTextNode("script".equals(name) || "style".equals(name) ? content : decode(content)));
+				index = contentEnd < 0 ? source.length() : skipPast(source, ">", contentEnd);
+			} else if (!FakeHtmlParser.VOID_ELEMENTS.contains(name) && !tag.endsWith("/")) {
+				openElements.push(element);
+			}
+		}
+		return document;
+	}
+
+	/**
+	 * @return text with character references replaced by the characters they represent
+	 */
+	static String decode(String text) {
+		if (text.indexOf('&') < 0) {
+			return text;
+		}
+		Matcher matcher = FakeHtmlParser.CHARACTER_REFERENCE_PATTERN.matcher(text);
+		StringBuffer decoded = new StringBuffer(text.length());
+		while (matcher.find()) {
+			String reference = matcher.group(1);
+			String character = null;
+			if (reference.startsWith("#x") || reference.startsWith("#X")) {
+				character = new String(Character.toChars(Integer.parseInt(reference.substring(2), 16)));
+			} else if (reference.startsWith("#")) {
+				character = new String(Character.toChars(Integer.parseInt(reference.substring(1))));
+			} else {
+				character = FakeHtmlParser.NAMED_CHARACTERS.get(reference);
+			}
+			matcher.appendReplacement(decoded, Matcher.quoteReplacement(character == null ? matcher.group() : character));
+		}
+		return matcher.appendTail(decoded).toString();
+	}
+
+	private static Document newDocument() {
+		try {
+			return FakeHtmlParser.DOCUMENT_BUILDER_FACTORY.newDocumentBuilder().newDocument();
+		} catch (ParserConfigurationException e) {
+			throw new IllegalStateException("No DOM implementation available", e);
+		}
+	}
+
+	/**
+	 * @return element, null if the name is not valid in the DOM
+	 */
+	private static Element createElement(Document document, String name) {
+		try {
+			return document.createElement(name);
+		} catch (DOMException e) {
+			return null;
+		}
+	}
+
+	private static void setAttributes(Element element, String attributes) {
+		Matcher matcher = FakeHtmlParser.ATTRIBUTE_PATTERN.matcher(attributes);
+		while (matcher.find()) {
+			String value = StringUtils.defaultString(matcher.group(2), StringUtils.defaultString(matcher.group(3), StringUtils.defaultString(matcher.group(4))));
+			try {
+				element.setAttribute(StringUtils.lowerCase(matcher.group(1)), decode(value));
+			} catch (DOMException e) {
+				// attributes not valid in the DOM, such as framework bindings (@click, :value), can't be located anyway
+			}
+		}
+	}
+
+	private static void appendText(Element parent, String text) {
+		if (!text.isEmpty()) {
+			parent.appendChild(parent.getOwnerDocument().createTextNode(decode(text)));
+		}
+	}
+
+	/**
+	 * Closes the nearest open element with the name, and the elements open inside it. End tags without open element are ignored
+	 */
+	private static void close(Deque<Element> openElements, String name) {
+		if (openElements.stream().noneMatch(element -> element.getNodeName().equals(name)) || "html".equals(name)) {
+			return;
+		}
+		while (!openElements.pop().getNodeName().equals(name)) {
+			// pops elements left open inside the closed element
+		}
+	}
+
+	private static void closeImplied(Deque<Element> openElements, String name) {
+		String openName = openElements.peek().getNodeName();
+		if ("tr".equals(name) && FakeHtmlParser.TABLE_CELLS.contains(openName)) {
+			openElements.pop();
+			openName = openElements.peek().getNodeName();
+		}
+		if (openName.equals(name) && (FakeHtmlParser.SIBLING_CLOSED_ELEMENTS.contains(name) || "tr".equals(name)) || FakeHtmlParser.TABLE_CELLS.contains(name) && FakeHtmlParser.TABLE_CELLS.contains(openName)) {
+			openElements.pop();
+		}
+	}
+
+	private static int skipPast(String source, String end, int from) {
+		int endIndex = source.indexOf(end, from);
+		return endIndex < 0 ? source.length() : endIndex + end.length();
+	}
+}
@@ -0,0 +1,310 @@
+package com.github.andreptb.fitnesse.selenium;
+
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.xml.transform.OutputKeys;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+import javax.xml.xpath.XPath;
+import javax.xml.xpath.XPathConstants;
+import javax.xml.xpath.XPathExpressionException;
+import javax.xml.xpath.XPathFactory;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.math.NumberUtils;
+import org.openqa.selenium.InvalidSelectorException;
+import org.openqa.selenium.WebDriverException;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+/**
+ * Page loaded by {@link FakeWebDriver}: the document parsed from the page source, when it was loaded (elements may appear some time after the page is loaded, see
+ * {@link #DELAY_ATTRIBUTE}) and the pages loaded by its frames.
+ */
+class FakePage {
+
+	/**
+	 * Attribute with the time in milliseconds, since the page was loaded, the element (and its content) takes to appear
+	 */
+	static final String DELAY_ATTRIBUTE = "data-fake-delay";
+
+	private static final Set<String> BLOCK_ELEMENTS = new HashSet<>(Arrays.asList("address", "article", "aside", "blockquote", "dd", "div", "dl", "dt", "fieldset", "footer", "form", "h1", "h2",
+		"h3", "h4", "h5", "h6", "header", "hr", "li", "main", "nav", "ol", "p", "pre", "section", "table", "tr", "ul"));
+	private static final Set<String> NOT_RENDERED_ELEMENTS = new HashSet<>(Arrays.asList("head", "script", "style", "template", "noscript"));
+	private static final Pattern DISPLAY_NONE_PATTERN = Pattern.compile("display\\s*:\\s*none");
+	/**
+	 * CSS selector parts, see {@link #cssToXPath(String)}
+	 */
+	private static final Pattern CSS_PATTERN = Pattern.compile(
+		"\\s*([>+~,])\\s*|(\\s+)|([a-zA-Z][\\w-]*|\\*)|#([\\w-]+)|\\.([\\w-]+)|\\[\\s*([\\w-]+)\\s*(?:([~^$*|]?=)\\s*(?:\"([^\"]*)\"|'([^']*)'|([^\\]\\s]+))\\s*)?\\]|:(first-child|last-child|nth-child\\((\\d+)\\))");
+	private static final TransformerFactory TRANSFORMER_FACTORY = TransformerFactory.newInstance();
+	private static final ThreadLocal<XPath> XPATH = ThreadLocal.withInitial(() -> XPathFactory.newInstance().newXPath());
+
+	private final String url;
+	private final Document document;
+	private final long loadTimeInNanos = System.nanoTime();
+	private final Map<Element, FakePage> frames = new IdentityHashMap<>();
+	private volatile boolean unloaded;
+
+	FakePage(String url, String source) {
+		this.url = url;
+		this.document = FakeHtmlParser.parse(source);
+	}
+
+	String getUrl() {
+		return this.url;
+	}
+
+	Document getDocument() {
+		return this.document;
+	}
+
+	String getTitle() {
+		NodeList titles = this.document.getElementsByTagName("title");
+		return titles.getLength() == 0 ? StringUtils.EMPTY : StringUtils.normalizeSpace(titles.item(0).getTextContent());
+	}
+
+	/**
+	 * @return the document serialized as html
+	 */
+	String source() {
+		try {
+			Transformer transformer = FakePage.TRANSFORMER_FACTORY.newTransformer();
+			transformer.setOutputProperty(OutputKeys.METHOD, "html");
+			StringWriter source = new StringWriter();
+			transformer.transform(new DOMSource(this.document), new StreamResult(source));
+			return source.toString();
+		} catch (TransformerException e) {
+			throw new WebDriverException("Unable to serialize page " + this.url, e);
+		}
+	}
+
+	/**
+	 * @return elements found by the xpath, from the context node, that already appeared
+	 * @throws InvalidSelectorException if the xpath is not valid
+	 */
+	List<Element> find(Node context, String xpath) {
+		NodeList nodes;
+		try {
+			nodes = (NodeList) FakePage.XPATH.get().evaluate(xpath, context, XPathConstants.NODESET);
+		} catch (XPathExpressionException e) {
+			throw new InvalidSelectorException("Invalid xpath: " + xpath + ": " + e.getMessage());
+		}
+		List<Element> elements = new ArrayList<>(nodes.getLength());
+		for (int i = 0; i < nodes.getLength(); i++) {
+			if (nodes.item(i) instanceof Element && hasAppeared((Element) nodes.item(i))) {
+				elements.add((Element) nodes.item(i));
+			}
+		}
+		return elements;
+	}
+
+	/**
+	 * @return if the element and its ancestors already appeared, see {@link #DELAY_ATTRIBUTE}
+	 */
+	boolean hasAppeared(Element element) {
+		long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - this.loadTimeInNanos);
+		for (Node node = element; node instanceof Element; node = node.getParentNode()) {
+			if (elapsedMillis < NumberUtils.toLong(((Element) node).getAttribute(FakePage.DELAY_ATTRIBUTE))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @return if the element appeared and is not hidden by itself or its ancestors
+	 */
+	boolean isDisplayed(Element element) {
+		if (!contains(element) || !hasAppeared(element) || "hidden".equalsIgnoreCase(element.getAttribute("type")) && "input".equals(element.getNodeName())) {
+			return false;
+		}
+		for (Node node = element; node instanceof Element; node = node.getParentNode()) {
+			Element ancestor = (Element) node;
+			if (FakePage.NOT_RENDERED_ELEMENTS.contains(ancestor.getNodeName()) || ancestor.hasAttribute("hidden") || FakePage.DISPLAY_NONE_PATTERN.matcher(ancestor.getAttribute("style")).find()) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @return if the element is still part of the document
+	 */
+	boolean contains(Element element) {
+		Node node = element;
+		while (node.getParentNode() != null) {
+			node = node.getParentNode();
+		}
+		return node == this.document;
+	}
+
+	/**
+	 * @return text of the element as rendered: only displayed elements, with whitespace collapsed and line breaks between blocks
+	 */
+	String text(Element element) {
+		if (!isDisplayed(element)) {
+			return StringUtils.EMPTY;
+		}
+		StringBuilder text = new StringBuilder();
+		appendText(element, text);
+		StringBuilder normalized = new StringBuilder(text.length());
+		for (String line : StringUtils.split(text.toString(), '\n')) {
+			String normalizedLine = StringUtils.normalizeSpace(StringUtils.replaceChars(line, '\u00A0', ' '));
+			if (!normalizedLine.isEmpty()) {
+				normalized.append(normalized.length() == 0 ? StringUtils.EMPTY : "\n").append(normalizedLine);
+			}
+		}
+		return normalized.toString();
+	}
+
+	private void appendText(Node node, StringBuilder text) {
+		for (Node child = node.getFirstChild(); child != null; child = child.getNextSibling()) {
+			if (child.getNodeType() == Node.TEXT_NODE) {
+				text.append(child.getNodeValue());
+			} else if (child instanceof Element && isDisplayed((Element) child)) {
+				String name = child.getNodeName();
+				boolean block = FakePage.BLOCK_ELEMENTS.contains(name);
+				text.append(block ? "\n" : StringUtils.EMPTY);
+				if ("br".equals(name)) {
+					text.append('\n');
+				}
+				appendText(child, text);
+				text.append(block ? "\n" : StringUtils.EMPTY);
+			}
+		}
+	}
+
+	/**
+	 * @param frameElement iframe or frame element of this page
+	 * @param loader loads the page of an url
+	 * @return page loaded by the frame, loaded the first time the frame is selected
+	 */
+	synchronized FakePage frame(Element frameElement, Function<String, FakePage> loader) {
+		return this.frames.computeIfAbsent(frameElement, element -> loader.apply(FakePage.resolve(this.url, StringUtils.defaultIfBlank(element.getAttribute("src"), FakeWebDriver.BLANK_PAGE))));
+	}
+
+	/**
+	 * Replaces the page loaded by a frame, when the frame navigates
+	 */
+	synchronized void replaceFrame(FakePage framePage, FakePage newFramePage) {
+		this.frames.replaceAll((frameElement, page) -> page == framePage ? newFramePage : page);
+	}
+
+	/**
+	 * Discards the page and the pages of its frames, elements found in them become stale
+	 */
+	synchronized void unload() {
+		this.unloaded = true;
+		this.frames.values().forEach(FakePage::unload);
+	}
+
+	boolean isUnloaded() {
+		return this.unloaded;
+	}
+
+	/**
+	 * @return url of a link relative to the page
+	 */
+	static String resolve(String base, String url) {
+		if (StringUtils.isBlank(url) || url.matches("^[a-zA-Z][a-zA-Z0-9+.-]*:.*")) {
+			return StringUtils.defaultIfBlank(url, base);
+		}
+		try {
+			return java.net.URI.create(base).resolve(url).toString();
+		} catch (IllegalArgumentException e) {
+			return url;
+		}
+	}
+
+	/**
+	 * @return xpath string literal with the value, which can't be escaped in xpath 1.0 when it has both quote types
+	 */
+	static String literal(String value) {
+		if (!value.contains("'")) {
+			return "'" + value + "'";
+		}
+		if (!value.contains("\"")) {
+			return "\"" + value + "\"";
+		}
+		return "concat('" + value.replace("'", "', \"'\", '") + "')";
+	}
+
+	/**
+	 * Translates the CSS selectors locators usually have to xpath: type, universal, id, class and attribute (=, ~=, ^=, $=, *=, |=) selectors, :first-child, :last-child and
+	 * :nth-child(n) pseudo classes, descendant, child and sibling combinators and selector lists
+	 *
+	 * @param css selector
+	 * @return xpath selecting the same elements as the selector, from the context node
+	 * @throws InvalidSelectorException if the selector is not valid or not supported
+	 */
+	static String cssToXPath(String css) {
+		StringBuilder xpath = new StringBuilder(".//");
+		String pendingStep = "*";
+		StringBuilder predicates = new StringBuilder();
+		Matcher matcher = FakePage.CSS_PATTERN.matcher(css.trim());
+		int index = 0;
+		while (index < css.trim().length()) {
+			if (!matcher.find(index) || matcher.start() != index) {
+				throw new InvalidSelectorException("CSS selector not supported by FakeWebDriver: " + css);
+			}
+			index = matcher.end();
+			String combinator = matcher.group(1) != null ? matcher.group(1) : matcher.group(2) != null ? " " : null;
+			if (combinator != null) {
+				xpath.append(pendingStep).append(predicates);
+				pendingStep = "*";
+				predicates.setLength(0);
+				xpath.append(",".equals(combinator) ? " | .//" : ">".equals(combinator) ? "/" : "+".equals(combinator) ? "/following-sibling::*[1]/self::" : "~".equals(combinator) ? "/following-sibling::" : "//");
+			} else if (matcher.group(3) != null) {
+				pendingStep = StringUtils.lowerCase(matcher.group(3));
+			} else if (matcher.group(4) != null) {
+				predicates.append("[@id=").append(FakePage.literal(matcher.group(4))).append("]");
+			} else if (matcher.group(5) != null) {
+				predicates.append("[contains(concat(' ', normalize-space(@class), ' '), ").append(FakePage.literal(" " + matcher.group(5) + " ")).append(")]");
+			} else if (matcher.group(6) != null) {
+				predicates.append(attributePredicate(StringUtils.lowerCase(matcher.group(6)), matcher.group(7), StringUtils.defaultString(matcher.group(8), StringUtils.defaultString(matcher.group(9), matcher.group(10)))));
+			} else {
+				predicates.append("first-child".equals(matcher.group(11)) ? "[not(preceding-sibling::*)]" : "last-child".equals(matcher.group(11)) ? "[not(following-sibling::*)]" : "[count(preceding-sibling::*) = " + (Integer.parseInt(matcher.group(12)) - 1) + "]");
+			}
+		}
+		return xpath.append(pendingStep).append(predicates).toString();
+	}
+
+	private static String attributePredicate(String attribute, String operator, String value) {
+		String attributeXPath = "@" + attribute;
+		if (operator == null) {
+			return "[" + attributeXPath + "]";
+		}
+		String literal = FakePage.literal(value);
+		switch (operator) {
+			case "~=":
+				return "[contains(concat(' ', normalize-space(" + attributeXPath + "), ' '), " + FakePage.literal(" " + value + " ") + ")]";
+			case "^=":
+				return "[starts-with(" + attributeXPath + ", " + literal + ")]";
+			case "$=":
+				return "[substring(" + attributeXPath + ", string-length(" + attributeXPath + ") - string-length(" + literal + ") + 1) = " + literal + "]";
+			case "*=":
+				return "[contains(" + attributeXPath + ", " + literal + ")]";
+			case "|=":
+				return "[" + attributeXPath + " = " + literal + " or starts-with(" + attributeXPath + ", " + FakePage.literal(value + "-") + ")]";
+			default:
+				return "[" + attributeXPath + " = " + literal + "]";
+		}
+	}
+}
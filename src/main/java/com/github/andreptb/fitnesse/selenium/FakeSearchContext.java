@@ -0,0 +1,91 @@
+package com.github.andreptb.fitnesse.selenium;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.NoSuchElementException;
+import org.openqa.selenium.SearchContext;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.internal.FindsByCssSelector;
+import org.openqa.selenium.internal.FindsByLinkText;
+import org.openqa.selenium.internal.FindsByXPath;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+/**
+ * Element search of {@link FakeWebDriver} and its elements. Every locator is translated to xpath and evaluated over the page document: {@link By} implementations locating by
+ * id, name, class name and tag name already fall back to xpath, link texts and CSS selectors are translated here.
+ */
+abstract class FakeSearchContext implements SearchContext, FindsByXPath, FindsByCssSelector, FindsByLinkText {
+
+	/**
+	 * @return page the search runs on
+	 */
+	abstract FakePage page();
+
+	/**
+	 * @return node of the page xpaths are evaluated from
+	 */
+	abstract Node searchRoot(FakePage page);
+
+	abstract FakeWebElement element(FakePage page, Element element);
+
+	@Override
+	public List<WebElement> findElements(By by) {
+		return by.findElements(this);
+	}
+
+	@Override
+	public WebElement findElement(By by) {
+		return by.findElement(this);
+	}
+
+	@Override
+	public List<WebElement> findElementsByXPath(String xpath) {
+		FakePage page = page();
+		return page.find(searchRoot(page), xpath).stream().map(element -> element(page, element)).collect(Collectors.toList());
+	}
+
+	@Override
+	public WebElement findElementByXPath(String xpath) {
+		return first(findElementsByXPath(xpath), xpath);
+	}
+
+	@Override
+	public List<WebElement> findElementsByCssSelector(String selector) {
+		return findElementsByXPath(FakePage.cssToXPath(selector));
+	}
+
+	@Override
+	public WebElement findElementByCssSelector(String selector) {
+		return first(findElementsByCssSelector(selector), selector);
+	}
+
+	@Override
+	public List<WebElement> findElementsByLinkText(String linkText) {
+		return findElementsByXPath(".//a[normalize-space(.) = " + FakePage.literal(linkText.trim()) + "]");
+	}
+
+	@Override
+	public WebElement findElementByLinkText(String linkText) {
+		return first(findElementsByLinkText(linkText), linkText);
+	}
+
+	@Override
+	public List<WebElement> findElementsByPartialLinkText(String linkText) {
+		return findElementsByXPath(".//a[contains(normalize-space(.), " + FakePage.literal(linkText.trim()) + ")]");
+	}
+
+	@Override
+	public WebElement findElementByPartialLinkText(String linkText) {
+		return first(findElementsByPartialLinkText(linkText), linkText);
+	}
+
+	private static WebElement first(List<WebElement> elements, String locator) {
+		if (elements.isEmpty()) {
+			throw new NoSuchElementException("Unable to locate element: " + locator);
+		}
+		return elements.get(0);
+	}
+}
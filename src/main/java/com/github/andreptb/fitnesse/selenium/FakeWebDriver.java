@@ -0,0 +1,784 @@
+package com.github.andreptb.fitnesse.selenium;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URI;
+import java.net.URL;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import javax.imageio.ImageIO;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.math.NumberUtils;
+import org.openqa.selenium.Alert;
+import org.openqa.selenium.Capabilities;
+import org.openqa.selenium.Cookie;
+import org.openqa.selenium.Dimension;
+import org.openqa.selenium.HasCapabilities;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.NoAlertPresentException;
+import org.openqa.selenium.NoSuchFrameException;
+import org.openqa.selenium.NoSuchSessionException;
+import org.openqa.selenium.NoSuchWindowException;
+import org.openqa.selenium.OutputType;
+import org.openqa.selenium.Platform;
+import org.openqa.selenium.Point;
+import org.openqa.selenium.TakesScreenshot;
+import org.openqa.selenium.UnhandledAlertException;
+import org.openqa.selenium.UnsupportedCommandException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.logging.Logs;
+import org.openqa.selenium.remote.CapabilityType;
+import org.openqa.selenium.remote.DesiredCapabilities;
+import org.openqa.selenium.security.Credentials;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+/**
+ * In-memory browser, so suites run without a real browser or network and benchmarks measure the fixture overhead alone:
+ *
+ * <pre>
+ * | start browser | fake | with | fake.sites='/path/to/sites' fake.latency='20' fake.latency.get='300' |
+ * </pre>
+ *
+ * Supported capabilities:
+ * <ul>
+ * <li>{@link #SITES_CAPABILITY}: directory with the pages of the sites the suite opens, by host and path. http://example.com/login.html is loaded from
+ * <i>sites</i>/example.com/login.html, directories are loaded from their index.html. Query and fragment are ignored. Pages registered with
+ * {@link #registerPage(String, String)} come first</li>
+ * <li>{@link #LATENCY_CAPABILITY}: milliseconds every command takes. <i>fake.latency.&lt;command&gt;</i> overrides it for a command, named after the {@link WebDriver} or
+ * {@link WebElement} method, such as <i>fake.latency.get</i> for page loads or <i>fake.latency.findElements</i> for element lookups</li>
+ * </ul>
+ * Pages are parsed into a DOM and located by xpath, CSS selectors (translated to xpath), link text, id, name, class and tag name. Windows, frames, navigation history, cookies and
+ * form controls behave as in browsers. No javascript is run: elements appearing later are declared with {@link FakePage#DELAY_ATTRIBUTE}, dialogs and text changes triggered by
+ * clicks are declared with the attributes described in {@link FakeWebElement}.
+ */
+public class FakeWebDriver extends FakeSearchContext implements WebDriver, JavascriptExecutor, TakesScreenshot, HasCapabilities {
+
+	/**
+	 * Browser name, also the alias to start this driver
+	 */
+	public static final String BROWSER_NAME = "fake";
+	/**
+	 * Capability with the directory of the sites pages
+	 */
+	public static final String SITES_CAPABILITY = "fake.sites";
+	/**
+	 * Capability with the latency of commands in milliseconds, prefix of the latency of a single command
+	 */
+	public static final String LATENCY_CAPABILITY = "fake.latency";
+	static final String BLANK_PAGE = "about:blank";
+
+	private static final String NOT_FOUND_PAGE = "<html><head><title>Not Found</title></head><body><h1>Not Found</h1></body></html>";
+	private static final String INDEX_PAGE = "index.html";
+	private static final Dimension DEFAULT_WINDOW_SIZE = new Dimension(1280, 1024);
+	private static final Dimension MAXIMIZED_WINDOW_SIZE = new Dimension(1920, 1080);
+	/**
+	 * Pages by url, loaded before {@link #SITES_CAPABILITY} pages
+	 */
+	private static final Map<String, String> PAGES = new ConcurrentHashMap<>();
+	/**
+	 * Blank screenshots by window size, encoding them would be most of the cost of a fake screenshot
+	 */
+	private static final Map<Dimension, byte[]> SCREENSHOTS = new ConcurrentHashMap<>();
+
+	private final String sessionId = UUID.randomUUID().toString();
+	private final DesiredCapabilities capabilities;
+	private final Path sites;
+	private final long latencyInMillis;
+	private final Map<String, Long> commandLatencyInMillis = new HashMap<>();
+	private final Map<String, FakeWindow> windows = new LinkedHashMap<>();
+	private final Map<String, Cookie> cookies = new LinkedHashMap<>();
+	private FakeWindow window;
+	private FakeAlert alert;
+	private boolean quit;
+
+	/**
+	 * @param capabilities with the configuration, see {@link FakeWebDriver}
+	 */
+	public FakeWebDriver(Capabilities capabilities) {
+		this.capabilities = new DesiredCapabilities(capabilities);
+		this.capabilities.setBrowserName(FakeWebDriver.BROWSER_NAME);
+		this.capabilities.setPlatform(Platform.ANY);
+		this.capabilities.setJavascriptEnabled(false);
+		this.capabilities.setCapability(CapabilityType.TAKES_SCREENSHOT, true);
+		String sitesDirectory = Objects.toString(capabilities.getCapability(FakeWebDriver.SITES_CAPABILITY), null);
+		this.sites = StringUtils.isBlank(sitesDirectory) ? null : Paths.get(sitesDirectory);
+		this.latencyInMillis = NumberUtils.toLong(Objects.toString(capabilities.getCapability(FakeWebDriver.LATENCY_CAPABILITY), null));
+		String commandLatencyPrefix = FakeWebDriver.LATENCY_CAPABILITY + ".";
+		capabilities.asMap().forEach((capability, value) -> {
+			if (StringUtils.startsWith(capability, commandLatencyPrefix)) {
+				this.commandLatencyInMillis.put(StringUtils.removeStart(capability, commandLatencyPrefix), NumberUtils.toLong(Objects.toString(value, null)));
+			}
+		});
+		this.window = newWindow(FakeWebDriver.BLANK_PAGE);
+	}
+
+	/**
+	 * Registers a page, loaded by every {@link FakeWebDriver} opening the url
+	 *
+	 * @param url of the page
+	 * @param html source of the page
+	 */
+	public static void registerPage(String url, String html) {
+		FakeWebDriver.PAGES.put(url, html);
+	}
+
+	/**
+	 * Removes the pages registered with {@link #registerPage(String, String)}
+	 */
+	public static void clearPages() {
+		FakeWebDriver.PAGES.clear();
+	}
+
+	@Override
+	public void get(String url) {
+		command("get");
+		FakeWindow currentWindow = currentWindow();
+		currentWindow.navigate(FakePage.resolve(currentWindow.page.getUrl(), url));
+	}
+
+	@Override
+	public String getCurrentUrl() {
+		command("getCurrentUrl");
+		return currentWindow().page.getUrl();
+	}
+
+	@Override
+	public String getTitle() {
+		command("getTitle");
+		return currentWindow().page.getTitle();
+	}
+
+	@Override
+	public String getPageSource() {
+		command("getPageSource");
+		return currentWindow().currentPage().source();
+	}
+
+	@Override
+	public void close() {
+		command("close");
+		FakeWindow closedWindow = currentWindow();
+		closedWindow.page.unload();
+		this.windows.remove(closedWindow.handle);
+		this.window = null;
+		if (this.windows.isEmpty()) {
+			quit();
+		}
+	}
+
+	@Override
+	public void quit() {
+		this.windows.values().forEach(openWindow -> openWindow.page.unload());
+		this.windows.clear();
+		this.window = null;
+		this.alert = null;
+		this.quit = true;
+	}
+
+	@Override
+	public Set<String> getWindowHandles() {
+		command("getWindowHandles", true);
+		return new LinkedHashSet<>(this.windows.keySet());
+	}
+
+	@Override
+	public String getWindowHandle() {
+		command("getWindowHandle", true);
+		return currentWindow().handle;
+	}
+
+	@Override
+	public TargetLocator switchTo() {
+		return new FakeTargetLocator();
+	}
+
+	@Override
+	public Navigation navigate() {
+		return new FakeNavigation();
+	}
+
+	@Override
+	public Options manage() {
+		return new FakeOptions();
+	}
+
+	/**
+	 * Runs the scripts the fixture itself sends: opening windows and clearing storage (there is none). Other scripts are not supported, since no javascript is run.
+	 */
+	@Override
+	public Object executeScript(String script, Object... args) {
+		command("executeScript");
+		String trimmedScript = StringUtils.removeEnd(StringUtils.trim(script), ";");
+		if (StringUtils.contains(trimmedScript, "window.open(")) {
+			openWindow(args.length > 0 && args[0] != null ? FakePage.resolve(currentWindow().page.getUrl(), args[0].toString()) : FakeWebDriver.BLANK_PAGE);
+			return null;
+		}
+		if (StringUtils.containsAny(trimmedScript, "localStorage", "sessionStorage")) {
+			return null;
+		}
+		if ("return document.title".equals(trimmedScript)) {
+			return currentWindow().currentPage().getTitle();
+		}
+		if ("return document.readyState".equals(trimmedScript)) {
+			return "complete";
+		}
+		if ("return document.URL".equals(trimmedScript) || "return window.location.href".equals(trimmedScript)) {
+			return currentWindow().currentPage().getUrl();
+		}
+		throw new UnsupportedCommandException("FakeWebDriver does not run javascript: " + script);
+	}
+
+	@Override
+	public Object executeAsyncScript(String script, Object... args) {
+		command("executeAsyncScript");
+		throw new UnsupportedCommandException("FakeWebDriver does not run javascript: " + script);
+	}
+
+	/**
+	 * @return blank image with the window size
+	 */
+	@Override
+	public <X> X getScreenshotAs(OutputType<X> target) {
+		command("getScreenshotAs", true);
+		return target.convertFromPngBytes(FakeWebDriver.SCREENSHOTS.computeIfAbsent(currentWindow().size, FakeWebDriver::blankImage));
+	}
+
+	@Override
+	public Capabilities getCapabilities() {
+		return this.capabilities;
+	}
+
+	@Override
+	FakePage page() {
+		command("findElements");
+		return currentWindow().currentPage();
+	}
+
+	@Override
+	Node searchRoot(FakePage page) {
+		return page.getDocument();
+	}
+
+	@Override
+	FakeWebElement element(FakePage page, Element element) {
+		return new FakeWebElement(this, page, element);
+	}
+
+	/**
+	 * Waits the latency of the command, see {@link #LATENCY_CAPABILITY}
+	 *
+	 * @throws NoSuchSessionException if the driver quit
+	 * @throws UnhandledAlertException if a dialog is open
+	 */
+	void command(String name) {
+		command(name, false);
+	}
+
+	private void command(String name, boolean allowedWithAlert) {
+		if (this.quit) {
+			throw new NoSuchSessionException("Session ID is null. Using WebDriver after calling quit()?");
+		}
+		if (!allowedWithAlert && this.alert != null) {
+			throw new UnhandledAlertException("Modal dialog present: " + this.alert.text, this.alert.text);
+		}
+		long latency = this.commandLatencyInMillis.getOrDefault(name, this.latencyInMillis);
+		if (latency > 0) {
+			try {
+				TimeUnit.MILLISECONDS.sleep(latency);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new WebDriverException("Interrupted while running " + name, e);
+			}
+		}
+	}
+
+	/**
+	 * Navigates the window showing the page, which is a frame if the page is not the top page of the window
+	 */
+	void navigate(FakePage from, String url) {
+		FakeWindow currentWindow = currentWindow();
+		if (currentWindow.page != from && currentWindow.frames.contains(from)) {
+			FakePage parent = currentWindow.frames.size() > 1 ? new ArrayList<>(currentWindow.frames).get(1) : currentWindow.page;
+			FakePage framePage = load(url);
+			parent.replaceFrame(from, framePage);
+			from.unload();
+			currentWindow.frames.pop();
+			currentWindow.frames.push(framePage);
+			return;
+		}
+		currentWindow.navigate(url);
+	}
+
+	/**
+	 * Opens a window, without switching to it as browsers don't
+	 */
+	void openWindow(String url) {
+		newWindow(url);
+	}
+
+	void focus(FakeWebElement element) {
+		currentWindow().focused = element;
+	}
+
+	void openAlert(String text, FakeWebElement source, boolean prompt) {
+		this.alert = new FakeAlert(text, source, prompt);
+	}
+
+	private FakeWindow currentWindow() {
+		if (this.window == null) {
+			throw new NoSuchWindowException("Window was closed or not selected");
+		}
+		return this.window;
+	}
+
+	private FakeWindow newWindow(String url) {
+		FakeWindow openedWindow = new FakeWindow();
+		this.windows.put(openedWindow.handle, openedWindow);
+		openedWindow.navigate(url);
+		return openedWindow;
+	}
+
+	private FakePage load(String url) {
+		return new FakePage(url, source(url));
+	}
+
+	private String source(String url) {
+		String registeredPage = FakeWebDriver.PAGES.get(url);
+		if (registeredPage != null) {
+			return registeredPage;
+		}
+		if (StringUtils.isBlank(url) || FakeWebDriver.BLANK_PAGE.equals(url)) {
+			return StringUtils.EMPTY;
+		}
+		if (StringUtils.startsWithIgnoreCase(url, "data:")) {
+			return dataSource(url);
+		}
+		try {
+			URI uri = URI.create(url);
+			Path file = null;
+			if ("file".equalsIgnoreCase(uri.getScheme())) {
+				file = Paths.get(uri);
+			} else if (this.sites != null && uri.getHost() != null) {
+				file = this.sites.resolve(uri.getHost()).resolve(StringUtils.removeStart(StringUtils.defaultString(uri.getPath()), "/"));
+			}
+			if (file != null && Files.isDirectory(file)) {
+				file = file.resolve(FakeWebDriver.INDEX_PAGE);
+			}
+			if (file != null && Files.isRegularFile(file)) {
+				return new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+			}
+		} catch (IllegalArgumentException | IOException e) {
+			// not a valid url or page not readable, same as a page not found
+		}
+		return FakeWebDriver.NOT_FOUND_PAGE;
+	}
+
+	private static String dataSource(String url) {
+		String metadata = StringUtils.substringBetween(url, ":", ",");
+		String data = StringUtils.substringAfter(url, ",");
+		if (StringUtils.endsWithIgnoreCase(metadata, ";base64")) {
+			return new String(Base64.getMimeDecoder().decode(data), StandardCharsets.UTF_8);
+		}
+		try {
+			return URLDecoder.decode(data, StandardCharsets.UTF_8.name());
+		} catch (UnsupportedEncodingException | IllegalArgumentException e) {
+			return data;
+		}
+	}
+
+	private static byte[] blankImage(Dimension size) {
+		BufferedImage image = new BufferedImage(size.getWidth(), size.getHeight(), BufferedImage.TYPE_INT_RGB);
+		Graphics2D graphics = image.createGraphics();
+		graphics.setColor(Color.WHITE);
+		graphics.fillRect(0, 0, size.getWidth(), size.getHeight());
+		graphics.dispose();
+		try (ByteArrayOutputStream png = new ByteArrayOutputStream()) {
+			ImageIO.write(image, "png", png);
+			return png.toByteArray();
+		} catch (IOException e) {
+			throw new WebDriverException("Unable to create screenshot", e);
+		}
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%s: %s on %s (%s)", getClass().getSimpleName(), FakeWebDriver.BROWSER_NAME, Platform.ANY, this.quit ? null : this.sessionId);
+	}
+
+	/**
+	 * Window with its navigation history and selected frames
+	 */
+	private class FakeWindow implements Window {
+
+		private final String handle = UUID.randomUUID().toString();
+		private final List<String> history = new ArrayList<>();
+		private int historyIndex = -1;
+		private FakePage page;
+		/**
+		 * Pages of the selected frames, the innermost first
+		 */
+		private final Deque<FakePage> frames = new ArrayDeque<>();
+		private FakeWebElement focused;
+		private Dimension size = FakeWebDriver.DEFAULT_WINDOW_SIZE;
+		private Point position = new Point(0, 0);
+
+		FakePage currentPage() {
+			return this.frames.isEmpty() ? this.page : this.frames.peek();
+		}
+
+		void navigate(String url) {
+			while (this.history.size() > this.historyIndex + 1) {
+				this.history.remove(this.history.size() - 1);
+			}
+			this.history.add(url);
+			this.historyIndex++;
+			reload();
+		}
+
+		void reload() {
+			if (this.page != null) {
+				this.page.unload();
+			}
+			this.frames.clear();
+			this.focused = null;
+			this.page = load(this.history.get(this.historyIndex));
+		}
+
+		@Override
+		public void setSize(Dimension targetSize) {
+			command("setSize");
+			this.size = targetSize;
+		}
+
+		@Override
+		public void setPosition(Point targetPosition) {
+			command("setPosition");
+			this.position = targetPosition;
+		}
+
+		@Override
+		public Dimension getSize() {
+			command("getSize");
+			return this.size;
+		}
+
+		@Override
+		public Point getPosition() {
+			command("getPosition");
+			return this.position;
+		}
+
+		@Override
+		public void maximize() {
+			command("maximize");
+			this.size = FakeWebDriver.MAXIMIZED_WINDOW_SIZE;
+			this.position = new Point(0, 0);
+		}
+
+		@Override
+		public void fullscreen() {
+			command("fullscreen");
+			this.size = FakeWebDriver.MAXIMIZED_WINDOW_SIZE;
+			this.position = new Point(0, 0);
+		}
+	}
+
+	private class FakeTargetLocator implements TargetLocator {
+
+		@Override
+		public WebDriver frame(int index) {
+			FakePage page = page();
+			List<Element> frameElements = page.find(page.getDocument(), "//iframe | //frame");
+			if (index < 0 || index >= frameElements.size()) {
+				throw new NoSuchFrameException("No frame with index " + index);
+			}
+			return selectFrame(page, frameElements.get(index));
+		}
+
+		@Override
+		public WebDriver frame(String nameOrId) {
+			FakePage page = page();
+			String literal = FakePage.literal(nameOrId);
+			List<Element> frameElements = page.find(page.getDocument(), "//*[(self::iframe or self::frame) and (@name = " + literal + " or @id = " + literal + ")]");
+			if (frameElements.isEmpty()) {
+				throw new NoSuchFrameException("No frame with name or id " + nameOrId);
+			}
+			return selectFrame(page, frameElements.get(0));
+		}
+
+		@Override
+		public WebDriver frame(WebElement frameElement) {
+			FakePage page = page();
+			if (!(frameElement instanceof FakeWebElement) || ((FakeWebElement) frameElement).getPage() != page
+				|| !Arrays.asList("iframe", "frame").contains(frameElement.getTagName())) {
+				throw new NoSuchFrameException("Element is not a frame of the current page: " + frameElement);
+			}
+			return selectFrame(page, ((FakeWebElement) frameElement).getElement());
+		}
+
+		private WebDriver selectFrame(FakePage page, Element frameElement) {
+			currentWindow().frames.push(page.frame(frameElement, FakeWebDriver.this::load));
+			return FakeWebDriver.this;
+		}
+
+		@Override
+		public WebDriver parentFrame() {
+			command("switchTo");
+			currentWindow().frames.poll();
+			return FakeWebDriver.this;
+		}
+
+		@Override
+		public WebDriver window(String nameOrHandle) {
+			command("switchTo", true);
+			FakeWindow selectedWindow = FakeWebDriver.this.windows.get(nameOrHandle);
+			if (selectedWindow == null) {
+				throw new NoSuchWindowException("No window with handle " + nameOrHandle);
+			}
+			selectedWindow.frames.clear();
+			FakeWebDriver.this.window = selectedWindow;
+			return FakeWebDriver.this;
+		}
+
+		@Override
+		public WebDriver defaultContent() {
+			command("switchTo");
+			currentWindow().frames.clear();
+			return FakeWebDriver.this;
+		}
+
+		@Override
+		public WebElement activeElement() {
+			FakePage page = page();
+			FakeWebElement focused = currentWindow().focused;
+			if (focused != null && focused.getPage() == page && page.contains(focused.getElement())) {
+				return focused;
+			}
+			List<Element> body = page.find(page.getDocument(), "/html/body");
+			return element(page, body.isEmpty() ? page.getDocument().getDocumentElement() : body.get(0));
+		}
+
+		@Override
+		public Alert alert() {
+			command("switchTo", true);
+			if (FakeWebDriver.this.alert == null) {
+				throw new NoAlertPresentException();
+			}
+			return FakeWebDriver.this.alert;
+		}
+	}
+
+	private class FakeNavigation implements Navigation {
+
+		@Override
+		public void back() {
+			command("back");
+			FakeWindow currentWindow = currentWindow();
+			if (currentWindow.historyIndex > 0) {
+				currentWindow.historyIndex--;
+				currentWindow.reload();
+			}
+		}
+
+		@Override
+		public void forward() {
+			command("forward");
+			FakeWindow currentWindow = currentWindow();
+			if (currentWindow.historyIndex < currentWindow.history.size() - 1) {
+				currentWindow.historyIndex++;
+				currentWindow.reload();
+			}
+		}
+
+		@Override
+		public void to(String url) {
+			get(url);
+		}
+
+		@Override
+		public void to(URL url) {
+			get(url.toString());
+		}
+
+		@Override
+		public void refresh() {
+			command("refresh");
+			currentWindow().reload();
+		}
+	}
+
+	private class FakeOptions implements Options {
+
+		@Override
+		public void addCookie(Cookie cookie) {
+			command("addCookie");
+			FakeWebDriver.this.cookies.put(cookie.getName(), cookie);
+		}
+
+		@Override
+		public void deleteCookieNamed(String name) {
+			command("deleteCookieNamed");
+			FakeWebDriver.this.cookies.remove(name);
+		}
+
+		@Override
+		public void deleteCookie(Cookie cookie) {
+			deleteCookieNamed(cookie.getName());
+		}
+
+		@Override
+		public void deleteAllCookies() {
+			command("deleteAllCookies");
+			FakeWebDriver.this.cookies.clear();
+		}
+
+		@Override
+		public Set<Cookie> getCookies() {
+			command("getCookies");
+			return new LinkedHashSet<>(FakeWebDriver.this.cookies.values());
+		}
+
+		@Override
+		public Cookie getCookieNamed(String name) {
+			command("getCookieNamed");
+			return FakeWebDriver.this.cookies.get(name);
+		}
+
+		@Override
+		public Timeouts timeouts() {
+			return new FakeTimeouts();
+		}
+
+		@Override
+		public ImeHandler ime() {
+			throw new UnsupportedCommandException("FakeWebDriver has no input method editor");
+		}
+
+		@Override
+		public Window window() {
+			return currentWindow();
+		}
+
+		@Override
+		public Logs logs() {
+			throw new UnsupportedCommandException("FakeWebDriver has no logs");
+		}
+	}
+
+	/**
+	 * Commands never wait, since pages load right away and no script is run
+	 */
+	private class FakeTimeouts implements Timeouts {
+
+		@Override
+		public Timeouts implicitlyWait(long time, TimeUnit unit) {
+			command("implicitlyWait");
+			return this;
+		}
+
+		@Override
+		public Timeouts setScriptTimeout(long time, TimeUnit unit) {
+			command("setScriptTimeout");
+			return this;
+		}
+
+		@Override
+		public Timeouts pageLoadTimeout(long time, TimeUnit unit) {
+			command("pageLoadTimeout");
+			return this;
+		}
+	}
+
+	/**
+	 * Dialog opened by a click, see {@link FakeWebElement}
+	 */
+	private class FakeAlert implements Alert {
+
+		private final String text;
+		private final FakeWebElement source;
+		private final boolean prompt;
+		private String keys;
+
+		FakeAlert(String text, FakeWebElement source, boolean prompt) {
+			this.text = text;
+			this.source = source;
+			this.prompt = prompt;
+		}
+
+		@Override
+		public void dismiss() {
+			close("dismiss");
+			this.source.changeTargetText(FakeWebElement.DISMISS_ATTRIBUTE, null);
+		}
+
+		@Override
+		public void accept() {
+			close("accept");
+			this.source.changeTargetText(FakeWebElement.ACCEPT_ATTRIBUTE, this.keys);
+		}
+
+		@Override
+		public String getText() {
+			verifyOpen("getText");
+			return this.text;
+		}
+
+		@Override
+		public void sendKeys(String keysToSend) {
+			verifyOpen("sendKeys");
+			if (!this.prompt) {
+				throw new WebDriverException("Dialog is not a prompt, it does not accept keys: " + this.text);
+			}
+			this.keys = keysToSend;
+		}
+
+		@Override
+		public void setCredentials(Credentials credentials) {
+			throw new UnsupportedCommandException("FakeWebDriver dialogs do not authenticate");
+		}
+
+		@Override
+		public void authenticateUsing(Credentials credentials) {
+			throw new UnsupportedCommandException("FakeWebDriver dialogs do not authenticate");
+		}
+
+		private void close(String name) {
+			verifyOpen(name);
+			FakeWebDriver.this.alert = null;
+		}
+
+		private void verifyOpen(String name) {
+			command(name, true);
+			if (FakeWebDriver.this.alert != this) {
+				throw new NoAlertPresentException();
+			}
+		}
+	}
+}
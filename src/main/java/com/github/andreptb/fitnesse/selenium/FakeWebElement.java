@@ -0,0 +1,475 @@
+package com.github.andreptb.fitnesse.selenium;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.StringJoiner;
+
+import org.apache.commons.lang3.StringUtils;
+import org.openqa.selenium.Dimension;
+import org.openqa.selenium.ElementNotVisibleException;
+import org.openqa.selenium.Keys;
+import org.openqa.selenium.NoSuchElementException;
+import org.openqa.selenium.OutputType;
+import org.openqa.selenium.Point;
+import org.openqa.selenium.Rectangle;
+import org.openqa.selenium.StaleElementReferenceException;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.WebElement;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+/**
+ * Element of a {@link FakeWebDriver} page. Clicks and keys change the state of form controls (value, checked and selected options) as browsers do, follow links and submit forms
+ * with GET. Since no javascript is run, the reaction of elements to clicks is declared with attributes:
+ * <ul>
+ * <li>{@link #ALERT_ATTRIBUTE}, {@link #CONFIRM_ATTRIBUTE} and {@link #PROMPT_ATTRIBUTE}: open a dialog with the attribute value as text</li>
+ * <li>{@link #ACCEPT_ATTRIBUTE} and {@link #DISMISS_ATTRIBUTE}: text the target element gets when the dialog is accepted or dismissed. Accepted prompts use the keys sent to
+ * the dialog, if any</li>
+ * <li>{@link #TEXT_ATTRIBUTE}: text the target element gets</li>
+ * <li>{@link #TARGET_ATTRIBUTE}: id of the target element, the clicked element itself by default</li>
+ * </ul>
+ */
+class FakeWebElement extends FakeSearchContext implements WebElement {
+
+	static final String ALERT_ATTRIBUTE = "data-fake-alert";
+	static final String CONFIRM_ATTRIBUTE = "data-fake-confirm";
+	static final String PROMPT_ATTRIBUTE = "data-fake-prompt";
+	static final String ACCEPT_ATTRIBUTE = "data-fake-accept";
+	static final String DISMISS_ATTRIBUTE = "data-fake-dismiss";
+	static final String TEXT_ATTRIBUTE = "data-fake-text";
+	static final String TARGET_ATTRIBUTE = "data-fake-target";
+
+	private static final Set<String> BOOLEAN_ATTRIBUTES = new HashSet<>(Arrays.asList("async", "autofocus", "autoplay", "checked", "compact", "controls", "declare", "default",
+		"defer", "disabled", "hidden", "ismap", "loop", "multiple", "muted", "nohref", "noresize", "noshade", "novalidate", "nowrap", "open", "readonly", "required", "reversed",
+		"selected"));
+	private static final Set<String> BUTTON_INPUT_TYPES = new HashSet<>(Arrays.asList("submit", "image", "button", "reset"));
+	/**
+	 * Keys such as {@link org.openqa.selenium.Keys#ENTER} are characters of the unicode private use area
+	 */
+	private static final char FIRST_SPECIAL_KEY = '\uE000';
+	private static final char LAST_SPECIAL_KEY = '\uF8FF';
+	private static final String SUBMIT_KEYS = Keys.RETURN.toString() + Keys.ENTER;
+	/**
+	 * User data keys of the state changed by interactions, attributes keep the state declared by the page
+	 */
+	private static final String VALUE_KEY = "fake.value";
+	private static final String CHECKED_KEY = "fake.checked";
+	private static final String SELECTED_KEY = "fake.selected";
+
+	private final FakeWebDriver driver;
+	private final FakePage page;
+	private final Element element;
+
+	FakeWebElement(FakeWebDriver driver, FakePage page, Element element) {
+		this.driver = driver;
+		this.page = page;
+		this.element = element;
+	}
+
+	@Override
+	FakePage page() {
+		command("findElements");
+		return this.page;
+	}
+
+	@Override
+	Node searchRoot(FakePage elementPage) {
+		return this.element;
+	}
+
+	@Override
+	FakeWebElement element(FakePage elementPage, Element pageElement) {
+		return new FakeWebElement(this.driver, elementPage, pageElement);
+	}
+
+	FakePage getPage() {
+		return this.page;
+	}
+
+	Element getElement() {
+		return this.element;
+	}
+
+	@Override
+	public void click() {
+		command("click");
+		if (!this.page.isDisplayed(this.element)) {
+			throw new ElementNotVisibleException("Element is not currently visible and so may not be interacted with: " + this);
+		}
+		if (this.element.hasAttribute("disabled")) {
+			return;
+		}
+		String tagName = this.element.getNodeName();
+		String type = type();
+		// options are not focusable, their list is
+		this.driver.focus("option".equals(tagName) && select() != null ? new FakeWebElement(this.driver, this.page, select()) : this);
+		if (this.element.hasAttribute(FakeWebElement.ALERT_ATTRIBUTE)) {
+			this.driver.openAlert(this.element.getAttribute(FakeWebElement.ALERT_ATTRIBUTE), this, false);
+		} else if (this.element.hasAttribute(FakeWebElement.CONFIRM_ATTRIBUTE)) {
+			this.driver.openAlert(this.element.getAttribute(FakeWebElement.CONFIRM_ATTRIBUTE), this, false);
+		} else if (this.element.hasAttribute(FakeWebElement.PROMPT_ATTRIBUTE)) {
+			this.driver.openAlert(this.element.getAttribute(FakeWebElement.PROMPT_ATTRIBUTE), this, true);
+		} else if (this.element.hasAttribute(FakeWebElement.TEXT_ATTRIBUTE)) {
+			changeTargetText(FakeWebElement.TEXT_ATTRIBUTE, null);
+		} else if ("option".equals(tagName)) {
+			selectOption();
+		} else if ("checkbox".equals(type)) {
+			this.element.setUserData(FakeWebElement.CHECKED_KEY, !isChecked(), null);
+		} else if ("radio".equals(type)) {
+			checkRadio();
+		} else if ("a".equals(tagName) && this.element.hasAttribute("href")) {
+			followLink();
+		} else if ("submit".equals(type) || "image".equals(type) || "button".equals(tagName) && StringUtils.isBlank(type)) {
+			submitForm(form());
+		}
+	}
+
+	@Override
+	public void submit() {
+		command("submit");
+		Element form = form();
+		if (form == null) {
+			throw new NoSuchElementException("Element was not in a form, so could not submit: " + this);
+		}
+		submitForm(form);
+	}
+
+	@Override
+	public void sendKeys(CharSequence... keysToSend) {
+		command("sendKeys");
+		if (!this.page.isDisplayed(this.element)) {
+			throw new ElementNotVisibleException("Element is not currently visible and so may not be interacted with: " + this);
+		}
+		this.driver.focus(this);
+		StringBuilder keys = new StringBuilder();
+		Arrays.stream(keysToSend).forEach(keys::append);
+		StringBuilder text = new StringBuilder(keys.length());
+		boolean submit = false;
+		for (int i = 0; i < keys.length(); i++) {
+			char key = keys.charAt(i);
+			if (key < FakeWebElement.FIRST_SPECIAL_KEY || key > FakeWebElement.LAST_SPECIAL_KEY) {
+				text.append(key);
+			}
+			submit |= FakeWebElement.SUBMIT_KEYS.indexOf(key) >= 0;
+		}
+		if (isEditable()) {
+			this.element.setUserData(FakeWebElement.VALUE_KEY, "file".equals(type()) ? text.toString() : value() + text, null);
+		}
+		if (submit && isEditable() && !"textarea".equals(this.element.getNodeName()) && form() != null) {
+			submitForm(form());
+		}
+	}
+
+	@Override
+	public void clear() {
+		command("clear");
+		if (isEditable()) {
+			this.element.setUserData(FakeWebElement.VALUE_KEY, StringUtils.EMPTY, null);
+		}
+	}
+
+	@Override
+	public String getTagName() {
+		command("getTagName");
+		return this.element.getNodeName();
+	}
+
+	@Override
+	public String getAttribute(String name) {
+		command("getAttribute");
+		String attribute = StringUtils.lowerCase(name);
+		if ("value".equals(attribute)) {
+			return value();
+		}
+		if ("type".equals(attribute) && "input".equals(this.element.getNodeName())) {
+			return type();
+		}
+		if ("checked".equals(attribute) || "selected".equals(attribute)) {
+			return selected() ? Boolean.TRUE.toString() : null;
+		}
+		if ("index".equals(attribute) && "option".equals(this.element.getNodeName())) {
+			return String.valueOf(options(select()).indexOf(this.element));
+		}
+		if (("href".equals(attribute) || "src".equals(attribute)) && this.element.hasAttribute(attribute)) {
+			// as properties, links are absolute
+			return FakePage.resolve(this.page.getUrl(), this.element.getAttribute(attribute));
+		}
+		if ("textcontent".equals(attribute)) {
+			return this.element.getTextContent();
+		}
+		if (FakeWebElement.BOOLEAN_ATTRIBUTES.contains(attribute)) {
+			return this.element.hasAttribute(attribute) ? Boolean.TRUE.toString() : null;
+		}
+		return this.element.hasAttribute(attribute) ? this.element.getAttribute(attribute) : null;
+	}
+
+	@Override
+	public boolean isSelected() {
+		command("isSelected");
+		return selected();
+	}
+
+	@Override
+	public boolean isEnabled() {
+		command("isEnabled");
+		return !this.element.hasAttribute("disabled");
+	}
+
+	@Override
+	public String getText() {
+		command("getText");
+		return this.page.text(this.element);
+	}
+
+	@Override
+	public boolean isDisplayed() {
+		command("isDisplayed");
+		return this.page.isDisplayed(this.element);
+	}
+
+	@Override
+	public Point getLocation() {
+		command("getLocation");
+		return new Point(0, 0);
+	}
+
+	@Override
+	public Dimension getSize() {
+		command("getSize");
+		return this.page.isDisplayed(this.element) ? new Dimension(100, 20) : new Dimension(0, 0);
+	}
+
+	@Override
+	public Rectangle getRect() {
+		return new Rectangle(getLocation(), getSize());
+	}
+
+	@Override
+	public String getCssValue(String propertyName) {
+		command("getCssValue");
+		for (String declaration : StringUtils.split(this.element.getAttribute("style"), ';')) {
+			if (StringUtils.equalsIgnoreCase(StringUtils.trim(StringUtils.substringBefore(declaration, ":")), propertyName)) {
+				return StringUtils.trim(StringUtils.substringAfter(declaration, ":"));
+			}
+		}
+		return StringUtils.EMPTY;
+	}
+
+	@Override
+	public <X> X getScreenshotAs(OutputType<X> target) {
+		return this.driver.getScreenshotAs(target);
+	}
+
+	/**
+	 * Sets the text of the target element, see {@link #TARGET_ATTRIBUTE}
+	 *
+	 * @param textAttribute attribute with the text
+	 * @param text used instead of the attribute value, if not null
+	 */
+	void changeTargetText(String textAttribute, String text) {
+		if (!this.element.hasAttribute(textAttribute) && text == null) {
+			return;
+		}
+		Element target = this.element;
+		if (this.element.hasAttribute(FakeWebElement.TARGET_ATTRIBUTE)) {
+			List<Element> targets = this.page.find(this.page.getDocument(), "//*[@id = " + FakePage.literal(this.element.getAttribute(FakeWebElement.TARGET_ATTRIBUTE)) + "]");
+			if (targets.isEmpty() || this.page.isUnloaded()) {
+				return;
+			}
+			target = targets.get(0);
+		}
+		while (target.getFirstChild() != null) {
+			target.removeChild(target.getFirstChild());
+		}
+		target.appendChild(this.page.getDocument().createTextNode(text == null ? this.element.getAttribute(textAttribute) : text));
+	}
+
+	private void command(String name) {
+		this.driver.command(name);
+		if (this.page.isUnloaded() || !this.page.contains(this.element)) {
+			throw new StaleElementReferenceException("Element is no longer attached to the DOM: " + this);
+		}
+	}
+
+	private String type() {
+		if (!"input".equals(this.element.getNodeName())) {
+			return StringUtils.lowerCase(this.element.getAttribute("type"));
+		}
+		return StringUtils.defaultIfBlank(StringUtils.lowerCase(this.element.getAttribute("type")), "text");
+	}
+
+	private boolean isEditable() {
+		String tagName = this.element.getNodeName();
+		return "textarea".equals(tagName) || "input".equals(tagName) && !FakeWebElement.BUTTON_INPUT_TYPES.contains(type()) && !"checkbox".equals(type()) && !"radio".equals(type());
+	}
+
+	private String value() {
+		Object value = this.element.getUserData(FakeWebElement.VALUE_KEY);
+		if (value != null) {
+			return (String) value;
+		}
+		switch (this.element.getNodeName()) {
+			case "textarea":
+				return this.element.getTextContent();
+			case "option":
+				return this.element.hasAttribute("value") ? this.element.getAttribute("value") : StringUtils.normalizeSpace(this.element.getTextContent());
+			case "select":
+				return options(this.element).stream().filter(option -> new FakeWebElement(this.driver, this.page, option).selected()).findFirst().map(option -> new FakeWebElement(this.driver, this.page, option).value()).orElse(StringUtils.EMPTY);
+			case "input":
+				return this.element.hasAttribute("value") ? this.element.getAttribute("value") : "checkbox".equals(type()) || "radio".equals(type()) ? "on" : StringUtils.EMPTY;
+			default:
+				return this.element.hasAttribute("value") ? this.element.getAttribute("value") : null;
+		}
+	}
+
+	private boolean selected() {
+		if ("option".equals(this.element.getNodeName())) {
+			return isOptionSelected();
+		}
+		return ("checkbox".equals(type()) || "radio".equals(type())) && isChecked();
+	}
+
+	private boolean isChecked() {
+		Object checked = this.element.getUserData(FakeWebElement.CHECKED_KEY);
+		return checked == null ? this.element.hasAttribute("checked") : (Boolean) checked;
+	}
+
+	private void checkRadio() {
+		Element scope = form();
+		String xpath = "//input[@type = 'radio' and @name = " + FakePage.literal(this.element.getAttribute("name")) + "]";
+		for (Element radio : this.page.find(scope == null ? this.page.getDocument() : scope, scope == null ? xpath : "." + xpath)) {
+			radio.setUserData(FakeWebElement.CHECKED_KEY, radio == this.element, null);
+		}
+		this.element.setUserData(FakeWebElement.CHECKED_KEY, true, null);
+	}
+
+	private boolean isOptionSelected() {
+		Object selected = this.element.getUserData(FakeWebElement.SELECTED_KEY);
+		if (selected != null) {
+			return (Boolean) selected;
+		}
+		if (this.element.hasAttribute("selected")) {
+			return true;
+		}
+		// single selection lists select the first option if none is selected
+		Element select = select();
+		if (select == null || select.hasAttribute("multiple")) {
+			return false;
+		}
+		List<Element> options = options(select);
+		return options.indexOf(this.element) == 0 && options.stream().noneMatch(option -> option.hasAttribute("selected"));
+	}
+
+	private void selectOption() {
+		Element select = select();
+		if (select != null && select.hasAttribute("multiple")) {
+			this.element.setUserData(FakeWebElement.SELECTED_KEY, !isOptionSelected(), null);
+			return;
+		}
+		if (select != null) {
+			options(select).forEach(option -> option.setUserData(FakeWebElement.SELECTED_KEY, option == this.element, null));
+		}
+		this.element.setUserData(FakeWebElement.SELECTED_KEY, true, null);
+	}
+
+	private Element select() {
+		return ancestor("select");
+	}
+
+	private Element form() {
+		return "form".equals(this.element.getNodeName()) ? this.element : ancestor("form");
+	}
+
+	private Element ancestor(String tagName) {
+		for (Node node = this.element.getParentNode(); node instanceof Element; node = node.getParentNode()) {
+			if (tagName.equals(node.getNodeName())) {
+				return (Element) node;
+			}
+		}
+		return null;
+	}
+
+	private List<Element> options(Element select) {
+		return select == null ? Arrays.asList(this.element) : this.page.find(select, ".//option");
+	}
+
+	private void followLink() {
+		String href = StringUtils.trim(this.element.getAttribute("href"));
+		if (href.startsWith("#") || StringUtils.startsWithIgnoreCase(href, "javascript:")) {
+			return;
+		}
+		String url = FakePage.resolve(this.page.getUrl(), href);
+		if ("_blank".equalsIgnoreCase(this.element.getAttribute("target"))) {
+			this.driver.openWindow(url);
+		} else {
+			this.driver.navigate(this.page, url);
+		}
+	}
+
+	/**
+	 * Navigates to the form action with the values of its controls in the query, as forms with GET method do. Forms with POST method navigate to the action without the values.
+	 */
+	private void submitForm(Element form) {
+		if (form == null) {
+			return;
+		}
+		String action = StringUtils.substringBefore(FakePage.resolve(this.page.getUrl(), form.getAttribute("action")), "#");
+		if ("post".equalsIgnoreCase(form.getAttribute("method"))) {
+			this.driver.navigate(this.page, action);
+			return;
+		}
+		StringJoiner query = new StringJoiner("&");
+		for (Element control : this.page.find(form, ".//input[@name] | .//select[@name] | .//textarea[@name]")) {
+			FakeWebElement controlElement = new FakeWebElement(this.driver, this.page, control);
+			String type = controlElement.type();
+			if (control.hasAttribute("disabled") || FakeWebElement.BUTTON_INPUT_TYPES.contains(type) && control != this.element || ("checkbox".equals(type) || "radio".equals(type)) && !controlElement.isChecked()) {
+				continue;
+			}
+			if ("select".equals(control.getNodeName())) {
+				for (Element option : this.page.find(control, ".//option")) {
+					FakeWebElement optionElement = new FakeWebElement(this.driver, this.page, option);
+					if (optionElement.isOptionSelected()) {
+						query.add(FakeWebElement.encode(control.getAttribute("name")) + "=" + FakeWebElement.encode(optionElement.value()));
+					}
+				}
+			} else {
+				query.add(FakeWebElement.encode(control.getAttribute("name")) + "=" + FakeWebElement.encode(controlElement.value()));
+			}
+		}
+		this.driver.navigate(this.page, StringUtils.substringBefore(action, "?") + "?" + query);
+	}
+
+	private static String encode(String value) {
+		try {
+			return URLEncoder.encode(value, StandardCharsets.UTF_8.name());
+		} catch (UnsupportedEncodingException e) {
+			throw new WebDriverException(e);
+		}
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		return obj instanceof FakeWebElement && ((FakeWebElement) obj).element == this.element;
+	}
+
+	@Override
+	public int hashCode() {
+		return System.identityHashCode(this.element);
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder description = new StringBuilder("<").append(this.element.getNodeName());
+		for (String attribute : Arrays.asList("id", "name", "class")) {
+			if (this.element.hasAttribute(attribute)) {
+				description.append(' ').append(attribute).append("=\"").append(this.element.getAttribute(attribute)).append('"');
+			}
+		}
+		return description.append('>').toString();
+	}
+}
@@ -0,0 +1,194 @@
+package com.github.andreptb.fitnesse.selenium;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.apache.commons.lang3.tuple.Pair;
+
+/**
+ * Emits Java Flight Recorder events for selenium commands, browser connections and screenshots, so recordings show which table rows take time alongside GC, thread and I/O activity.
+ * <p>
+ * Events are defined at runtime with <code>jdk.jfr.EventFactory</code>, only available in Java 9+ (and backported JDK 8 builds). This plugin targets Java 8, so the API is accessed
+ * reflectively and, when absent, every method of this class does nothing. Event types are registered when first used, so recordings started later can enable them, and events are
+ * only created while a recording has them enabled.
+ * </p>
+ */
+public final class FlightRecorderEvents {
+
+	/**
+	 * Event types emitted by the plugin, with their fields
+	 */
+	public enum EventType {
+		/**
+		 * Fixture command evaluated with {@link WebDriverHelper#getWhenAvailable(String, String, java.util.function.BiFunction)}
+		 */
+		command("Selenium Command", Pair.of("command", String.class), Pair.of("locator", String.class), Pair.of("polls", int.class), Pair.of("outcome", String.class)),
+		/**
+		 * Browser started or quit
+		 */
+		browser("Selenium Browser", Pair.of("action", String.class), Pair.of("browser", String.class), Pair.of("driverId", int.class)),
+		/**
+		 * Screenshot taken
+		 */
+		screenshot("Selenium Screenshot", Pair.of("command", String.class), Pair.of("bytes", long.class));
+
+		private String label;
+		private List<Pair<String, Class<?>>> fields = new ArrayList<>();
+		private volatile Object factory;
+		/**
+		 * <code>jdk.jfr.EventType</code> of {@link #factory}, telling if a recording has the event enabled
+		 */
+		private volatile Object eventType;
+
+		@SafeVarargs
+		private EventType(String label, Pair<String, Class<?>>... fields) {
+			this.label = label;
+			for (Pair<String, Class<?>> field : fields) {
+				this.fields.add(field);
+			}
+		}
+	}
+
+	private static final Logger LOGGER = Logger.getLogger(FlightRecorderEvents.class.getName());
+
+	private static final String EVENT_NAME_PREFIX = "com.github.andreptb.fitnesse.selenium.";
+	private static final String[] CATEGORY = { "FitNesse", "Selenium" };
+
+	private static final Event NOOP_EVENT = new Event(null);
+
+	private static final boolean AVAILABLE;
+	private static Constructor<?> annotationElementConstructor;
+	private static Constructor<?> valueDescriptorConstructor;
+	private static Method createFactory;
+	private static Method newEvent;
+	private static Method getEventType;
+	private static Method isTypeEnabled;
+	private static Method begin;
+	private static Method end;
+	private static Method shouldCommit;
+	private static Method set;
+	private static Method commit;
+	private static Class<? extends Annotation> nameAnnotation;
+	private static Class<? extends Annotation> labelAnnotation;
+	private static Class<? extends Annotation> categoryAnnotation;
+
+	static {
+		boolean available = false;
+		try {
+			Class<?> annotationElementClass = Class.forName("jdk.jfr.AnnotationElement");
+			Class<?> eventClass = Class.forName("jdk.jfr.Event");
+			FlightRecorderEvents.annotationElementConstructor = annotationElementClass.getConstructor(Class.class, Object.class);
+			FlightRecorderEvents.valueDescriptorConstructor = Class.forName("jdk.jfr.ValueDescriptor").getConstructor(Class.class, String.class, List.class);
+			FlightRecorderEvents.createFactory = Class.forName("jdk.jfr.EventFactory").getMethod("create", List.class, List.class);
+			FlightRecorderEvents.newEvent = Class.forName("jdk.jfr.EventFactory").getMethod("newEvent");
+			FlightRecorderEvents.getEventType = Class.forName("jdk.jfr.EventFactory").getMethod("getEventType");
+			FlightRecorderEvents.isTypeEnabled = Class.forName("jdk.jfr.EventType").getMethod("isEnabled");
+			FlightRecorderEvents.begin = eventClass.getMethod("begin");
+			FlightRecorderEvents.end = eventClass.getMethod("end");
+			FlightRecorderEvents.shouldCommit = eventClass.getMethod("shouldCommit");
+			FlightRecorderEvents.set = eventClass.getMethod("set", int.class, Object.class);
+			FlightRecorderEvents.commit = eventClass.getMethod("commit");
+			FlightRecorderEvents.nameAnnotation = Class.forName("jdk.jfr.Name").asSubclass(Annotation.class);
+			FlightRecorderEvents.labelAnnotation = Class.forName("jdk.jfr.Label").asSubclass(Annotation.class);
+			FlightRecorderEvents.categoryAnnotation = Class.forName("jdk.jfr.Category").asSubclass(Annotation.class);
+			available = true;
+		} catch (ReflectiveOperationException | LinkageError e) {
+			FlightRecorderEvents.LOGGER.log(Level.FINE, "Java Flight Recorder API not available, events won't be emitted", e);
+		}
+		AVAILABLE = available;
+	}
+
+	private FlightRecorderEvents() {
+	}
+
+	/**
+	 * Starts timing an event. Must be followed by {@link Event#commit(Object...)}
+	 *
+	 * @param type of the event
+	 * @return event being timed, does nothing if flight recorder is not available or the event is not enabled
+	 */
+	public static Event begin(EventType type) {
+		if (!FlightRecorderEvents.AVAILABLE) {
+			return FlightRecorderEvents.NOOP_EVENT;
+		}
+		try {
+			Object factory = factory(type);
+			if (!(Boolean) FlightRecorderEvents.isTypeEnabled.invoke(type.eventType)) {
+				return FlightRecorderEvents.NOOP_EVENT;
+			}
+			Object event = FlightRecorderEvents.newEvent.invoke(factory);
+			FlightRecorderEvents.begin.invoke(event);
+			return new Event(event);
+		} catch (ReflectiveOperationException | RuntimeException e) {
+			FlightRecorderEvents.LOGGER.log(Level.FINE, "Failed to create flight recorder event", e);
+		}
+		return FlightRecorderEvents.NOOP_EVENT;
+	}
+
+	private static Object factory(EventType type) throws ReflectiveOperationException {
+		Object factory = type.factory;
+		if (factory == null) {
+			synchronized (type) {
+				factory = type.factory;
+				if (factory == null) {
+					List<Object> annotations = Arrays.asList(annotation(FlightRecorderEvents.nameAnnotation, FlightRecorderEvents.EVENT_NAME_PREFIX + type.name()), annotation(FlightRecorderEvents.labelAnnotation, type.label),
+						annotation(FlightRecorderEvents.categoryAnnotation, FlightRecorderEvents.CATEGORY));
+					List<Object> fields = new ArrayList<>();
+					for (Pair<String, Class<?>> field : type.fields) {
+						fields.add(FlightRecorderEvents.valueDescriptorConstructor.newInstance(field.getValue(), field.getKey(), Collections.emptyList()));
+					}
+					factory = FlightRecorderEvents.createFactory.invoke(null, annotations, fields);
+					type.eventType = FlightRecorderEvents.getEventType.invoke(factory);
+					type.factory = factory;
+				}
+			}
+		}
+		return factory;
+	}
+
+	private static Object annotation(Class<? extends Annotation> annotationType, Object value) throws ReflectiveOperationException {
+		return FlightRecorderEvents.annotationElementConstructor.newInstance(annotationType, value);
+	}
+
+	/**
+	 * Event being timed
+	 */
+	public static final class Event {
+
+		private final Object event;
+
+		private Event(Object event) {
+			this.event = event;
+		}
+
+		/**
+		 * Stops timing and records the event, if its duration reached the recording threshold
+		 *
+		 * @param values of the event fields, in the order defined by {@link EventType}
+		 */
+		public void commit(Object... values) {
+			if (this.event == null) {
+				return;
+			}
+			try {
+				FlightRecorderEvents.end.invoke(this.event);
+				if (!(Boolean) FlightRecorderEvents.shouldCommit.invoke(this.event)) {
+					return;
+				}
+				for (int i = 0; i < values.length; i++) {
+					FlightRecorderEvents.set.invoke(this.event, i, values[i]);
+				}
+				FlightRecorderEvents.commit.invoke(this.event);
+			} catch (ReflectiveOperationException | RuntimeException e) {
+				FlightRecorderEvents.LOGGER.log(Level.FINE, "Failed to commit flight recorder event", e);
+			}
+		}
+	}
+}
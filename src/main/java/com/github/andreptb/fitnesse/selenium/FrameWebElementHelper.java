@@ -42,31 +42,56 @@ public class FrameWebElementHelper {
 			} else if (relativeSelector == FrameRelativeSelectorType.parent) {
 				driver.switchTo().parentFrame();
 			}
+		}, (cache, driver, value) -> {
+			if (FrameRelativeSelectorType.valueOf(value) == FrameRelativeSelectorType.parent) {
+				cache.selectParentFrame(driver);
+			} else {
+				cache.selectFrame(driver, null);
+			}
 		}),
 		/**
 		 * Index selector, will look for the index of the desired frame
 		 */
-		index((driver, value) -> driver.switchTo().frame(NumberUtils.toInt(value)));
+		index((driver, value) -> driver.switchTo().frame(NumberUtils.toInt(value)), (cache, driver, value) -> cache.selectFrame(driver, FrameSelectorType.INDEX_FRAME_PREFIX + value));
+
+		/**
+		 * Prefix of frames selected by index, tracked by {@link WebElementCache#selectFrame(WebDriver, String)}
+		 */
+		private static final String INDEX_FRAME_PREFIX = "index=";
 
 		/**
 		 * Function that selects a value in a {@link Select} element
 		 */
 		private BiConsumer<WebDriver, String> selector;
 
-		private FrameSelectorType(BiConsumer<WebDriver, String> selector) {
+		/**
+		 * Tracks the frame selected, so elements kept by {@link WebElementCache} are kept by frame
+		 */
+		private FrameSelectionTracker tracker;
+
+		private FrameSelectorType(BiConsumer<WebDriver, String> selector, FrameSelectionTracker tracker) {
 			this.selector = selector;
+			this.tracker = tracker;
 		}
 	}
 
+	@FunctionalInterface
+	private interface FrameSelectionTracker {
+
+		void track(WebElementCache cache, WebDriver driver, String value);
+	}
+
 	public boolean select(WebDriverHelper driverHelper, String locator) {
-		return driverHelper.doWhenAvailable(locator, (driver, parsedLocator) -> {
+		return driverHelper.doWhenAvailable("selectFrame", locator, (driver, parsedLocator) -> {
 			Pair<String, String> keyValue = this.fitnesseMarkup.cleanAndParseKeyValue(parsedLocator.getOriginalSelector(), FitnesseMarkup.KEY_VALUE_SEPARATOR);
 			FrameSelectorType frameSelector = EnumUtils.getEnum(FrameSelectorType.class, keyValue.getKey());
 			if (frameSelector == null) {
-				driver.switchTo().frame(driver.findElement(parsedLocator.getBy()));
+				driver.switchTo().frame(driverHelper.findElement(driver, parsedLocator));
+				driverHelper.getElementCache().selectFrame(driver, parsedLocator.getBy().toString());
 				return;
 			}
 			frameSelector.selector.accept(driver, keyValue.getValue());
+			frameSelector.tracker.track(driverHelper.getElementCache(), driver, keyValue.getValue());
 		});
 	}
 }
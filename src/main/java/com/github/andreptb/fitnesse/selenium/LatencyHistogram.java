@@ -0,0 +1,97 @@
+package com.github.andreptb.fitnesse.selenium;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free latency histogram with nanosecond input. Values are counted in logarithmic buckets, each power of two split in {@link #SUB_BUCKETS} linear sub-buckets, so percentiles are
+ * accurate to about 12% while memory stays constant no matter how many values are recorded. Maximum, count and total are exact.
+ */
+public class LatencyHistogram {
+
+	/**
+	 * Bits of each power of two used to select the sub-bucket
+	 */
+	private static final int SUB_BUCKET_BITS = 3;
+	private static final int SUB_BUCKETS = 1 << LatencyHistogram.SUB_BUCKET_BITS;
+
+	private final AtomicLongArray buckets = new AtomicLongArray(Long.SIZE * LatencyHistogram.SUB_BUCKETS);
+	private final LongAdder count = new LongAdder();
+	private final LongAdder total = new LongAdder();
+	private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+	/**
+	 * @param nanos duration to be recorded, negative values are recorded as 0
+	 */
+	public void record(long nanos) {
+		long value = Math.max(nanos, 0);
+		this.buckets.incrementAndGet(bucketOf(value));
+		this.count.increment();
+		this.total.add(value);
+		this.max.accumulate(value);
+	}
+
+	private static int bucketOf(long value) {
+		if (value < LatencyHistogram.SUB_BUCKETS) {
+			return (int) value;
+		}
+		int magnitude = Long.SIZE - Long.numberOfLeadingZeros(value) - 1;
+		int subBucket = (int) (value >>> (magnitude - LatencyHistogram.SUB_BUCKET_BITS)) & (LatencyHistogram.SUB_BUCKETS - 1);
+		return (magnitude - LatencyHistogram.SUB_BUCKET_BITS + 1) * LatencyHistogram.SUB_BUCKETS + subBucket;
+	}
+
+	/**
+	 * @return highest value of the bucket, so percentiles are never under estimated
+	 */
+	private static long upperBoundOf(int bucket) {
+		if (bucket < LatencyHistogram.SUB_BUCKETS) {
+			return bucket;
+		}
+		int magnitude = bucket / LatencyHistogram.SUB_BUCKETS + LatencyHistogram.SUB_BUCKET_BITS - 1;
+		long subBucket = bucket % LatencyHistogram.SUB_BUCKETS;
+		long lowerBound = (LatencyHistogram.SUB_BUCKETS + subBucket) << (magnitude - LatencyHistogram.SUB_BUCKET_BITS);
+		return lowerBound + (1L << (magnitude - LatencyHistogram.SUB_BUCKET_BITS)) - 1;
+	}
+
+	/**
+	 * @param percentile between 0 and 100
+	 * @return value in nanoseconds below which the given percentile of recorded values fall, never above {@link #getMax()}. 0 if nothing was recorded
+	 */
+	public long getPercentile(double percentile) {
+		long recorded = getCount();
+		if (recorded == 0) {
+			return 0;
+		}
+		long rank = Math.max((long) Math.ceil(recorded * Math.min(Math.max(percentile, 0), 100) / 100), 1);
+		long accumulated = 0;
+		for (int bucket = 0; bucket < this.buckets.length(); bucket++) {
+			accumulated += this.buckets.get(bucket);
+			if (accumulated >= rank) {
+				return Math.min(LatencyHistogram.upperBoundOf(bucket), getMax());
+			}
+		}
+		return getMax();
+	}
+
+	/**
+	 * @return amount of recorded values
+	 */
+	public long getCount() {
+		return this.count.sum();
+	}
+
+	/**
+	 * @return sum of recorded values, in nanoseconds
+	 */
+	public long getTotal() {
+		return this.total.sum();
+	}
+
+	/**
+	 * @return highest recorded value, in nanoseconds
+	 */
+	public long getMax() {
+		return this.max.get();
+	}
+}
@@ -0,0 +1,190 @@
+package com.github.andreptb.fitnesse.selenium;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang3.StringUtils;
+
+import com.github.andreptb.fitnesse.selenium.CommandMetrics.CommandStats;
+
+/**
+ * Publishes {@link CommandMetrics} as a JMX MXBean (see {@link SeleniumMetricsMXBean}) and, when {@link #TEXTFILE_PROPERTY} is set, periodically rewrites a Prometheus text file,
+ * suitable for node exporter textfile collector. The file is replaced atomically, so scrapers never read a partially written file.
+ */
+public class MetricsExporter implements SeleniumMetricsMXBean {
+
+	/**
+	 * JMX name under which metrics are registered
+	 */
+	public static final String OBJECT_NAME = "com.github.andreptb.fitnesse:type=SeleniumMetrics";
+
+	/**
+	 * System property with the Prometheus text file path. Text file is not written unless set
+	 */
+	public static final String TEXTFILE_PROPERTY = "fitnesse.selenium.metrics.textfile";
+
+	/**
+	 * System property with the interval, in seconds, between text file updates. Default is 15
+	 */
+	public static final String TEXTFILE_INTERVAL_PROPERTY = "fitnesse.selenium.metrics.textfileIntervalInSeconds";
+
+	private static final String METRIC_PREFIX = "fitnesse_selenium_";
+
+	private static final double[] QUANTILES = { 0.5, 0.95, 0.99 };
+
+	private Logger logger = Logger.getLogger(MetricsExporter.class.getName());
+
+	private final CommandMetrics metrics;
+	private final PooledHttpClientFactory httpClientFactory;
+
+	public MetricsExporter(CommandMetrics metrics, PooledHttpClientFactory httpClientFactory) {
+		this.metrics = metrics;
+		this.httpClientFactory = httpClientFactory;
+		try {
+			ManagementFactory.getPlatformMBeanServer().registerMBean(this, new ObjectName(MetricsExporter.OBJECT_NAME));
+		} catch (JMException e) {
+			// usually already registered by another class loader
+			this.logger.log(Level.FINE, "Failed to register metrics MXBean", e);
+		}
+		String textFile = System.getProperty(MetricsExporter.TEXTFILE_PROPERTY);
+		if (StringUtils.isNotBlank(textFile)) {
+			long interval = Math.max(Long.getLong(MetricsExporter.TEXTFILE_INTERVAL_PROPERTY, 15), 1);
+			ScheduledExecutorService writer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+				Thread thread = new Thread(runnable, "fitnesse-selenium-metrics-textfile");
+				thread.setDaemon(true);
+				return thread;
+			});
+			writer.scheduleWithFixedDelay(() -> writeTextFile(new File(textFile)), 0, interval, TimeUnit.SECONDS);
+			Runtime.getRuntime().addShutdownHook(new Thread(() -> writeTextFile(new File(textFile)), "fitnesse-selenium-metrics-textfile-shutdown"));
+		}
+	}
+
+	/**
+	 * Writes all metrics in Prometheus text format
+	 *
+	 * @param file to be replaced
+	 */
+	public void writeTextFile(File file) {
+		File temporaryFile = new File(file.getAbsoluteFile().getParentFile(), "." + file.getName() + ".tmp");
+		try {
+			FileUtils.forceMkdir(temporaryFile.getParentFile());
+			try (Writer writer = Files.newBufferedWriter(temporaryFile.toPath(), StandardCharsets.UTF_8)) {
+				writeMetrics(writer);
+			}
+			Files.move(temporaryFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException | RuntimeException e) {
+			this.logger.log(Level.WARNING, "Failed to write metrics text file " + file, e);
+		}
+	}
+
+	private void writeMetrics(Writer writer) throws IOException {
+		writeMetric(writer, "commands_total", "counter", "Selenium commands executed", getCommandsExecuted());
+		writeMetric(writer, "in_flight_waits", "gauge", "Commands currently waiting for elements", getInFlightWaits());
+		writeMetric(writer, "timeouts_total", "counter", "Commands that timed out", getTimeouts());
+		writeMetric(writer, "polls_total", "counter", "Browser polls while waiting for elements", getPolls());
+		writeMetric(writer, "retries_total", "counter", "Browser polls after the first attempt failed", getRetries());
+		writeMetric(writer, "live_drivers", "gauge", "Live browsers of all browser sessions", getLiveDrivers());
+		writeMetric(writer, "screenshot_bytes_total", "counter", "Size of screenshots taken", getScreenshotBytes());
+		writeMetric(writer, "http_connections_leased", "gauge", "HTTP connections to remote browsers in use", getHttpConnectionsLeased());
+		writeMetric(writer, "http_connections_available", "gauge", "Idle HTTP connections to remote browsers kept alive", getHttpConnectionsAvailable());
+		writeMetric(writer, "http_connections_pending", "gauge", "Commands waiting for an HTTP connection to remote browsers", getHttpConnectionsPending());
+		writeMetric(writer, "http_connections_created_total", "counter", "HTTP connections opened to remote browsers", getHttpConnectionsCreated());
+		String durationMetric = MetricsExporter.METRIC_PREFIX + "command_duration_seconds";
+		writer.write("# HELP " + durationMetric + " Selenium command duration\n");
+		writer.write("# TYPE " + durationMetric + " summary\n");
+		for (CommandStats stats : this.metrics.getCommands()) {
+			String command = "command=\"" + StringUtils.replaceEach(stats.getCommand(), new String[] { "\\", "\"", "\n" }, new String[] { "\\\\", "\\\"", "\\n" }) + "\"";
+			for (double quantile : MetricsExporter.QUANTILES) {
+				writer.write(durationMetric + "{" + command + ",quantile=\"" + quantile + "\"} " + MetricsExporter.seconds(stats.getLatency().getPercentile(quantile * 100)) + "\n");
+			}
+			writer.write(durationMetric + "_sum{" + command + "} " + MetricsExporter.seconds(stats.getLatency().getTotal()) + "\n");
+			writer.write(durationMetric + "_count{" + command + "} " + stats.getLatency().getCount() + "\n");
+		}
+	}
+
+	private void writeMetric(Writer writer, String name, String type, String help, long value) throws IOException {
+		String metric = MetricsExporter.METRIC_PREFIX + name;
+		writer.write("# HELP " + metric + " " + help + "\n");
+		writer.write("# TYPE " + metric + " " + type + "\n");
+		writer.write(metric + " " + value + "\n");
+	}
+
+	private static String seconds(long nanos) {
+		return String.format(Locale.ROOT, "%.9f", nanos / (double) TimeUnit.SECONDS.toNanos(1));
+	}
+
+	@Override
+	public long getCommandsExecuted() {
+		return this.metrics.getCommandsExecuted();
+	}
+
+	@Override
+	public int getInFlightWaits() {
+		return this.metrics.getInFlightWaits();
+	}
+
+	@Override
+	public long getTimeouts() {
+		return this.metrics.getTimeouts();
+	}
+
+	@Override
+	public long getPolls() {
+		return this.metrics.getPolls();
+	}
+
+	@Override
+	public long getRetries() {
+		return this.metrics.getRetries();
+	}
+
+	@Override
+	public int getLiveDrivers() {
+		return WebDriverCache.getLiveDrivers();
+	}
+
+	@Override
+	public long getScreenshotBytes() {
+		return this.metrics.getScreenshotBytes();
+	}
+
+	@Override
+	public int getHttpConnectionsLeased() {
+		return this.httpClientFactory.getPoolStats().getLeased();
+	}
+
+	@Override
+	public int getHttpConnectionsAvailable() {
+		return this.httpClientFactory.getPoolStats().getAvailable();
+	}
+
+	@Override
+	public int getHttpConnectionsPending() {
+		return this.httpClientFactory.getPoolStats().getPending();
+	}
+
+	@Override
+	public long getHttpConnectionsCreated() {
+		return this.httpClientFactory.getConnectionsCreated();
+	}
+
+	@Override
+	public String[] getCommandStatistics() {
+		return this.metrics.getCommands().stream().map(CommandStats::toString).toArray(String[]::new);
+	}
+}
@@ -0,0 +1,116 @@
+package com.github.andreptb.fitnesse.selenium;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.ScriptTimeoutException;
+import org.openqa.selenium.TimeoutException;
+import org.openqa.selenium.WebDriver;
+
+import com.github.andreptb.fitnesse.selenium.SeleniumLocatorParser.WebElementSelector;
+
+/**
+ * Waits for page changes inside the browser, with a single async script driven by a MutationObserver, instead of sleeping between attempts. If the searched element is absent, the
+ * script returns as soon as it shows up, otherwise it returns on the next page change, so the element is evaluated again only when something happened.
+ * <p>
+ * Falls back to {@link WaitStrategy.BuiltIn#exponential} delays if the browser doesn't support async scripts or the selector can't be evaluated in the page (such as the focused
+ * element selector).
+ * </p>
+ * <p>
+ * The script timeout of each browser is set to {@link #SCRIPT_TIMEOUT_IN_MILLIS} the first time it's waited, and never restored: selenium has no way to read the timeout
+ * previously configured. Asynchronous scripts ran afterwards in the same browser time out after {@link #SCRIPT_TIMEOUT_IN_MILLIS} as well.
+ * </p>
+ */
+final class MutationObserverWait {
+
+	private static final String SCRIPT_RESOURCE = "mutation-observer-wait.js";
+
+	/**
+	 * Maximum time waited by each script execution, so changes not reported by MutationObserver (such as typed input values) are still noticed
+	 */
+	private static final long MAX_SCRIPT_WAIT_IN_MILLIS = 1000;
+
+	/**
+	 * Script timeout configured in drivers, a bit longer than {@link #MAX_SCRIPT_WAIT_IN_MILLIS} so the script always resolves by itself
+	 */
+	private static final long SCRIPT_TIMEOUT_IN_MILLIS = MutationObserverWait.MAX_SCRIPT_WAIT_IN_MILLIS + 2000;
+
+	private static final Logger LOGGER = Logger.getLogger(MutationObserverWait.class.getName());
+
+	private static final String SCRIPT = MutationObserverWait.loadScript();
+
+	/**
+	 * Drivers with script timeout already configured (true) or not supporting the script (false)
+	 */
+	private static final Map<WebDriver, Boolean> DRIVERS = Collections.synchronizedMap(new WeakHashMap<>());
+
+	private MutationObserverWait() {
+	}
+
+	private static String loadScript() {
+		try (InputStream script = MutationObserverWait.class.getResourceAsStream(MutationObserverWait.SCRIPT_RESOURCE)) {
+			return script == null ? null : IOUtils.toString(script, StandardCharsets.UTF_8);
+		} catch (IOException e) {
+			MutationObserverWait.LOGGER.log(Level.WARNING, "Failed to load MutationObserver script, waits will poll instead", e);
+		}
+		return null;
+	}
+
+	/**
+	 * Waits until the page changes or the maximum wait is reached
+	 *
+	 * @param driver browser being waited
+	 * @param locator element being waited
+	 * @param attempt attempt that just failed, starting from 1
+	 * @param maxWaitInMillis maximum time to wait
+	 * @throws InterruptedException if interrupted while waiting
+	 */
+	static void await(WebDriver driver, WebElementSelector locator, int attempt, long maxWaitInMillis) throws InterruptedException {
+		if (!isSupported(driver, locator)) {
+			Thread.sleep(Math.min(WaitStrategy.BuiltIn.exponential.pollDelayInMillis(attempt), maxWaitInMillis));
+			return;
+		}
+		try {
+			((JavascriptExecutor) driver).executeAsyncScript(MutationObserverWait.SCRIPT, locator.getLocatorType(), locator.getLocatorValue(), Math.min(maxWaitInMillis, MutationObserverWait.MAX_SCRIPT_WAIT_IN_MILLIS));
+		} catch (ScriptTimeoutException | TimeoutException e) {
+			// nothing changed, next attempt decides if the wait should go on
+		} catch (RuntimeException e) {
+			// page being unloaded, alerts and such; evaluation handles these, script is tried again in the next attempt
+			MutationObserverWait.LOGGER.log(Level.FINE, "MutationObserver wait failed", e);
+			Thread.sleep(Math.min(WaitStrategy.BuiltIn.exponential.pollDelayInMillis(attempt), maxWaitInMillis));
+		}
+	}
+
+	private static boolean isSupported(WebDriver driver, WebElementSelector locator) {
+		if (MutationObserverWait.SCRIPT == null || !(driver instanceof JavascriptExecutor) || StringUtils.isBlank(locator.getLocatorType())) {
+			return false;
+		}
+		Boolean supported = MutationObserverWait.DRIVERS.get(driver);
+		if (supported == null) {
+			supported = configure(driver);
+			MutationObserverWait.DRIVERS.put(driver, supported);
+		}
+		return supported;
+	}
+
+	private static boolean configure(WebDriver driver) {
+		try {
+			driver.manage().timeouts().setScriptTimeout(MutationObserverWait.SCRIPT_TIMEOUT_IN_MILLIS, TimeUnit.MILLISECONDS);
+			// drivers not supporting async scripts (or MutationObserver) fail right away
+			return Boolean.TRUE.equals(((JavascriptExecutor) driver).executeAsyncScript("arguments[arguments.length - 1](typeof MutationObserver !== 'undefined');"));
+		} catch (RuntimeException e) {
+			MutationObserverWait.LOGGER.log(Level.INFO, "Browser doesn't support MutationObserver waits, polling instead", e);
+		}
+		return false;
+	}
+}
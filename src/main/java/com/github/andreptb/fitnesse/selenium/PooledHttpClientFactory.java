@@ -0,0 +1,179 @@
+package com.github.andreptb.fitnesse.selenium;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.apache.http.HttpClientConnection;
+import org.apache.http.HttpHost;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.config.SocketConfig;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.conn.ManagedHttpClientConnectionFactory;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
+import org.openqa.selenium.remote.http.HttpClient;
+import org.openqa.selenium.remote.internal.ApacheHttpClient;
+
+/**
+ * {@link HttpClient.Factory} used by all remote browser sessions (remote URLs and browser daemon), sharing a single pool of keep-alive connections, so sessions against the same
+ * grid reuse connections instead of opening (and leaving in TIME_WAIT) a new one for each command. Configured with system properties:
+ * <ul>
+ * <li>{@link #MAX_PER_ROUTE_PROPERTY}: maximum connections to the same host. Default is 16</li>
+ * <li>{@link #MAX_TOTAL_PROPERTY}: maximum connections to all hosts. Default is 64</li>
+ * <li>{@link #KEEP_ALIVE_PROPERTY}: how long idle connections are kept, in seconds. Default is 30, servers asking for less are respected</li>
+ * <li>{@link #CONNECT_TIMEOUT_PROPERTY} and {@link #SOCKET_TIMEOUT_PROPERTY}: in seconds. Defaults are the same as selenium (2 minutes and 3 hours)</li>
+ * <li>{@link #PREWARM_PROPERTY}: connections opened in background when the first session to a host is created. Default is 0</li>
+ * </ul>
+ */
+public class PooledHttpClientFactory implements HttpClient.Factory {
+
+	/**
+	 * System property with the maximum connections to the same host
+	 */
+	public static final String MAX_PER_ROUTE_PROPERTY = "fitnesse.selenium.http.maxPerRoute";
+
+	/**
+	 * System property with the maximum connections to all hosts
+	 */
+	public static final String MAX_TOTAL_PROPERTY = "fitnesse.selenium.http.maxTotal";
+
+	/**
+	 * System property with how long, in seconds, idle connections are kept
+	 */
+	public static final String KEEP_ALIVE_PROPERTY = "fitnesse.selenium.http.keepAliveInSeconds";
+
+	/**
+	 * System property with the connect timeout, in seconds
+	 */
+	public static final String CONNECT_TIMEOUT_PROPERTY = "fitnesse.selenium.http.connectTimeoutInSeconds";
+
+	/**
+	 * System property with the socket (read) timeout, in seconds
+	 */
+	public static final String SOCKET_TIMEOUT_PROPERTY = "fitnesse.selenium.http.socketTimeoutInSeconds";
+
+	/**
+	 * System property with the amount of connections opened ahead of time for each host
+	 */
+	public static final String PREWARM_PROPERTY = "fitnesse.selenium.http.prewarmConnections";
+
+	/**
+	 * Idle connections are checked before being reused after this time, so connections dropped by the server are not handed to commands
+	 */
+	private static final int VALIDATE_AFTER_INACTIVITY_IN_MILLIS = 2000;
+
+	private Logger logger = Logger.getLogger(PooledHttpClientFactory.class.getName());
+
+	private final PoolingHttpClientConnectionManager connectionManager;
+	private final CloseableHttpClient httpClient;
+	private final long keepAliveInMillis;
+	private final int connectTimeoutInMillis;
+	private final int prewarmConnections;
+	private final LongAdder connectionsCreated = new LongAdder();
+
+	/**
+	 * Hosts already pre-warmed
+	 */
+	private final Set<HttpRoute> prewarmedRoutes = ConcurrentHashMap.newKeySet();
+
+	public PooledHttpClientFactory() {
+		this.keepAliveInMillis = TimeUnit.SECONDS.toMillis(Math.max(Long.getLong(PooledHttpClientFactory.KEEP_ALIVE_PROPERTY, 30), 1));
+		this.connectTimeoutInMillis = (int) TimeUnit.SECONDS.toMillis(Math.max(Integer.getInteger(PooledHttpClientFactory.CONNECT_TIMEOUT_PROPERTY, 120), 1));
+		int socketTimeoutInMillis = (int) TimeUnit.SECONDS.toMillis(Math.max(Integer.getInteger(PooledHttpClientFactory.SOCKET_TIMEOUT_PROPERTY, (int) TimeUnit.HOURS.toSeconds(3)), 0));
+		this.prewarmConnections = Math.max(Integer.getInteger(PooledHttpClientFactory.PREWARM_PROPERTY, 0), 0);
+		this.connectionManager = new PoolingHttpClientConnectionManager(
+			RegistryBuilder.<ConnectionSocketFactory> create().register("http", PlainConnectionSocketFactory.getSocketFactory()).register("https", SSLConnectionSocketFactory.getSocketFactory()).build(),
+			(route, config) -> {
+				this.connectionsCreated.increment();
+				return ManagedHttpClientConnectionFactory.INSTANCE.create(route, config);
+			});
+		this.connectionManager.setMaxTotal(Math.max(Integer.getInteger(PooledHttpClientFactory.MAX_TOTAL_PROPERTY, 64), 1));
+		this.connectionManager.setDefaultMaxPerRoute(Math.max(Integer.getInteger(PooledHttpClientFactory.MAX_PER_ROUTE_PROPERTY, 16), 1));
+		this.connectionManager.setValidateAfterInactivity(PooledHttpClientFactory.VALIDATE_AFTER_INACTIVITY_IN_MILLIS);
+		this.connectionManager.setDefaultSocketConfig(SocketConfig.custom().setSoTimeout(socketTimeoutInMillis).setTcpNoDelay(true).setSoKeepAlive(true).build());
+		this.httpClient = HttpClientBuilder.create().setConnectionManager(this.connectionManager)
+			.setDefaultRequestConfig(RequestConfig.custom().setConnectTimeout(this.connectTimeoutInMillis).setSocketTimeout(socketTimeoutInMillis).build())
+			.setKeepAliveStrategy((response, context) -> {
+				long serverKeepAlive = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+				return serverKeepAlive > 0 ? Math.min(serverKeepAlive, this.keepAliveInMillis) : this.keepAliveInMillis;
+			}).evictExpiredConnections().evictIdleConnections(this.keepAliveInMillis, TimeUnit.MILLISECONDS).build();
+	}
+
+	@Override
+	public HttpClient createClient(URL url) {
+		prewarm(url);
+		return new ApacheHttpClient(this.httpClient, url) {
+
+			@Override
+			public void close() {
+				// selenium closes every idle connection of the client when a session quits, pool evicts idle connections by itself
+			}
+		};
+	}
+
+	/**
+	 * Opens {@link #PREWARM_PROPERTY} connections to the host in background, if not done yet, so the first commands of the next sessions don't pay for connection setup
+	 */
+	private void prewarm(URL url) {
+		if (this.prewarmConnections <= 0) {
+			return;
+		}
+		HttpRoute route = new HttpRoute(new HttpHost(url.getHost(), url.getPort() < 0 ? url.getDefaultPort() : url.getPort(), url.getProtocol()), null, "https".equalsIgnoreCase(url.getProtocol()));
+		if (!this.prewarmedRoutes.add(route)) {
+			return;
+		}
+		Thread prewarm = new Thread(() -> {
+			List<HttpClientConnection> connections = new ArrayList<>();
+			try {
+				for (int i = 0; i < Math.min(this.prewarmConnections, this.connectionManager.getMaxPerRoute(route)); i++) {
+					HttpClientConnection connection = this.connectionManager.requestConnection(route, null).get(this.connectTimeoutInMillis, TimeUnit.MILLISECONDS);
+					connections.add(connection);
+					if (!connection.isOpen()) {
+						HttpClientContext context = HttpClientContext.create();
+						this.connectionManager.connect(connection, route, this.connectTimeoutInMillis, context);
+						this.connectionManager.routeComplete(connection, route, context);
+					}
+				}
+			} catch (IOException | ExecutionException | RuntimeException e) {
+				this.logger.log(Level.FINE, "Failed to pre-warm connections to " + route, e);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			} finally {
+				connections.forEach(connection -> this.connectionManager.releaseConnection(connection, null, this.keepAliveInMillis, TimeUnit.MILLISECONDS));
+			}
+		}, "fitnesse-selenium-http-prewarm");
+		prewarm.setDaemon(true);
+		prewarm.start();
+	}
+
+	/**
+	 * @return connections currently in use, available (idle) and requests waiting for a connection, for all hosts
+	 */
+	public PoolStats getPoolStats() {
+		return this.connectionManager.getTotalStats();
+	}
+
+	/**
+	 * @return amount of connections opened since the pool was created. Growing along with commands means connections are not being reused
+	 */
+	public long getConnectionsCreated() {
+		return this.connectionsCreated.sum();
+	}
+}
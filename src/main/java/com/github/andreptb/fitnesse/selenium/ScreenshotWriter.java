@@ -0,0 +1,346 @@
+package com.github.andreptb.fitnesse.selenium;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.openqa.selenium.OutputType;
+import org.openqa.selenium.TakesScreenshot;
+import org.openqa.selenium.WebDriver;
+
+import com.github.andreptb.fitnesse.util.FitnesseMarkup;
+import com.google.common.hash.Hashing;
+
+/**
+ * Takes screenshots of failures in background and writes them as files, served by FitNesse, so failing commands return right away with a link to a file that shows up as soon as the
+ * screenshot is written, instead of waiting for the browser and embedding the whole image in the test result. Files are written in {@link #DIRECTORY_PROPERTY} or, if not set,
+ * in {@link #DEFAULT_DIRECTORY} when the slim server runs along with FitNesse root.
+ * <p>
+ * Screenshots are streamed as bytes and stored once, named by the SHA-256 of their content, so identical screenshots (such as the same error page in every failing command) take
+ * the disk space of a single file. Test results display a downscaled thumbnail of each screenshot, linked to the full screenshot, see {@link ThumbnailEncoder}.
+ * </p>
+ * <p>
+ * Screenshots and thumbnails are written by a bounded amount of threads; when too many are pending the calling thread takes the screenshot itself. The next command using the same browser waits for
+ * its pending screenshot, so screenshots always show the browser as it was when the command failed.
+ * </p>
+ */
+public class ScreenshotWriter {
+
+	/**
+	 * System property with the directory where screenshots are written, usually within FitNesse files directory. Blank value embeds screenshots in the test result instead
+	 */
+	public static final String DIRECTORY_PROPERTY = "fitnesse.selenium.screenshot.dir";
+	/**
+	 * Directory where screenshots are written if {@link #DIRECTORY_PROPERTY} is not set, relative to the working directory of the slim server (the same as FitNesse)
+	 */
+	public static final String DEFAULT_DIRECTORY = "FitNesseRoot/files/screenshots";
+	/**
+	 * System property with the URL prefix under which FitNesse serves {@link #DIRECTORY_PROPERTY}. Default is <b>/files/</b> followed by the directory name
+	 */
+	public static final String URL_PROPERTY = "fitnesse.selenium.screenshot.url";
+	/**
+	 * System property with the amount of threads taking screenshots. Default is 2
+	 */
+	public static final String THREADS_PROPERTY = "fitnesse.selenium.screenshot.threads";
+	/**
+	 * System property with the maximum amount of pending screenshots before screenshots are taken by the calling thread. Default is 16
+	 */
+	public static final String QUEUE_SIZE_PROPERTY = "fitnesse.selenium.screenshot.queueSize";
+
+	/**
+	 * System property with the amount of days screenshots are kept, older ones are deleted when the slim server starts. Default is 30, 0 keeps screenshots forever
+	 */
+	public static final String MAX_AGE_PROPERTY = "fitnesse.selenium.screenshot.maxAgeInDays";
+
+	private static final String FILE_EXTENSION = ".png";
+
+	/**
+	 * Maximum amount of seconds the JVM exit (or the next command) waits for pending screenshots
+	 */
+	private static final long PENDING_TIMEOUT_IN_SECONDS = 30;
+
+	private Logger logger = Logger.getLogger(ScreenshotWriter.class.getName());
+
+	private final File directory;
+	private final String urlPrefix;
+	private final CommandMetrics metrics;
+	private final ThreadPoolExecutor executor;
+	private final AtomicLong sequence = new AtomicLong();
+	private final LongAdder deduplicatedScreenshots = new LongAdder();
+	private final ThumbnailEncoder thumbnailEncoder = ThumbnailEncoder.fromSystemProperties();
+
+	/**
+	 * Screenshots being taken, by browser
+	 */
+	private final Map<WebDriver, CompletableFuture<Void>> pendingScreenshots = new ConcurrentHashMap<>();
+
+	ScreenshotWriter(File directory, String urlPrefix, CommandMetrics metrics) {
+		this.directory = directory;
+		this.urlPrefix = StringUtils.appendIfMissing(urlPrefix, "/");
+		this.metrics = metrics;
+		int threads = Math.max(Integer.getInteger(ScreenshotWriter.THREADS_PROPERTY, 2), 1);
+		int queueSize = Math.max(Integer.getInteger(ScreenshotWriter.QUEUE_SIZE_PROPERTY, 16), 1);
+		AtomicInteger threadCount = new AtomicInteger();
+		this.executor = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS, new ArrayBlockingQueue<>(queueSize), runnable -> {
+			Thread thread = new Thread(runnable, "fitnesse-selenium-screenshot-" + threadCount.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}, (runnable, rejectingExecutor) -> runnable.run());
+		this.executor.allowCoreThreadTimeOut(true);
+		Runtime.getRuntime().addShutdownHook(new Thread(this::drain, "fitnesse-selenium-screenshot-shutdown"));
+		long maxAgeInDays = Math.max(Long.getLong(ScreenshotWriter.MAX_AGE_PROPERTY, 30), 0);
+		if (maxAgeInDays > 0) {
+			this.executor.execute(() -> deleteOlderThan(maxAgeInDays));
+		}
+	}
+
+	/**
+	 * Deletes screenshots, thumbnails and the links returned to failing commands (see {@link #submit(WebDriver, String)}) older than the given amount of days, along with temporary
+	 * files left behind. Links are hard links (or copies) of the stored files, so deleting one doesn't affect the others
+	 */
+	private void deleteOlderThan(long maxAgeInDays) {
+		File[] files = this.directory.listFiles(File::isFile);
+		if (files == null) {
+			return;
+		}
+		long oldest = System.currentTimeMillis() - TimeUnit.DAYS.toMillis(maxAgeInDays);
+		for (File file : files) {
+			if (file.lastModified() < oldest) {
+				FileUtils.deleteQuietly(file);
+			}
+		}
+	}
+
+	/**
+	 * @param metrics where screenshot durations and sizes are recorded
+	 * @return writer for the directory configured by {@link #DIRECTORY_PROPERTY} (or {@link #DEFAULT_DIRECTORY}), or null if screenshots should be embedded in the test result
+	 */
+	static ScreenshotWriter fromSystemProperties(CommandMetrics metrics) {
+		String directory = System.getProperty(ScreenshotWriter.DIRECTORY_PROPERTY);
+		if (directory == null && new File(ScreenshotWriter.DEFAULT_DIRECTORY).getParentFile().isDirectory()) {
+			directory = ScreenshotWriter.DEFAULT_DIRECTORY;
+		}
+		if (StringUtils.isBlank(directory)) {
+			return null;
+		}
+		File directoryFile = new File(directory);
+		return new ScreenshotWriter(directoryFile, System.getProperty(ScreenshotWriter.URL_PROPERTY, "/files/" + directoryFile.getName()), metrics);
+	}
+
+	/**
+	 * Takes the screenshot in background
+	 *
+	 * @param driver browser to take the screenshot from
+	 * @param base64Screenshot screenshot already taken (such as the ones sent by remote browsers along with failures), or null to take one from the browser
+	 * @return URL where the screenshot file will be available, followed by the URL of its thumbnail, see {@link FitnesseMarkup#imgLink(Object)}
+	 */
+	public String submit(WebDriver driver, String base64Screenshot) {
+		String name = System.currentTimeMillis() + "-" + this.sequence.incrementAndGet();
+		CompletableFuture<Void> captured = new CompletableFuture<>();
+		if (base64Screenshot == null) {
+			this.pendingScreenshots.put(driver, captured);
+		}
+		this.executor.execute(() -> write(driver, base64Screenshot, name, captured));
+		return link(name);
+	}
+
+	/**
+	 * Takes the screenshot from the browser and stores it. The thumbnail is written in background
+	 *
+	 * @param driver browser to take the screenshot from
+	 * @param command command taking the screenshot, recorded in flight recorder events
+	 * @return URL of the screenshot file, followed by the URL of its thumbnail, see {@link FitnesseMarkup#imgLink(Object)}
+	 * @throws IOException if the screenshot file can't be written
+	 */
+	public String take(WebDriver driver, String command) throws IOException {
+		FlightRecorderEvents.Event event = FlightRecorderEvents.begin(FlightRecorderEvents.EventType.screenshot);
+		byte[] screenshot = ((TakesScreenshot) driver).getScreenshotAs(OutputType.BYTES);
+		File file = store(screenshot);
+		event.commit(command, recordScreenshotBytes(screenshot));
+		if (this.thumbnailEncoder != null) {
+			this.executor.execute(() -> {
+				try {
+					storeThumbnail(file);
+				} catch (IOException | RuntimeException e) {
+					this.logger.log(Level.FINE, "Failed to write thumbnail of " + file, e);
+				}
+			});
+		}
+		return link(StringUtils.removeEnd(file.getName(), ScreenshotWriter.FILE_EXTENSION));
+	}
+
+	private void write(WebDriver driver, String base64Screenshot, String name, CompletableFuture<Void> captured) {
+		long start = System.nanoTime();
+		FlightRecorderEvents.Event event = FlightRecorderEvents.begin(FlightRecorderEvents.EventType.screenshot);
+		try {
+			byte[] screenshot;
+			try {
+				screenshot = base64Screenshot == null ? ((TakesScreenshot) driver).getScreenshotAs(OutputType.BYTES) : Base64.getMimeDecoder().decode(base64Screenshot);
+			} finally {
+				// browser can be used again, the file is written while the next command runs
+				captured.complete(null);
+			}
+			File file = store(screenshot);
+			// the links returned to the failing command point to the stored files, without storing them twice
+			linkFile(file, new File(this.directory, name + ScreenshotWriter.FILE_EXTENSION));
+			event.commit(CommandMetrics.SCREENSHOT, recordScreenshotBytes(screenshot));
+			File thumbnail = this.thumbnailEncoder == null ? null : storeThumbnail(file);
+			if (thumbnail != null) {
+				linkFile(thumbnail, new File(this.directory, name + this.thumbnailEncoder.getFileSuffix()));
+			}
+		} catch (IOException | RuntimeException e) {
+			// links partially written are useless, the screenshot shows up as missing
+			FileUtils.deleteQuietly(new File(this.directory, name + ScreenshotWriter.FILE_EXTENSION));
+			if (this.thumbnailEncoder != null) {
+				FileUtils.deleteQuietly(new File(this.directory, name + this.thumbnailEncoder.getFileSuffix()));
+			}
+			this.logger.log(Level.FINE, "Failed to write screenshot " + name, e);
+		} finally {
+			this.metrics.get(CommandMetrics.SCREENSHOT).record(System.nanoTime() - start);
+		}
+	}
+
+	/**
+	 * Writes the screenshot in a file named by its content hash, unless the same screenshot was already written
+	 *
+	 * @param screenshot PNG data
+	 * @return file with the screenshot
+	 * @throws IOException if the file can't be written
+	 */
+	private File store(byte[] screenshot) throws IOException {
+		File file = new File(this.directory, Hashing.sha256().hashBytes(screenshot) + ScreenshotWriter.FILE_EXTENSION);
+		if (file.isFile()) {
+			this.deduplicatedScreenshots.increment();
+			return file;
+		}
+		FileUtils.forceMkdir(this.directory);
+		File temporaryFile = temporaryFile(file);
+		try {
+			Files.write(temporaryFile.toPath(), screenshot);
+			moveFile(temporaryFile, file);
+		} finally {
+			FileUtils.deleteQuietly(temporaryFile);
+		}
+		return file;
+	}
+
+	/**
+	 * Writes the thumbnail of a stored screenshot, unless already written
+	 *
+	 * @param file stored screenshot
+	 * @return thumbnail file, null if the screenshot is not an image
+	 * @throws IOException if the thumbnail can't be written
+	 */
+	private File storeThumbnail(File file) throws IOException {
+		File thumbnail = new File(this.directory, StringUtils.removeEnd(file.getName(), ScreenshotWriter.FILE_EXTENSION) + this.thumbnailEncoder.getFileSuffix());
+		if (thumbnail.isFile()) {
+			return thumbnail;
+		}
+		long start = System.nanoTime();
+		File temporaryFile = temporaryFile(thumbnail);
+		try {
+			if (!this.thumbnailEncoder.encode(file, temporaryFile)) {
+				return null;
+			}
+			moveFile(temporaryFile, thumbnail);
+			return thumbnail;
+		} finally {
+			FileUtils.deleteQuietly(temporaryFile);
+			this.metrics.get(CommandMetrics.THUMBNAIL).record(System.nanoTime() - start);
+		}
+	}
+
+	/**
+	 * Files are written with another name and moved, so FitNesse never serves a partially written file
+	 */
+	private File temporaryFile(File file) {
+		return new File(this.directory, "." + file.getName() + "." + this.sequence.incrementAndGet() + ".tmp");
+	}
+
+	private static void moveFile(File source, File target) throws IOException {
+		Files.move(source.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	private static void linkFile(File existing, File link) throws IOException {
+		try {
+			Files.createLink(link.toPath(), existing.toPath());
+		} catch (UnsupportedOperationException | IOException e) {
+			Files.copy(existing.toPath(), link.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+
+	/**
+	 * @param name screenshot file name, without extension
+	 * @return URL of the screenshot file, followed by the URL of its thumbnail if thumbnails are enabled
+	 */
+	private String link(String name) {
+		String url = this.urlPrefix + name + ScreenshotWriter.FILE_EXTENSION;
+		return this.thumbnailEncoder == null ? url : url + FitnesseMarkup.SCREENSHOT_THUMBNAIL_SEPARATOR + this.urlPrefix + name + this.thumbnailEncoder.getFileSuffix();
+	}
+
+	private long recordScreenshotBytes(byte[] screenshot) {
+		this.metrics.recordScreenshotBytes(screenshot.length);
+		return screenshot.length;
+	}
+
+	/**
+	 * Waits for the screenshot being taken from the browser, if any, so the browser is not changed before the screenshot is taken. Doesn't wait for the file to be written
+	 *
+	 * @param driver browser about to be used
+	 */
+	public void await(WebDriver driver) {
+		CompletableFuture<Void> pendingScreenshot = driver == null ? null : this.pendingScreenshots.remove(driver);
+		if (pendingScreenshot == null) {
+			return;
+		}
+		try {
+			pendingScreenshot.get(ScreenshotWriter.PENDING_TIMEOUT_IN_SECONDS, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (ExecutionException | TimeoutException e) {
+			this.logger.log(Level.FINE, "Pending screenshot not taken", e);
+		}
+	}
+
+	/**
+	 * @return amount of screenshots not written because the same screenshot was already stored
+	 */
+	public long getDeduplicatedScreenshots() {
+		return this.deduplicatedScreenshots.sum();
+	}
+
+	/**
+	 * @return amount of screenshots pending or being taken
+	 */
+	public int getPendingScreenshots() {
+		return this.executor.getQueue().size() + this.executor.getActiveCount();
+	}
+
+	private void drain() {
+		this.executor.shutdown();
+		try {
+			if (!this.executor.awaitTermination(ScreenshotWriter.PENDING_TIMEOUT_IN_SECONDS, TimeUnit.SECONDS)) {
+				this.logger.warning("Screenshots still being written after " + ScreenshotWriter.PENDING_TIMEOUT_IN_SECONDS + " seconds, giving up");
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
@@ -69,8 +69,8 @@ public class SelectWebElementHelper {
 	public boolean select(WebDriverHelper driverHelper, String optionLocator, String locator) {
 		Pair<String, String> optionTypeAndLocatorWithExpectedValue = this.fitnesseMarkup.swapValueToCheck(optionLocator, locator);
 		Pair<OptionSelectorType, String> parsedOptionLocator = parseOptionLocator(optionTypeAndLocatorWithExpectedValue.getKey());
-		return driverHelper.doWhenAvailable(optionTypeAndLocatorWithExpectedValue.getValue(), (driver, parsedLocator) -> {
-			parsedOptionLocator.getKey().selector.accept(new Select(driver.findElement(parsedLocator.getBy())), parsedOptionLocator.getValue());
+		return driverHelper.doWhenAvailable("select", optionTypeAndLocatorWithExpectedValue.getValue(), (driver, parsedLocator) -> {
+			parsedOptionLocator.getKey().selector.accept(new Select(driverHelper.findElement(driver, parsedLocator)), parsedOptionLocator.getValue());
 		});
 	}
 
@@ -85,7 +85,7 @@ public class SelectWebElementHelper {
 	public String selected(WebDriverHelper driverHelper, String optionLocator, String locator) {
 		Pair<String, String> optionTypeAndLocatorWithExpectedValue = this.fitnesseMarkup.swapValueToCheck(optionLocator, locator);
 		OptionSelectorType optionRetriever = parseOptionLocator(optionTypeAndLocatorWithExpectedValue.getKey()).getKey();
-		return driverHelper.getWhenAvailable(optionTypeAndLocatorWithExpectedValue.getValue(), (driver, parsedLocator) -> this.fitnesseMarkup.clean(optionRetriever.retriever.apply(new Select(driver.findElement(parsedLocator.getBy())))));
+		return driverHelper.getWhenAvailable("selected", optionTypeAndLocatorWithExpectedValue.getValue(), (driver, parsedLocator) -> this.fitnesseMarkup.clean(optionRetriever.retriever.apply(new Select(driverHelper.findElement(driver, parsedLocator)))));
 	}
 
 	private Pair<OptionSelectorType, String> parseOptionLocator(String optionLocator) {
@@ -3,6 +3,7 @@ package com.github.andreptb.fitnesse.selenium;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.function.Function;
 
 import org.apache.commons.lang3.EnumUtils;
 import org.apache.commons.lang3.StringUtils;
@@ -13,9 +14,23 @@ import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.WebElement;
 
 import com.github.andreptb.fitnesse.util.FitnesseMarkup;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 
 public class SeleniumLocatorParser {
 
+	/**
+	 * System property with the maximum amount of parsed locators kept, see {@link #parse(String)}. Default is 1024, 0 disables the cache
+	 */
+	public static final String CACHE_SIZE_PROPERTY = "fitnesse.selenium.locatorCache.maxSize";
+
+	/**
+	 * Parsed locators by locator received by the fixture. Shared by all browser sessions since parsing doesn't depend on the browser, least recently used locators are discarded
+	 * first
+	 */
+	private static final Cache<String, WebElementSelector> PARSED_LOCATORS = CacheBuilder.newBuilder()
+		.maximumSize(Math.max(Long.getLong(SeleniumLocatorParser.CACHE_SIZE_PROPERTY, 1024), 0)).build();
+
 	/**
 	 * Utility to process FitNesse markup
 	 */
@@ -25,16 +40,16 @@ public class SeleniumLocatorParser {
 	 * enum mapping selector identifier with selector implementation ({@link By} implementations).
 	 */
 	private enum LocatorType {
-		id(By.ById.class),
-		name(By.ByName.class),
-		css(By.ByCssSelector.class),
-		xpath(By.ByXPath.class),
-		link(By.ByLinkText.class);
+		id(By::id),
+		name(By::name),
+		css(By::cssSelector),
+		xpath(By::xpath),
+		link(By::linkText);
 
-		private Class<? extends By> byClass;
+		private Function<String, By> byFactory;
 
-		LocatorType(Class<? extends By> byClass) {
-			this.byClass = byClass;
+		LocatorType(Function<String, By> byFactory) {
+			this.byFactory = byFactory;
 		}
 	}
 
@@ -52,32 +67,42 @@ public class SeleniumLocatorParser {
 	 * <li>'id=&lt;id&gt;@&lt;attributeName&gt;'</li>
 	 * </ul>
 	 *
+	 * Parsed locators are kept (see {@link #CACHE_SIZE_PROPERTY}), so commands polling the browser or repeating the same locator don't parse it again.
+	 *
 	 * @param locator to be parsed
 	 * @return instance of {@link WebElementSelector}
 	 */
 	public WebElementSelector parse(String locator) {
-		Pair<String, String> elementAndValue = this.fitnesseMarkup.cleanAndParseKeyValue(locator, FitnesseMarkup.SELECTOR_VALUE_SEPARATOR);
-		return new WebElementSelector(elementAndValue.getKey(), parseBy(elementAndValue.getKey()), elementAndValue.getValue());
+		String key = StringUtils.defaultString(locator);
+		WebElementSelector parsedLocator = SeleniumLocatorParser.PARSED_LOCATORS.getIfPresent(key);
+		if (parsedLocator == null) {
+			parsedLocator = compile(key);
+			SeleniumLocatorParser.PARSED_LOCATORS.put(key, parsedLocator);
+		}
+		return parsedLocator;
 	}
 
-	private By parseBy(String locator) {
-		if (StringUtils.isBlank(locator)) {
-			return new ByFocus();
+	/**
+	 * Parses the locator without looking up parsed locators, see {@link #parse(String)}
+	 *
+	 * @param locator to be parsed
+	 * @return instance of {@link WebElementSelector}
+	 */
+	WebElementSelector compile(String locator) {
+		Pair<String, String> elementAndValue = this.fitnesseMarkup.cleanAndParseKeyValue(locator, FitnesseMarkup.SELECTOR_VALUE_SEPARATOR);
+		String element = elementAndValue.getKey();
+		if (StringUtils.isBlank(element)) {
+			return new WebElementSelector(element, new ByFocus(), elementAndValue.getValue());
 		}
-		Pair<String, String> prefixAndSelector = this.fitnesseMarkup.cleanAndParseKeyValue(locator, FitnesseMarkup.KEY_VALUE_SEPARATOR);
-		String prefix = prefixAndSelector.getKey();
-		String selector = prefixAndSelector.getValue();
+		// element is already clean, no need to clean it again
+		String prefix = StringUtils.substringBefore(element, FitnesseMarkup.KEY_VALUE_SEPARATOR);
+		String selector = StringUtils.substringAfter(element, FitnesseMarkup.KEY_VALUE_SEPARATOR);
 		LocatorType selectorType = EnumUtils.getEnum(LocatorType.class, prefix);
 		if (selectorType == null) {
-			selector = locator;
+			selector = element;
 			selectorType = LocatorType.xpath;
 		}
-
-		try {
-			return selectorType.byClass.getConstructor(String.class).newInstance(selector);
-		} catch (ReflectiveOperationException e) {
-			throw new IllegalStateException("Unexpected failure instantiating selector: " + prefix, e);
-		}
+		return new WebElementSelector(element, selectorType.byFactory.apply(selector), elementAndValue.getValue(), selectorType.name(), selector);
 	}
 
 	/**
@@ -99,11 +124,26 @@ public class SeleniumLocatorParser {
 		private String originalSelector;
 		private By by;
 		private String expectedValue;
+		private String locatorType;
+		private String locatorValue;
 
 		public WebElementSelector(String originalSelector, By by, String expectedValue) {
+			this(originalSelector, by, expectedValue, null, null);
+		}
+
+		/**
+		 * @param originalSelector selector received by the fixture
+		 * @param by selenium selector
+		 * @param expectedValue value expected for the element, if any
+		 * @param locatorType selector identifier (id, name, css, xpath or link)
+		 * @param locatorValue selector without identifier
+		 */
+		public WebElementSelector(String originalSelector, By by, String expectedValue, String locatorType, String locatorValue) {
 			this.originalSelector = originalSelector;
 			this.by = by;
 			this.expectedValue = expectedValue;
+			this.locatorType = locatorType;
+			this.locatorValue = locatorValue;
 		}
 
 		public String getOriginalSelector() {
@@ -118,6 +158,20 @@ public class SeleniumLocatorParser {
 			return this.expectedValue;
 		}
 
+		/**
+		 * @return selector identifier (id, name, css, xpath or link), null if the selector has none (such as {@link ByFocus})
+		 */
+		public String getLocatorType() {
+			return this.locatorType;
+		}
+
+		/**
+		 * @return selector without identifier, null if the selector has none (such as {@link ByFocus})
+		 */
+		public String getLocatorValue() {
+			return this.locatorValue;
+		}
+
 	}
 
 }
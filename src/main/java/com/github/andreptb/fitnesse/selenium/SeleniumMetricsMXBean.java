@@ -0,0 +1,67 @@
+package com.github.andreptb.fitnesse.selenium;
+
+/**
+ * JMX view of selenium fixture metrics, registered as {@link MetricsExporter#OBJECT_NAME}
+ */
+public interface SeleniumMetricsMXBean {
+
+	/**
+	 * @return amount of commands executed
+	 */
+	long getCommandsExecuted();
+
+	/**
+	 * @return amount of commands currently waiting for elements
+	 */
+	int getInFlightWaits();
+
+	/**
+	 * @return amount of times commands timed out
+	 */
+	long getTimeouts();
+
+	/**
+	 * @return amount of times commands polled the browser
+	 */
+	long getPolls();
+
+	/**
+	 * @return amount of times commands polled the browser again after the first attempt failed
+	 */
+	long getRetries();
+
+	/**
+	 * @return amount of live browsers of all browser sessions
+	 */
+	int getLiveDrivers();
+
+	/**
+	 * @return total size of screenshots taken
+	 */
+	long getScreenshotBytes();
+
+	/**
+	 * @return HTTP connections to remote browsers in use, see {@link PooledHttpClientFactory}
+	 */
+	int getHttpConnectionsLeased();
+
+	/**
+	 * @return idle HTTP connections to remote browsers kept alive
+	 */
+	int getHttpConnectionsAvailable();
+
+	/**
+	 * @return commands waiting for an HTTP connection to remote browsers, the pool is too small if this stays above 0
+	 */
+	int getHttpConnectionsPending();
+
+	/**
+	 * @return HTTP connections opened to remote browsers
+	 */
+	long getHttpConnectionsCreated();
+
+	/**
+	 * @return latency statistics of each command, one command per entry
+	 */
+	String[] getCommandStatistics();
+}
@@ -0,0 +1,120 @@
+package com.github.andreptb.fitnesse.selenium;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * Produces downscaled and recompressed copies of screenshots, displayed in the test result with the full screenshot linked, so the browser viewing results doesn't download and
+ * decode full resolution screenshots. Configured with system properties:
+ * <ul>
+ * <li>{@link #HEIGHT_PROPERTY}: thumbnail height in pixels, width keeps the screenshot proportion. Default is 200, 0 disables thumbnails</li>
+ * <li>{@link #FORMAT_PROPERTY}: image format, <b>jpg</b> or <b>png</b>. Default is jpg</li>
+ * <li>{@link #QUALITY_PROPERTY}: compression quality, from 0 to 1, if supported by the format. Default is 0.75</li>
+ * </ul>
+ */
+class ThumbnailEncoder {
+
+	/**
+	 * System property with the thumbnail height, in pixels
+	 */
+	static final String HEIGHT_PROPERTY = "fitnesse.selenium.screenshot.thumbnail.height";
+	/**
+	 * System property with the thumbnail image format
+	 */
+	static final String FORMAT_PROPERTY = "fitnesse.selenium.screenshot.thumbnail.format";
+	/**
+	 * System property with the thumbnail compression quality
+	 */
+	static final String QUALITY_PROPERTY = "fitnesse.selenium.screenshot.thumbnail.quality";
+
+	private static final String JPEG_FORMAT = "jpg";
+
+	private final int height;
+	private final String format;
+	private final float quality;
+
+	ThumbnailEncoder(int height, String format, float quality) {
+		this.height = height;
+		this.format = format;
+		this.quality = Math.min(Math.max(quality, 0), 1);
+	}
+
+	/**
+	 * @return encoder configured by system properties, or null if thumbnails are disabled or the format is not supported
+	 */
+	static ThumbnailEncoder fromSystemProperties() {
+		int height = Integer.getInteger(ThumbnailEncoder.HEIGHT_PROPERTY, 200);
+		String format = StringUtils.lowerCase(System.getProperty(ThumbnailEncoder.FORMAT_PROPERTY, ThumbnailEncoder.JPEG_FORMAT));
+		if (height <= 0 || !ImageIO.getImageWritersByFormatName(format).hasNext()) {
+			return null;
+		}
+		return new ThumbnailEncoder(height, format, Float.parseFloat(System.getProperty(ThumbnailEncoder.QUALITY_PROPERTY, "0.75")));
+	}
+
+	/**
+	 * @return suffix identifying thumbnails with this configuration, including the file extension
+	 */
+	String getFileSuffix() {
+		return "-thumb" + this.height + "." + this.format;
+	}
+
+	/**
+	 * Writes the thumbnail of a screenshot
+	 *
+	 * @param screenshot screenshot file
+	 * @param thumbnail thumbnail file
+	 * @return if the thumbnail was written, false if the screenshot is not an image
+	 * @throws IOException if the screenshot can't be read or the thumbnail can't be written
+	 */
+	boolean encode(File screenshot, File thumbnail) throws IOException {
+		BufferedImage image = ImageIO.read(screenshot);
+		if (image == null) {
+			return false;
+		}
+		int width = Math.max(image.getWidth() * this.height / Math.max(image.getHeight(), 1), 1);
+		int height = this.height;
+		if (image.getHeight() <= this.height) {
+			width = image.getWidth();
+			height = image.getHeight();
+		}
+		// jpg has no transparency, png thumbnails keep it
+		BufferedImage scaled = new BufferedImage(width, height, ThumbnailEncoder.JPEG_FORMAT.equals(this.format) ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB);
+		Graphics2D graphics = scaled.createGraphics();
+		try {
+			graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+			graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+			graphics.drawImage(image, 0, 0, width, height, null);
+		} finally {
+			graphics.dispose();
+		}
+		Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName(this.format);
+		ImageWriter writer = writers.next();
+		try (ImageOutputStream output = ImageIO.createImageOutputStream(thumbnail)) {
+			writer.setOutput(output);
+			ImageWriteParam param = writer.getDefaultWriteParam();
+			if (param.canWriteCompressed()) {
+				param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+				if (param.getCompressionType() == null) {
+					param.setCompressionType(param.getCompressionTypes()[0]);
+				}
+				param.setCompressionQuality(this.quality);
+			}
+			writer.write(null, new IIOImage(scaled, null, null), param);
+		} finally {
+			writer.dispose();
+		}
+		return true;
+	}
+}
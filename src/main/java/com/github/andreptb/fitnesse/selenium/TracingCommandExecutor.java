@@ -0,0 +1,101 @@
+package com.github.andreptb.fitnesse.selenium;
+
+import java.io.IOException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.apache.commons.lang3.ArrayUtils;
+import org.apache.commons.lang3.reflect.FieldUtils;
+import org.openqa.selenium.remote.Command;
+import org.openqa.selenium.remote.CommandExecutor;
+import org.openqa.selenium.remote.HttpCommandExecutor;
+import org.openqa.selenium.remote.Response;
+import org.openqa.selenium.remote.http.HttpClient;
+import org.openqa.selenium.remote.http.HttpRequest;
+import org.openqa.selenium.remote.http.HttpResponse;
+
+/**
+ * {@link CommandExecutor} recording every wire command sent to the browser in {@link WireCommandTracer}: its name, latency, and the size of the HTTP request and response bodies.
+ * Sizes are taken from the bodies already encoded by {@link HttpCommandExecutor}, so commands are never encoded again just to be measured. Commands not sent through HTTP are
+ * recorded with size 0.
+ */
+final class TracingCommandExecutor implements CommandExecutor {
+
+	/**
+	 * {@link HttpCommandExecutor} private field with the client sending the commands, replaced by {@link MeasuringHttpClient}
+	 */
+	private static final String HTTP_CLIENT_FIELD = "client";
+
+	/**
+	 * Request and response bytes of the command being executed by the current thread
+	 */
+	private static final ThreadLocal<long[]> PAYLOAD_BYTES = ThreadLocal.withInitial(() -> new long[2]);
+
+	private static final Logger LOGGER = Logger.getLogger(TracingCommandExecutor.class.getName());
+
+	private final CommandExecutor delegate;
+
+	TracingCommandExecutor(CommandExecutor delegate) {
+		this.delegate = delegate;
+		if (delegate instanceof HttpCommandExecutor) {
+			try {
+				HttpClient client = (HttpClient) FieldUtils.readField(delegate, TracingCommandExecutor.HTTP_CLIENT_FIELD, true);
+				if (client != null && !(client instanceof MeasuringHttpClient)) {
+					FieldUtils.writeField(delegate, TracingCommandExecutor.HTTP_CLIENT_FIELD, new MeasuringHttpClient(client), true);
+				}
+			} catch (IllegalAccessException | IllegalArgumentException | ClassCastException e) {
+				TracingCommandExecutor.LOGGER.log(Level.FINE, "Failed to measure wire commands, sizes will be recorded as 0", e);
+			}
+		}
+	}
+
+	/**
+	 * @param executor executor, possibly traced
+	 * @return the executor actually talking to the browser
+	 */
+	static CommandExecutor unwrap(CommandExecutor executor) {
+		return executor instanceof TracingCommandExecutor ? ((TracingCommandExecutor) executor).delegate : executor;
+	}
+
+	@Override
+	public Response execute(Command command) throws IOException {
+		long[] payloadBytes = TracingCommandExecutor.PAYLOAD_BYTES.get();
+		payloadBytes[0] = 0;
+		payloadBytes[1] = 0;
+		long start = System.nanoTime();
+		Response response = null;
+		try {
+			response = this.delegate.execute(command);
+			return response;
+		} finally {
+			long durationInNanos = System.nanoTime() - start;
+			WireCommandTracer.record(command.getName(), start, durationInNanos, payloadBytes[0], payloadBytes[1], response == null ? null : response.getState());
+		}
+	}
+
+	/**
+	 * Adds the size of request and response bodies to the command being executed by the current thread
+	 */
+	private static final class MeasuringHttpClient implements HttpClient {
+
+		private final HttpClient delegate;
+
+		private MeasuringHttpClient(HttpClient delegate) {
+			this.delegate = delegate;
+		}
+
+		@Override
+		public HttpResponse execute(HttpRequest request, boolean followRedirects) throws IOException {
+			long[] payloadBytes = TracingCommandExecutor.PAYLOAD_BYTES.get();
+			payloadBytes[0] += ArrayUtils.getLength(request.getContent());
+			HttpResponse response = this.delegate.execute(request, followRedirects);
+			payloadBytes[1] += ArrayUtils.getLength(response.getContent());
+			return response;
+		}
+
+		@Override
+		public void close() throws IOException {
+			this.delegate.close();
+		}
+	}
+}
@@ -0,0 +1,112 @@
+package com.github.andreptb.fitnesse.selenium;
+
+import java.text.MessageFormat;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stops waiting for elements once waiting is pointless, such as when a broken deployment makes every command time out. The breaker opens after
+ * {@link #getMaxConsecutiveTimeouts()} commands in a row time out, or after commands of the same page spend {@link #getPageWaitBudgetInSeconds()} waiting for elements that never
+ * showed up. While open, commands are evaluated once, without waiting. The breaker closes on the next successful command or when a new page starts.
+ * <p>
+ * Both limits are disabled by default (0), defaults can be configured with {@link #MAX_CONSECUTIVE_TIMEOUTS_PROPERTY} and {@link #PAGE_WAIT_BUDGET_PROPERTY} system properties.
+ * </p>
+ */
+public class WaitCircuitBreaker {
+
+	/**
+	 * System property with the default amount of consecutive timeouts opening the breaker
+	 */
+	public static final String MAX_CONSECUTIVE_TIMEOUTS_PROPERTY = "fitnesse.selenium.circuitBreaker.maxConsecutiveTimeouts";
+
+	/**
+	 * System property with the default time, in seconds, commands of the same page can spend on timed out waits
+	 */
+	public static final String PAGE_WAIT_BUDGET_PROPERTY = "fitnesse.selenium.circuitBreaker.pageWaitBudgetInSeconds";
+
+	private int maxConsecutiveTimeouts = Math.max(Integer.getInteger(WaitCircuitBreaker.MAX_CONSECUTIVE_TIMEOUTS_PROPERTY, 0), 0);
+	private int pageWaitBudgetInSeconds = Math.max(Integer.getInteger(WaitCircuitBreaker.PAGE_WAIT_BUDGET_PROPERTY, 0), 0);
+
+	private String page;
+	private int consecutiveTimeouts;
+	private long timedOutWaitsInNanos;
+
+	/**
+	 * Closes the breaker if the page is not the same as the current one
+	 *
+	 * @param page full path of the page starting
+	 */
+	public synchronized void startPage(String page) {
+		if (!Objects.equals(this.page, page)) {
+			this.page = page;
+			reset();
+		}
+	}
+
+	/**
+	 * @return why the breaker is open, or null if closed and commands should wait for elements
+	 */
+	public synchronized String getOpenReason() {
+		if (this.maxConsecutiveTimeouts > 0 && this.consecutiveTimeouts >= this.maxConsecutiveTimeouts) {
+			return MessageFormat.format("wait skipped after {0} consecutive timeouts", this.consecutiveTimeouts);
+		}
+		if (this.pageWaitBudgetInSeconds > 0 && getRemainingBudgetInMillis() <= 0) {
+			return MessageFormat.format("wait skipped, page wait budget of {0} seconds exhausted", this.pageWaitBudgetInSeconds);
+		}
+		return null;
+	}
+
+	/**
+	 * @param timeoutInMillis configured timeout
+	 * @return timeout to be used by the next wait, no longer than the remaining page wait budget
+	 */
+	public synchronized long limitTimeout(long timeoutInMillis) {
+		return this.pageWaitBudgetInSeconds > 0 ? Math.max(Math.min(timeoutInMillis, getRemainingBudgetInMillis()), 0) : timeoutInMillis;
+	}
+
+	private long getRemainingBudgetInMillis() {
+		return TimeUnit.SECONDS.toMillis(this.pageWaitBudgetInSeconds) - TimeUnit.NANOSECONDS.toMillis(this.timedOutWaitsInNanos);
+	}
+
+	/**
+	 * Closes the breaker
+	 */
+	public synchronized void recordSuccess() {
+		reset();
+	}
+
+	/**
+	 * @param waitedInNanos time spent waiting before timing out
+	 */
+	public synchronized void recordTimeout(long waitedInNanos) {
+		this.consecutiveTimeouts++;
+		this.timedOutWaitsInNanos += waitedInNanos;
+	}
+
+	private void reset() {
+		this.consecutiveTimeouts = 0;
+		this.timedOutWaitsInNanos = 0;
+	}
+
+	public synchronized int getMaxConsecutiveTimeouts() {
+		return this.maxConsecutiveTimeouts;
+	}
+
+	/**
+	 * @param maxConsecutiveTimeouts consecutive timeouts opening the breaker, 0 disables the limit
+	 */
+	public synchronized void setMaxConsecutiveTimeouts(int maxConsecutiveTimeouts) {
+		this.maxConsecutiveTimeouts = Math.max(maxConsecutiveTimeouts, 0);
+	}
+
+	public synchronized int getPageWaitBudgetInSeconds() {
+		return this.pageWaitBudgetInSeconds;
+	}
+
+	/**
+	 * @param pageWaitBudgetInSeconds time commands of the same page can spend on timed out waits, 0 disables the limit
+	 */
+	public synchronized void setPageWaitBudgetInSeconds(int pageWaitBudgetInSeconds) {
+		this.pageWaitBudgetInSeconds = Math.max(pageWaitBudgetInSeconds, 0);
+	}
+}
@@ -0,0 +1,132 @@
+package com.github.andreptb.fitnesse.selenium;
+
+import java.text.MessageFormat;
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.IntToLongFunction;
+
+import org.apache.commons.lang3.EnumUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.openqa.selenium.WebDriver;
+
+import com.github.andreptb.fitnesse.selenium.SeleniumLocatorParser.WebElementSelector;
+
+/**
+ * Defines how long {@link WebDriverHelper} waits between attempts while waiting for an element or value. Built-in strategies are listed in {@link BuiltIn}, custom strategies can be
+ * used by their fully qualified class name, as long as the class has a public no-args constructor.
+ */
+@FunctionalInterface
+public interface WaitStrategy {
+
+	/**
+	 * System property with the default strategy, used by browser sessions created afterwards. Default is {@link BuiltIn#exponential}
+	 */
+	String DEFAULT_STRATEGY_PROPERTY = "fitnesse.selenium.wait.strategy";
+
+	/**
+	 * @param attempt attempt that just failed, starting from 1
+	 * @return milliseconds to wait before the next attempt
+	 */
+	long pollDelayInMillis(int attempt);
+
+	/**
+	 * Waits before the next attempt. Default implementation sleeps for {@link #pollDelayInMillis(int)}
+	 *
+	 * @param driver browser being waited
+	 * @param locator element being waited
+	 * @param attempt attempt that just failed, starting from 1
+	 * @param maxWaitInMillis maximum time to wait, time left before the wait times out
+	 * @throws InterruptedException if interrupted while waiting
+	 */
+	default void await(WebDriver driver, WebElementSelector locator, int attempt, long maxWaitInMillis) throws InterruptedException {
+		Thread.sleep(Math.max(Math.min(pollDelayInMillis(attempt), maxWaitInMillis), 0));
+	}
+
+	/**
+	 * Built-in strategies
+	 */
+	enum BuiltIn implements WaitStrategy {
+		/**
+		 * Polls fast right after the first attempt, doubling the delay (from 10 milliseconds) up to 250 milliseconds
+		 */
+		exponential(BuiltIn::exponentialDelay),
+		/**
+		 * Polls every 500 milliseconds, same as selenium {@link org.openqa.selenium.support.ui.WebDriverWait}
+		 */
+		fixed(attempt -> 500),
+		/**
+		 * Same as {@link #exponential}, but picks a random delay between half and the full exponential delay, spreading polls of concurrent sessions
+		 */
+		jittered(attempt -> {
+			long delay = BuiltIn.exponentialDelay(attempt);
+			return ThreadLocalRandom.current().nextLong(delay / 2, delay + 1);
+		}),
+		/**
+		 * Waits inside the browser until the page changes, see {@link MutationObserverWait}. Uses {@link #exponential} delays when not supported by the browser
+		 */
+		mutation(BuiltIn::exponentialDelay) {
+
+			@Override
+			public void await(WebDriver driver, WebElementSelector locator, int attempt, long maxWaitInMillis) throws InterruptedException {
+				MutationObserverWait.await(driver, locator, attempt, maxWaitInMillis);
+			}
+		};
+
+		private static final long EXPONENTIAL_INITIAL_DELAY = 10;
+		private static final long EXPONENTIAL_MAX_DELAY = 250;
+
+		private IntToLongFunction delayFunction;
+
+		private BuiltIn(IntToLongFunction delayFunction) {
+			this.delayFunction = delayFunction;
+		}
+
+		@Override
+		public long pollDelayInMillis(int attempt) {
+			return this.delayFunction.applyAsLong(attempt);
+		}
+
+		private static long exponentialDelay(int attempt) {
+			// shift is bounded so the delay never overflows
+			return Math.min(BuiltIn.EXPONENTIAL_INITIAL_DELAY << Math.min(Math.max(attempt - 1, 0), 16), BuiltIn.EXPONENTIAL_MAX_DELAY);
+		}
+	}
+
+	/**
+	 * @param name of a built-in strategy (see {@link BuiltIn}) or fully qualified class name of a custom strategy
+	 * @return the strategy
+	 * @throws IllegalArgumentException if no strategy can be resolved from name
+	 */
+	static WaitStrategy forName(String name) {
+		String cleanedName = StringUtils.trim(name);
+		BuiltIn builtIn = EnumUtils.getEnum(BuiltIn.class, StringUtils.lowerCase(cleanedName));
+		if (builtIn != null) {
+			return builtIn;
+		}
+		String message = MessageFormat.format("Unknown wait strategy [{0}], use one of {1} or a {2} implementation class name", name, Arrays.toString(BuiltIn.values()), WaitStrategy.class.getName());
+		if (StringUtils.isBlank(cleanedName)) {
+			throw new IllegalArgumentException(message);
+		}
+		try {
+			return Class.forName(cleanedName).asSubclass(WaitStrategy.class).getConstructor().newInstance();
+		} catch (ReflectiveOperationException | ClassCastException e) {
+			throw new IllegalArgumentException(message, e);
+		}
+	}
+
+	/**
+	 * @return strategy configured by {@link #DEFAULT_STRATEGY_PROPERTY}, or {@link BuiltIn#exponential}
+	 */
+	static WaitStrategy fromSystemProperties() {
+		String name = System.getProperty(WaitStrategy.DEFAULT_STRATEGY_PROPERTY);
+		return StringUtils.isBlank(name) ? BuiltIn.exponential : WaitStrategy.forName(name);
+	}
+
+	/**
+	 * @param strategy wait strategy
+	 * @return name that resolves to the strategy with {@link #forName(String)}
+	 */
+	static String nameOf(WaitStrategy strategy) {
+		return strategy instanceof BuiltIn ? ((BuiltIn) strategy).name() : strategy.getClass().getName();
+	}
+}
@@ -0,0 +1,283 @@
+package com.github.andreptb.fitnesse.selenium;
+
+import java.text.MessageFormat;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.LongSupplier;
+import java.util.logging.Logger;
+
+import org.openqa.selenium.WebDriver;
+
+/**
+ * Live {@link WebDriver} instances of a browser session, keyed by the same id {@link WebDriverHelper} uses to identify a browser configuration (browser, capabilities and preferences).
+ * The cache can be bounded: when more than {@link #getMaxSize()} drivers are cached, the least recently used ones are evicted. Drivers not used for {@link #getIdleTimeoutInSeconds()}
+ * or created more than {@link #getMaxAgeInSeconds()} ago can be evicted as well. Evicted drivers are handed to the eviction listener, which is expected to quit them. All limits are
+ * disabled by default.
+ * <p>
+ * Expiration is checked whenever the cache is used, and the driver being requested is never expired, so a browser is never evicted while being used. Defaults can be changed with the
+ * system properties {@link #MAX_SIZE_PROPERTY}, {@link #IDLE_TIMEOUT_PROPERTY} and {@link #MAX_AGE_PROPERTY}.
+ * </p>
+ */
+public class WebDriverCache {
+
+	/**
+	 * System property with the default maximum amount of live drivers per browser session. Default is 0 (unbounded)
+	 */
+	public static final String MAX_SIZE_PROPERTY = "fitnesse.selenium.cache.maxSize";
+	/**
+	 * System property with the default amount of seconds a driver can stay unused before being evicted. Default is 0 (disabled)
+	 */
+	public static final String IDLE_TIMEOUT_PROPERTY = "fitnesse.selenium.cache.idleTimeoutInSeconds";
+	/**
+	 * System property with the default amount of seconds a driver can live before being evicted. Default is 0 (disabled)
+	 */
+	public static final String MAX_AGE_PROPERTY = "fitnesse.selenium.cache.maxAgeInSeconds";
+
+	/**
+	 * Reasons a driver can be evicted
+	 */
+	public enum EvictionCause {
+		size,
+		idle,
+		age;
+	}
+
+	/**
+	 * Amount of drivers cached by all browser sessions
+	 */
+	private static final AtomicInteger LIVE_DRIVERS = new AtomicInteger();
+
+	private Logger logger = Logger.getLogger(WebDriverCache.class.getName());
+
+	/**
+	 * Access ordered, so iteration starts with the least recently used driver
+	 */
+	private final LinkedHashMap<Integer, CachedWebDriver> drivers = new LinkedHashMap<>(16, 0.75f, true);
+	private final Map<EvictionCause, Long> evictions = new LinkedHashMap<>();
+	private final BiConsumer<Integer, WebDriver> evictionListener;
+	private final LongSupplier nanoTime;
+	private long insertions;
+
+	private int maxSize = Math.max(Integer.getInteger(WebDriverCache.MAX_SIZE_PROPERTY, 0), 0);
+	private long idleTimeoutInSeconds = Math.max(Long.getLong(WebDriverCache.IDLE_TIMEOUT_PROPERTY, 0), 0);
+	private long maxAgeInSeconds = Math.max(Long.getLong(WebDriverCache.MAX_AGE_PROPERTY, 0), 0);
+
+	/**
+	 * @param evictionListener receives the id and driver of every evicted entry, outside of cache lock
+	 */
+	public WebDriverCache(BiConsumer<Integer, WebDriver> evictionListener) {
+		this(evictionListener, System::nanoTime);
+	}
+
+	/**
+	 * @param evictionListener receives the id and driver of every evicted entry, outside of cache lock
+	 * @param nanoTime clock used to expire drivers, see {@link System#nanoTime()}
+	 */
+	WebDriverCache(BiConsumer<Integer, WebDriver> evictionListener, LongSupplier nanoTime) {
+		this.evictionListener = evictionListener;
+		this.nanoTime = nanoTime;
+		for (EvictionCause cause : EvictionCause.values()) {
+			this.evictions.put(cause, 0L);
+		}
+	}
+
+	/**
+	 * @param key browser configuration id
+	 * @return cached driver, or null if there is none. Marks the driver as recently used
+	 */
+	public WebDriver get(Integer key) {
+		List<Map.Entry<Integer, WebDriver>> evicted = new ArrayList<>();
+		WebDriver driver;
+		synchronized (this) {
+			int previousSize = this.drivers.size();
+			CachedWebDriver cached = this.drivers.get(key);
+			if (cached != null) {
+				cached.lastAccess = this.nanoTime.getAsLong();
+			}
+			driver = cached == null ? null : cached.driver;
+			evictExpired(key, evicted);
+			WebDriverCache.LIVE_DRIVERS.addAndGet(this.drivers.size() - previousSize);
+		}
+		notifyEvicted(evicted);
+		return driver;
+	}
+
+	/**
+	 * Caches a driver, evicting least recently used and expired drivers if needed
+	 *
+	 * @param key browser configuration id
+	 * @param driver to be cached
+	 */
+	public void put(Integer key, WebDriver driver) {
+		List<Map.Entry<Integer, WebDriver>> evicted = new ArrayList<>();
+		synchronized (this) {
+			int previousSize = this.drivers.size();
+			CachedWebDriver previous = this.drivers.get(key);
+			this.drivers.put(key, new CachedWebDriver(driver, this.nanoTime.getAsLong(), previous == null ? this.insertions++ : previous.insertion));
+			if (previous != null && previous.driver != driver) {
+				evicted.add(new AbstractMap.SimpleImmutableEntry<>(key, previous.driver));
+			}
+			evictExpired(key, evicted);
+			evictExceeding(key, evicted);
+			WebDriverCache.LIVE_DRIVERS.addAndGet(this.drivers.size() - previousSize);
+		}
+		notifyEvicted(evicted);
+	}
+
+	/**
+	 * @param key browser configuration id
+	 * @return removed driver, or null if there was none. Removed drivers are not handed to the eviction listener
+	 */
+	public synchronized WebDriver remove(Integer key) {
+		CachedWebDriver cached = this.drivers.remove(key);
+		if (cached == null) {
+			return null;
+		}
+		WebDriverCache.LIVE_DRIVERS.decrementAndGet();
+		return cached.driver;
+	}
+
+	/**
+	 * @return amount of drivers cached by all browser sessions of this JVM
+	 */
+	public static int getLiveDrivers() {
+		return WebDriverCache.LIVE_DRIVERS.get();
+	}
+
+	/**
+	 * @return id of the driver cached first, or null if the cache is empty
+	 */
+	public synchronized Integer firstKey() {
+		return this.drivers.entrySet().stream().min((entry, other) -> Long.compare(entry.getValue().insertion, other.getValue().insertion)).map(Map.Entry::getKey).orElse(null);
+	}
+
+	/**
+	 * @return amount of cached drivers
+	 */
+	public synchronized int size() {
+		return this.drivers.size();
+	}
+
+	private void evictExpired(Integer keyInUse, List<Map.Entry<Integer, WebDriver>> evicted) {
+		if (this.idleTimeoutInSeconds <= 0 && this.maxAgeInSeconds <= 0) {
+			return;
+		}
+		long now = this.nanoTime.getAsLong();
+		Iterator<Map.Entry<Integer, CachedWebDriver>> iterator = this.drivers.entrySet().iterator();
+		while (iterator.hasNext()) {
+			Map.Entry<Integer, CachedWebDriver> entry = iterator.next();
+			if (Objects.equals(entry.getKey(), keyInUse)) {
+				continue;
+			}
+			EvictionCause cause = null;
+			if (this.idleTimeoutInSeconds > 0 && now - entry.getValue().lastAccess > TimeUnit.SECONDS.toNanos(this.idleTimeoutInSeconds)) {
+				cause = EvictionCause.idle;
+			} else if (this.maxAgeInSeconds > 0 && now - entry.getValue().creation > TimeUnit.SECONDS.toNanos(this.maxAgeInSeconds)) {
+				cause = EvictionCause.age;
+			}
+			if (cause != null) {
+				iterator.remove();
+				evict(cause, entry.getKey(), entry.getValue(), evicted);
+			}
+		}
+	}
+
+	private void evictExceeding(Integer keyInUse, List<Map.Entry<Integer, WebDriver>> evicted) {
+		if (this.maxSize <= 0) {
+			return;
+		}
+		Iterator<Map.Entry<Integer, CachedWebDriver>> iterator = this.drivers.entrySet().iterator();
+		while (this.drivers.size() > this.maxSize && iterator.hasNext()) {
+			Map.Entry<Integer, CachedWebDriver> entry = iterator.next();
+			if (!Objects.equals(entry.getKey(), keyInUse)) {
+				iterator.remove();
+				evict(EvictionCause.size, entry.getKey(), entry.getValue(), evicted);
+			}
+		}
+	}
+
+	private void evict(EvictionCause cause, Integer key, CachedWebDriver cached, List<Map.Entry<Integer, WebDriver>> evicted) {
+		this.evictions.merge(cause, 1L, Long::sum);
+		this.logger.fine(MessageFormat.format("Evicting driver {0} ({1})", key, cause));
+		evicted.add(new AbstractMap.SimpleImmutableEntry<>(key, cached.driver));
+	}
+
+	private void notifyEvicted(List<Map.Entry<Integer, WebDriver>> evicted) {
+		evicted.forEach(entry -> this.evictionListener.accept(entry.getKey(), entry.getValue()));
+	}
+
+	/**
+	 * @return how many drivers were evicted by each cause
+	 */
+	public synchronized Map<EvictionCause, Long> getEvictions() {
+		return new LinkedHashMap<>(this.evictions);
+	}
+
+	/**
+	 * @return maximum amount of live drivers, least recently used drivers are evicted when exceeded. 0 means unbounded
+	 */
+	public synchronized int getMaxSize() {
+		return this.maxSize;
+	}
+
+	/**
+	 * @param maxSize maximum amount of live drivers. Exceeding drivers are evicted the next time a driver is cached. 0 disables size eviction
+	 */
+	public synchronized void setMaxSize(int maxSize) {
+		this.maxSize = Math.max(maxSize, 0);
+	}
+
+	/**
+	 * @return amount of seconds a driver can stay unused before being evicted. 0 means disabled
+	 */
+	public synchronized long getIdleTimeoutInSeconds() {
+		return this.idleTimeoutInSeconds;
+	}
+
+	/**
+	 * @param idleTimeoutInSeconds amount of seconds a driver can stay unused before being evicted. 0 disables idle eviction
+	 */
+	public synchronized void setIdleTimeoutInSeconds(long idleTimeoutInSeconds) {
+		this.idleTimeoutInSeconds = Math.max(idleTimeoutInSeconds, 0);
+	}
+
+	/**
+	 * @return amount of seconds a driver can live before being evicted. 0 means disabled
+	 */
+	public synchronized long getMaxAgeInSeconds() {
+		return this.maxAgeInSeconds;
+	}
+
+	/**
+	 * @param maxAgeInSeconds amount of seconds a driver can live before being evicted. 0 disables age eviction
+	 */
+	public synchronized void setMaxAgeInSeconds(long maxAgeInSeconds) {
+		this.maxAgeInSeconds = Math.max(maxAgeInSeconds, 0);
+	}
+
+	private static class CachedWebDriver {
+
+		private final WebDriver driver;
+		private final long creation;
+		/**
+		 * Order the driver id was first cached, kept when the driver is replaced
+		 */
+		private final long insertion;
+		private volatile long lastAccess;
+
+		private CachedWebDriver(WebDriver driver, long creation, long insertion) {
+			this.driver = driver;
+			this.creation = creation;
+			this.insertion = insertion;
+			this.lastAccess = creation;
+		}
+	}
+}
@@ -1,12 +1,19 @@
 
 package com.github.andreptb.fitnesse.selenium;
 
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.function.BiConsumer;
 import java.util.function.BiFunction;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -31,6 +38,27 @@ public class WebDriverCapabilitiesHelper {
 	 */
 	private static final Pattern ENCODED_CONFIG_PATTERN = Pattern.compile("\\s*([^=]+)=['\"]([^'\"]+)['\"]");
 
+	/**
+	 * Maximum amount of parsed configurations kept by {@link #PARSED_CONFIGURATIONS}
+	 */
+	private static final int PARSED_CAPABILITIES_MAX_SIZE = 64;
+
+	/**
+	 * Parsed configurations by browser, capabilities and preferences. Shared since parsing and profile encoding don't depend on the browser session. Only immutable data is cached,
+	 * capabilities, browser options and profiles are created again for every session
+	 */
+	private static final Map<List<String>, ParsedConfiguration> PARSED_CONFIGURATIONS = Collections.synchronizedMap(new LinkedHashMap<List<String>, ParsedConfiguration>(16, 0.75f, true) {
+
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<List<String>, ParsedConfiguration> eldest) {
+			return size() > WebDriverCapabilitiesHelper.PARSED_CAPABILITIES_MAX_SIZE;
+		}
+	});
+
+	private Logger logger = Logger.getLogger(WebDriverCapabilitiesHelper.class.getName());
+
 	/**
 	 * Enum to inject preferences and capabilities according to the browser. Will inject default preferences or capabilities if applicable
 	 */
@@ -79,6 +107,9 @@ public class WebDriverCapabilitiesHelper {
 	 * key1="value1" key2="value with space 2" key3="value3"
 	 * </p>
 	 *
+	 * Parsed capabilities and preferences are cached by browser, capabilities and preferences, so each configuration is parsed only once. When connecting to remote drivers, firefox
+	 * profile is encoded only once as well, instead of every time a session is created. Returned capabilities are always new instances, so drivers can change them.
+	 *
 	 * @see CapabilitiesAndPreferencesInjector
 	 * @param browser Used to determine default configurations to inject
 	 * @param capabilities {@link String}
@@ -86,16 +117,29 @@ public class WebDriverCapabilitiesHelper {
 	 * @return capabilitiesInstance which is an instanceof {@link Capabilities}
 	 */
 	public DesiredCapabilities parse(String browser, String capabilities, String preferences) {
-		DesiredCapabilities desiredCapabilities = new DesiredCapabilities();
-		parseFromString(capabilities, desiredCapabilities::setCapability);
+		List<String> key = Arrays.asList(browser, capabilities, preferences);
+		ParsedConfiguration configuration = WebDriverCapabilitiesHelper.PARSED_CONFIGURATIONS.get(key);
+		if (configuration != null) {
+			return configuration.toCapabilities(browser);
+		}
+		Map<String, String> parsedCapabilities = new HashMap<>();
+		parseFromString(capabilities, parsedCapabilities::put);
 		Map<String, String> parsedPreferences = new HashMap<>();
-		parseFromString(capabilities, desiredCapabilities::setCapability);
 		parseFromString(preferences, parsedPreferences::put);
-		CapabilitiesAndPreferencesInjector entry = Optional.ofNullable(EnumUtils.getEnum(CapabilitiesAndPreferencesInjector.class, browser))
-			.orElse(EnumUtils.getEnum(CapabilitiesAndPreferencesInjector.class, StringUtils.deleteWhitespace(desiredCapabilities.getBrowserName())));
-		if (entry != null) {
-			entry.injector.accept(desiredCapabilities, parsedPreferences);
+		configuration = new ParsedConfiguration(parsedCapabilities, parsedPreferences, null);
+		DesiredCapabilities desiredCapabilities = configuration.toCapabilities(browser);
+		Object firefoxProfile = desiredCapabilities.getCapability(FirefoxDriver.PROFILE);
+		if (firefoxProfile instanceof FirefoxProfile && StringUtils.startsWithIgnoreCase(browser, WebDriverHelper.HTTP_PREFIX)) {
+			try {
+				// remote drivers receive the profile as a zipped and encoded string
+				String encodedFirefoxProfile = ((FirefoxProfile) firefoxProfile).toJson();
+				configuration = new ParsedConfiguration(parsedCapabilities, parsedPreferences, encodedFirefoxProfile);
+				desiredCapabilities.setCapability(FirefoxDriver.PROFILE, encodedFirefoxProfile);
+			} catch (IOException e) {
+				this.logger.log(Level.FINE, "Failed to encode firefox profile, it will be encoded on each session", e);
+			}
 		}
+		WebDriverCapabilitiesHelper.PARSED_CONFIGURATIONS.put(key, configuration);
 		return desiredCapabilities;
 	}
 
@@ -111,4 +155,39 @@ public class WebDriverCapabilitiesHelper {
 			}
 		}
 	}
+
+	/**
+	 * Immutable result of parsing a configuration
+	 */
+	private static class ParsedConfiguration {
+
+		private final Map<String, String> capabilities;
+		private final Map<String, String> preferences;
+		/**
+		 * Firefox profile of remote drivers, already zipped and encoded. Null if not applicable
+		 */
+		private final String encodedFirefoxProfile;
+
+		private ParsedConfiguration(Map<String, String> capabilities, Map<String, String> preferences, String encodedFirefoxProfile) {
+			this.capabilities = Collections.unmodifiableMap(new HashMap<>(capabilities));
+			this.preferences = Collections.unmodifiableMap(new HashMap<>(preferences));
+			this.encodedFirefoxProfile = encodedFirefoxProfile;
+		}
+
+		/**
+		 * @return new capabilities, with new browser options and profile instances
+		 */
+		private DesiredCapabilities toCapabilities(String browser) {
+			DesiredCapabilities desiredCapabilities = new DesiredCapabilities();
+			this.capabilities.forEach(desiredCapabilities::setCapability);
+			CapabilitiesAndPreferencesInjector entry = Optional.ofNullable(EnumUtils.getEnum(CapabilitiesAndPreferencesInjector.class, browser))
+				.orElse(EnumUtils.getEnum(CapabilitiesAndPreferencesInjector.class, StringUtils.deleteWhitespace(desiredCapabilities.getBrowserName())));
+			if (entry == CapabilitiesAndPreferencesInjector.firefox && this.encodedFirefoxProfile != null) {
+				desiredCapabilities.setCapability(FirefoxDriver.PROFILE, this.encodedFirefoxProfile);
+			} else if (entry != null) {
+				entry.injector.accept(desiredCapabilities, new HashMap<>(this.preferences));
+			}
+			return desiredCapabilities;
+		}
+	}
 }
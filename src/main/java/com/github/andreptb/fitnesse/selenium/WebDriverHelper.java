@@ -2,86 +2,179 @@
 package com.github.andreptb.fitnesse.selenium;
 
 import java.io.IOException;
-import java.net.MalformedURLException;
+import java.lang.reflect.Constructor;
 import java.net.URL;
 import java.text.MessageFormat;
-import java.time.Duration;
-import java.time.Instant;
-import java.util.LinkedHashMap;
-import java.util.Map;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.BiConsumer;
 import java.util.function.BiFunction;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
-import org.apache.commons.collections.MapUtils;
 import org.apache.commons.lang.ObjectUtils;
 import org.apache.commons.lang.exception.ExceptionUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.builder.HashCodeBuilder;
 import org.apache.commons.lang3.math.NumberUtils;
+import org.apache.commons.lang3.mutable.MutableInt;
 import org.apache.commons.lang3.mutable.MutableObject;
 import org.openqa.selenium.By;
 import org.openqa.selenium.Capabilities;
 import org.openqa.selenium.InvalidElementStateException;
 import org.openqa.selenium.NoSuchElementException;
+import org.openqa.selenium.NotFoundException;
 import org.openqa.selenium.OutputType;
+import org.openqa.selenium.StaleElementReferenceException;
 import org.openqa.selenium.TakesScreenshot;
 import org.openqa.selenium.TimeoutException;
 import org.openqa.selenium.UnhandledAlertException;
 import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
 import org.openqa.selenium.WebElement;
+import org.openqa.selenium.remote.HttpCommandExecutor;
 import org.openqa.selenium.remote.RemoteWebDriver;
 import org.openqa.selenium.remote.ScreenshotException;
-import org.openqa.selenium.support.ui.ExpectedCondition;
 import org.openqa.selenium.support.ui.UnexpectedTagNameException;
-import org.openqa.selenium.support.ui.WebDriverWait;
-import org.reflections.Reflections;
 
 import com.github.andreptb.fitnesse.selenium.SeleniumLocatorParser.WebElementSelector;
 import com.github.andreptb.fitnesse.util.FitnesseMarkup;
+import com.github.andreptb.fitnesse.util.FitnesseMarkup.Expectation;
 
 /**
  * Utility class that wraps {@link WebDriver} instances. Each {@link #connect(String, String, String)} call
  * will associate a working instance of {@link WebDriver} and will be used until {@link #quit()} is used or another {@link #connect(String, String, String)}
+ * <p>
+ * Each instance represents a browser session (see {@link WebDriverSessionContext}) and can be safely shared between threads, although commands of the same session
+ * are expected to run one at a time.
+ * </p>
  */
 public class WebDriverHelper {
 
 	/**
 	 * HTTP scheme prefix, to detect remote DRIVER
 	 */
-	private static final String HTTP_PREFIX = "http";
+	static final String HTTP_PREFIX = "http";
 
 	private static final String UNDEFINED_VALUE = "<<undefined_value>>";
 
+	/**
+	 * System property with the default maximum amount of screenshots taken after failures in the same page, see {@link #setMaxScreenshotsPerPage(int)}
+	 */
+	public static final String MAX_SCREENSHOTS_PER_PAGE_PROPERTY = "fitnesse.selenium.screenshot.maxPerPage";
+
+	/**
+	 * Name under which browser connections are recorded, see {@link #getMetrics()}
+	 */
+	private static final String CONNECT_COMMAND = "startBrowser";
+
+	/**
+	 * Name under which browser quits are recorded, see {@link FlightRecorderEvents}
+	 */
+	private static final String QUIT_COMMAND = "quitBrowser";
+
+	/**
+	 * Outcomes of commands, see {@link FlightRecorderEvents.EventType#command}
+	 */
+	private static final String OUTCOME_SUCCESS = "success";
+	private static final String OUTCOME_TIMEOUT = "timeout";
+	private static final String OUTCOME_FAILURE = "failure";
+
+	/**
+	 * Failures retried while waiting for elements, same as the ones ignored by {@link org.openqa.selenium.support.ui.WebDriverWait} plus common failures of elements still being rendered
+	 */
+	private static final List<Class<? extends RuntimeException>> IGNORED_WAIT_EXCEPTIONS = Arrays.asList(NotFoundException.class, InvalidElementStateException.class, UnhandledAlertException.class, UnexpectedTagNameException.class);
+
+	/**
+	 * Resolves local driver implementations. Shared so implementations are resolved only once per JVM
+	 */
+	private static final WebDriverRegistry DRIVER_REGISTRY = new WebDriverRegistry();
+
+	/**
+	 * Standby drivers, shared so browsers launched in background can be used by any table
+	 */
+	private static final WebDriverPool DRIVER_POOL = new WebDriverPool();
+
+	/**
+	 * HTTP connections to remote browsers, shared by all browser sessions
+	 */
+	private static final PooledHttpClientFactory HTTP_CLIENT_FACTORY = new PooledHttpClientFactory();
+
+	/**
+	 * Command latency statistics, shared so all browser sessions are accounted
+	 */
+	private static final CommandMetrics METRICS = new CommandMetrics();
+
+	/**
+	 * Publishes {@link #METRICS} through JMX and, if configured, a Prometheus text file
+	 */
+	private static final MetricsExporter METRICS_EXPORTER = new MetricsExporter(WebDriverHelper.METRICS, WebDriverHelper.HTTP_CLIENT_FACTORY);
+
+	/**
+	 * Client of the local browser daemon, null unless {@link BrowserDaemon#DIRECTORY_PROPERTY} is set
+	 */
+	private static final BrowserDaemonClient DAEMON_CLIENT = BrowserDaemonClient.fromSystemProperties(WebDriverHelper.HTTP_CLIENT_FACTORY);
+
+	/**
+	 * Writes screenshots of failures in background, null unless {@link ScreenshotWriter#DIRECTORY_PROPERTY} is set
+	 */
+	private static final ScreenshotWriter SCREENSHOT_WRITER = ScreenshotWriter.fromSystemProperties(WebDriverHelper.METRICS);
+
 	private Logger logger = Logger.getLogger(WebDriverHelper.class.getName());
 	private SeleniumLocatorParser parser = new SeleniumLocatorParser();
 	private FitnesseMarkup fitnesseMarkup = new FitnesseMarkup();
 	private WebDriverCapabilitiesHelper capabilitiesHelper = new WebDriverCapabilitiesHelper();
-	private Map<Integer, WebDriver> driverCache = new LinkedHashMap<>();
-	private Integer currentDriverId;
+	private WebDriverCache driverCache = new WebDriverCache(this::release);
+	private volatile Integer currentDriverId;
+	/**
+	 * @see #setTimeoutInMillis(long)
+	 */
+	private volatile long timeoutInMillis = TimeUnit.SECONDS.toMillis(20);
+
 	/**
-	 * @see #setTimeoutInSeconds(int)
+	 * @see #setWaitStrategy(WaitStrategy)
 	 */
-	private int timeoutInSeconds = 20;
+	private volatile WaitStrategy waitStrategy = WaitStrategy.fromSystemProperties();
 
 	/**
-	 * @see #getLastActionDurationInSeconds()
+	 * @see #getLastActionDurationInNanos()
 	 */
-	private long lastActionDurationInSeconds;
+	private volatile long lastActionDurationInNanos;
 
 	/**
 	 * @see #setStopTestOnFirstFailure(boolean)
 	 */
-	private boolean stopTestOnFirstFailure;
+	private volatile boolean stopTestOnFirstFailure;
 
 	/**
 	 * @see #setTakeScreenshotOnFailure(boolean)
 	 */
-	private boolean takeScreenshotOnFailure = true;
+	private volatile boolean takeScreenshotOnFailure = true;
+
+	private volatile String dryRunWindow;
+
+	/**
+	 * @see #getCircuitBreaker()
+	 */
+	private final WaitCircuitBreaker circuitBreaker = new WaitCircuitBreaker();
 
-	private String dryRunWindow;
+	/**
+	 * @see #getElementCache()
+	 */
+	private final WebElementCache elementCache = new WebElementCache();
+
+	/**
+	 * @see #setMaxScreenshotsPerPage(int)
+	 */
+	private volatile int maxScreenshotsPerPage = Math.max(Integer.getInteger(WebDriverHelper.MAX_SCREENSHOTS_PER_PAGE_PROPERTY, 0), 0);
+
+	private final AtomicInteger screenshotsInPage = new AtomicInteger();
+
+	private volatile String currentPage;
 
 	/**
 	 * Creates a {@link WebDriver} instance with desired browser and capabilities. Capabilities should follow a key/value format
@@ -93,60 +186,88 @@ public class WebDriverHelper {
 	 * @throws ReflectiveOperationException if remote driver class cannot be instantiated
 	 * @throws IOException if IO error occurs if invalid URL is used when connecting to remote drivers
 	 */
-	public void connect(String browser, String capabilities, String preferences) throws ReflectiveOperationException, IOException {
+	public synchronized void connect(String browser, String capabilities, String preferences) throws ReflectiveOperationException, IOException {
 		int driverId = new HashCodeBuilder().append(browser).append(capabilities).append(preferences).toHashCode();
 		WebDriver driver = this.driverCache.get(driverId);
 		if (isBrowserAvailable(driver)) {
 			return;
 		}
 		quit(driverId);
-		this.driverCache.put(driverId, createDriverConnection(browser, capabilities, preferences));
+		long start = System.nanoTime();
+		FlightRecorderEvents.Event event = FlightRecorderEvents.begin(FlightRecorderEvents.EventType.browser);
+		String previousCommand = WireCommandTracer.enterCommand(WebDriverHelper.CONNECT_COMMAND);
+		try {
+			this.driverCache.put(driverId, WebDriverHelper.DRIVER_POOL.acquire(driverId, () -> createDriverConnection(driverId, browser, capabilities, preferences)));
+		} finally {
+			WebDriverHelper.METRICS.get(WebDriverHelper.CONNECT_COMMAND).record(System.nanoTime() - start);
+			event.commit(WebDriverHelper.CONNECT_COMMAND, browser, driverId);
+			WireCommandTracer.exitCommand(WebDriverHelper.CONNECT_COMMAND, previousCommand, start);
+		}
 		this.currentDriverId = driverId;
 	}
 
-	private WebDriver createDriverConnection(String browser, String capabilities, String preferences) throws MalformedURLException, ReflectiveOperationException {
+	private WebDriver createDriverConnection(Integer driverId, String browser, String capabilities, String preferences) throws IOException, ReflectiveOperationException {
 		WebDriver driver = null;
 		String cleanedBrowser = StringUtils.deleteWhitespace(this.parser.parse(browser).getOriginalSelector());
 		Capabilities parsedCapabilities = this.capabilitiesHelper.parse(cleanedBrowser, this.fitnesseMarkup.clean(capabilities), this.fitnesseMarkup.clean(preferences));
 		if (StringUtils.startsWithIgnoreCase(cleanedBrowser, WebDriverHelper.HTTP_PREFIX)) {
-			driver = new RemoteWebDriver(new URL(cleanedBrowser), parsedCapabilities);
+			driver = new RemoteWebDriver(WireCommandTracer.instrument(new HttpCommandExecutor(Collections.emptyMap(), new URL(cleanedBrowser), WebDriverHelper.HTTP_CLIENT_FACTORY)), parsedCapabilities);
 		} else {
-			Reflections reflections = new Reflections(WebDriver.class.getPackage().getName());
-			for (Class<? extends WebDriver> availableDriver : reflections.getSubTypesOf(WebDriver.class)) {
-				if (StringUtils.startsWithIgnoreCase(availableDriver.getSimpleName(), cleanedBrowser)) {
-					driver = availableDriver.getConstructor(Capabilities.class).newInstance(parsedCapabilities);
-					break;
-				}
+			Optional<Constructor<? extends WebDriver>> driverConstructor = WebDriverHelper.DRIVER_REGISTRY.resolve(cleanedBrowser);
+			Optional<URL> daemonServiceUrl = driverConstructor.flatMap(constructor -> WebDriverHelper.DAEMON_CLIENT == null ? Optional.empty() : WebDriverHelper.DAEMON_CLIENT.serviceUrl(constructor.getDeclaringClass()));
+			if (daemonServiceUrl.isPresent()) {
+				driver = WebDriverHelper.DAEMON_CLIENT.connect(driverId, daemonServiceUrl.get(), parsedCapabilities);
+			} else if (driverConstructor.isPresent()) {
+				driver = driverConstructor.get().newInstance(parsedCapabilities);
 			}
 		}
 		if (driver == null) {
 			throw new StopTestWithWebDriverException(MessageFormat.format("No suitable implementation found for [{0}] with capabilites: [{1}]", browser, capabilities));
 		}
-		return driver;
+		return WireCommandTracer.instrument(driver);
 	}
 
 	/**
-	 * Quietly quits the current browser instance
+	 * Quietly quits the current browser instance in background, see {@link WebDriverQuitter}. If browser pooling is enabled, the browser may be kept as standby instead, see {@link WebDriverPool}. Browsers launched by the
+	 * browser daemon are detached instead, see {@link BrowserDaemonClient}
 	 */
-	public void quit() {
-		if (quit(this.currentDriverId) && MapUtils.isNotEmpty(this.driverCache)) {
-			this.currentDriverId = this.driverCache.keySet().stream().findFirst().get();
+	public synchronized void quit() {
+		if (quit(this.currentDriverId)) {
+			this.currentDriverId = this.driverCache.firstKey();
 		}
 	}
 
 	private boolean quit(Integer driverId) {
-		try {
-			this.driverCache.remove(driverId).quit();
-			return true;
-		} catch (Exception e) {
-			// quits quietly
+		if (driverId == null) {
+			return false;
+		}
+		FlightRecorderEvents.Event event = FlightRecorderEvents.begin(FlightRecorderEvents.EventType.browser);
+		WebDriver driver = this.driverCache.remove(driverId);
+		release(driverId, driver);
+		if (driver != null) {
+			event.commit(WebDriverHelper.QUIT_COMMAND, driver.getClass().getName(), driverId);
 		}
-		return false;
+		return driver != null;
 	}
 
-	public boolean doWhenAvailable(String from, BiConsumer<WebDriver, WebElementSelector> callback) {
-		getWhenAvailable(from, (driver, selector) -> {
-			callback.accept(driver, selector);
+	private void release(Integer driverId, WebDriver driver) {
+		awaitScreenshot(driver);
+		this.elementCache.release(driver);
+		if (driver instanceof BrowserDaemonClient.DaemonWebDriver) {
+			WebDriverHelper.DAEMON_CLIENT.detach(driverId, driver);
+		} else {
+			WebDriverHelper.DRIVER_POOL.release(driverId, driver);
+		}
+	}
+
+	public boolean doWhenAvailable(String command, String from, BiConsumer<WebDriver, WebElementSelector> callback) {
+		getWhenAvailable(command, from, (driver, selector) -> {
+			try {
+				callback.accept(driver, selector);
+			} finally {
+				// actions may navigate or change the page
+				this.elementCache.invalidate(driver);
+			}
 			return StringUtils.stripToNull(selector.getExpectedValue());
 		});
 		return true;
@@ -178,60 +299,135 @@ public class WebDriverHelper {
 	 * <ul>
 	 * <li>Builds the context and passes the control to the callback (see {@link SeleniumLocatorParser#parse(String)})</li>
 	 * <li>If the callback is unable to find a {@link WebElement} to run commmands, or fails for any other reason, the callback will be reinvoked until a positive return happens or
-	 * {@link #getTimeoutInSeconds()} is reached</li>
+	 * {@link #getTimeoutInMillis()} is reached</li>
 	 * <li>If the callback returns positively and the result don't match with {@link WebElementSelector#getExpectedValue()}, the callback will be reinvoked until the value matches or
-	 * {@link #getTimeoutInSeconds()} is reached</li>
+	 * {@link #getTimeoutInMillis()} is reached</li>
 	 * <li>If the callback returns positively and the result match with {@link WebElementSelector#getExpectedValue()} (or {@link WebElementSelector#getExpectedValue()} is empty), the result will be
 	 * returned</li>
 	 * </ul>
 	 *
-	 * @param from selenium selector received by the fixture@param from
+	 * @param command name under which the command latency is recorded, see {@link #getMetrics()}
+	 * @param from selenium selector received by the fixture
 	 * @param callback The callback to be invoked with {@link WebElementSelector} and {@link WebDriver}
 	 * @return the value returned from the callback
 	 * @throws StopTestWithWebDriverException if {@link #isBrowserAvailable()} returns false or if {@link #getStopTestOnFirstFailure()} is true and any failure occurs
 	 */
-	public String getWhenAvailable(String from, BiFunction<WebDriver, WebElementSelector, String> callback) {
-		this.lastActionDurationInSeconds = NumberUtils.LONG_ZERO;
+	public String getWhenAvailable(String command, String from, BiFunction<WebDriver, WebElementSelector, String> callback) {
+		this.lastActionDurationInNanos = NumberUtils.LONG_ZERO;
 		WebElementSelector locator = this.parser.parse(this.fitnesseMarkup.clean(from));
-		WebDriver driver = this.driverCache.get(this.currentDriverId);
-		if (!isBrowserAvailable()) {
+		WebDriver driver = currentDriver();
+		if (!isBrowserAvailable(driver)) {
 			throw new StopTestWithWebDriverException("No browser instance available, please check if 'start browser' command completed successfuly");
 		}
 		MutableObject<String> result = new MutableObject<>();
+		// parsed once, compared with the value obtained by each attempt
+		Expectation expectation = this.fitnesseMarkup.expectation(locator.getExpectedValue());
+		long commandStart = System.nanoTime();
+		String previousCommand = WireCommandTracer.enterCommand(command);
 		try {
 			if (StringUtils.isNotBlank(this.dryRunWindow)) {
 				return respondForDryRun(driver, locator);
 			}
-			Instant startInstant = Instant.now();
-			WebDriverWait wait = new WebDriverWait(driver, this.timeoutInSeconds);
-			wait.ignoring(InvalidElementStateException.class);
-			wait.ignoring(UnhandledAlertException.class);
-			wait.ignoring(UnexpectedTagNameException.class);
+			CommandMetrics.CommandStats stats = WebDriverHelper.METRICS.get(command);
+			long start = System.nanoTime();
+			FlightRecorderEvents.Event event = FlightRecorderEvents.begin(FlightRecorderEvents.EventType.command);
+			MutableInt polls = new MutableInt();
+			String outcome = WebDriverHelper.OUTCOME_FAILURE;
+			String openReason = this.circuitBreaker.getOpenReason();
+			WebDriverHelper.METRICS.waitStarted();
 			try {
-				wait.until((ExpectedCondition<String>) waitingDriver -> {
-					evaluate(waitingDriver, locator, callback, false, result);
-					return result.getValue();
-				});
+				// when the circuit breaker is open, the command is evaluated once, without waiting
+				waitUntilEvaluated(driver, locator, expectation, callback, result, stats, polls, openReason == null ? this.circuitBreaker.limitTimeout(this.timeoutInMillis) : 0);
+				outcome = WebDriverHelper.OUTCOME_SUCCESS;
+				this.circuitBreaker.recordSuccess();
 			} catch (TimeoutException e) {
+				stats.recordTimeout();
+				outcome = WebDriverHelper.OUTCOME_TIMEOUT;
+				if (openReason == null) {
+					this.circuitBreaker.recordTimeout(System.nanoTime() - start);
+				}
 				if (this.stopTestOnFirstFailure) {
-					throw e;
+					throw openReason == null ? e : circuitBreakerException(openReason, e);
+				}
+				try {
+					evaluate(driver, locator, expectation, callback, true, result);
+				} catch (RuntimeException evaluationException) {
+					throw openReason == null ? evaluationException : circuitBreakerException(openReason, evaluationException);
 				}
-				evaluate(driver, locator, callback, true, result);
 			} finally {
-				this.lastActionDurationInSeconds = Duration.between(startInstant, Instant.now()).getSeconds();
+				WebDriverHelper.METRICS.waitFinished();
+				this.lastActionDurationInNanos = System.nanoTime() - start;
+				stats.record(this.lastActionDurationInNanos);
+				event.commit(command, locator.getOriginalSelector(), polls.intValue(), outcome);
 			}
 		} catch (RuntimeException e) {
 			throw handleSeleniumException(e, driver);
+		} finally {
+			WireCommandTracer.exitCommand(command, previousCommand, commandStart);
 		}
 		return result.getValue();
 	}
 
+	/**
+	 * Evaluates the callback until it succeeds, waiting between attempts as defined by {@link #getWaitStrategy()}. Failures listed in {@link #IGNORED_WAIT_EXCEPTIONS} are retried until
+	 * {@link #getTimeoutInMillis()} is reached, other failures are thrown right away
+	 */
+	private void waitUntilEvaluated(WebDriver driver, WebElementSelector locator, Expectation expectation, BiFunction<WebDriver, WebElementSelector, String> callback, MutableObject<String> result, CommandMetrics.CommandStats stats, MutableInt polls, long timeoutInMillis) {
+		WaitStrategy strategy = this.waitStrategy;
+		long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutInMillis);
+		RuntimeException lastException = null;
+		boolean staleElementRetried = false;
+		for (int attempt = 1;; attempt++) {
+			stats.recordPoll(attempt);
+			polls.increment();
+			try {
+				evaluate(driver, locator, expectation, callback, false, result);
+				return;
+			} catch (StaleElementReferenceException e) {
+				// page changed since elements were kept, searching them again right away
+				this.elementCache.invalidate(driver);
+				if (staleElementRetried) {
+					throw e;
+				}
+				staleElementRetried = true;
+				continue;
+			} catch (RuntimeException e) {
+				// next attempt searches the element again, the one kept may not be the one the locator finds now
+				this.elementCache.remove(driver, locator.getBy());
+				if (WebDriverHelper.IGNORED_WAIT_EXCEPTIONS.stream().noneMatch(ignored -> ignored.isInstance(e))) {
+					throw e;
+				}
+				lastException = e;
+			}
+			long remainingMillis = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+			if (remainingMillis <= 0) {
+				throw new TimeoutException(MessageFormat.format("Timed out after {0} milliseconds", timeoutInMillis), lastException);
+			}
+			try {
+				strategy.await(driver, locator, attempt, remainingMillis);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new WebDriverException(e);
+			}
+		}
+	}
+
+	/**
+	 * @return failure of a command not waited because {@link #getCircuitBreaker()} is open, telling why
+	 */
+	private static TimeoutException circuitBreakerException(String openReason, Throwable failure) {
+		Throwable cause = Optional.ofNullable(ExceptionUtils.getRootCause(failure)).orElse(failure);
+		return new TimeoutException(MessageFormat.format("{0} ({1})", StringUtils.substringBefore(cause.getMessage(), StringUtils.LF), openReason));
+	}
+
 	private RuntimeException handleSeleniumException(RuntimeException originalException, WebDriver driver) {
 
 		String screenshotData = retrieveScreenshotPathFromException(originalException, driver);
 		Throwable cause = Optional.ofNullable(ExceptionUtils.getRootCause(originalException)).orElse(originalException);
-		String exceptionMessage = this.fitnesseMarkup.exceptionMessage(StringUtils.substringBefore(cause.getMessage(), StringUtils.LF), screenshotData);
-		this.logger.log(Level.INFO, exceptionMessage, cause);
+		String causeMessage = StringUtils.substringBefore(cause.getMessage(), StringUtils.LF);
+		String exceptionMessage = this.fitnesseMarkup.exceptionMessage(causeMessage, screenshotData);
+		// screenshot data is left out of the log, embedded screenshots are several megabytes long
+		this.logger.log(Level.INFO, causeMessage, cause);
 		try {
 			Throwable convertedException = this.stopTestOnFirstFailure ? new StopTestWithWebDriverException(exceptionMessage, cause) : cause.getClass().getConstructor(String.class).newInstance(exceptionMessage);
 			convertedException.setStackTrace(cause.getStackTrace());
@@ -243,26 +439,60 @@ public class WebDriverHelper {
 	}
 
 	private String retrieveScreenshotPathFromException(Throwable originalException, WebDriver driver) {
-		if (!this.takeScreenshotOnFailure) {
+		if (!this.takeScreenshotOnFailure || (this.maxScreenshotsPerPage > 0 && this.screenshotsInPage.incrementAndGet() > this.maxScreenshotsPerPage)) {
 			return StringUtils.EMPTY;
 		}
+		if (WebDriverHelper.SCREENSHOT_WRITER != null && (originalException instanceof ScreenshotException || driver instanceof TakesScreenshot)) {
+			return WebDriverHelper.SCREENSHOT_WRITER.submit(driver, originalException instanceof ScreenshotException ? ((ScreenshotException) originalException).getBase64EncodedScreenshot() : null);
+		}
+		long start = System.nanoTime();
+		FlightRecorderEvents.Event event = FlightRecorderEvents.begin(FlightRecorderEvents.EventType.screenshot);
 		try {
+			String screenshot = null;
 			if (originalException instanceof ScreenshotException) {
-				return ((ScreenshotException) originalException).getBase64EncodedScreenshot();
+				screenshot = ((ScreenshotException) originalException).getBase64EncodedScreenshot();
 			} else if (driver instanceof TakesScreenshot) {
-				return ((TakesScreenshot) driver).getScreenshotAs(OutputType.BASE64);
+				screenshot = ((TakesScreenshot) driver).getScreenshotAs(OutputType.BASE64);
+			}
+			if (screenshot != null) {
+				event.commit(CommandMetrics.SCREENSHOT, WebDriverHelper.METRICS.recordScreenshot(screenshot));
+				return screenshot;
 			}
 		} catch (Exception se) {
 			this.logger.log(Level.FINE, "Failed to retrieve screenshot after failure", se);
+		} finally {
+			WebDriverHelper.METRICS.get(CommandMetrics.SCREENSHOT).record(System.nanoTime() - start);
 		}
 		return StringUtils.EMPTY;
 	}
 
-	private void evaluate(WebDriver driver, WebElementSelector locator, BiFunction<WebDriver, WebElementSelector, String> callback, boolean disableValueCheck, MutableObject<String> resultHolder) {
+	/**
+	 * Takes a screenshot of the browser. Unless screenshots are embedded in the test result (see {@link ScreenshotWriter#DIRECTORY_PROPERTY}), the screenshot is streamed as bytes
+	 * into a file
+	 *
+	 * @param driver browser to take the screenshot from
+	 * @param command command taking the screenshot, recorded in flight recorder events
+	 * @return URL of the screenshot file or screenshot data in base64 format, null if the browser can't take screenshots
+	 * @throws IOException if the screenshot file can't be written
+	 */
+	public String takeScreenshot(WebDriver driver, String command) throws IOException {
+		if (!(driver instanceof TakesScreenshot)) {
+			return null;
+		}
+		if (WebDriverHelper.SCREENSHOT_WRITER != null) {
+			return WebDriverHelper.SCREENSHOT_WRITER.take(driver, command);
+		}
+		FlightRecorderEvents.Event event = FlightRecorderEvents.begin(FlightRecorderEvents.EventType.screenshot);
+		String screenshot = ((TakesScreenshot) driver).getScreenshotAs(OutputType.BASE64);
+		event.commit(command, WebDriverHelper.METRICS.recordScreenshot(screenshot));
+		return screenshot;
+	}
+
+	private void evaluate(WebDriver driver, WebElementSelector locator, Expectation expectation, BiFunction<WebDriver, WebElementSelector, String> callback, boolean disableValueCheck, MutableObject<String> resultHolder) {
 		String result = StringUtils.stripToEmpty(callback.apply(driver, locator));
 		resultHolder.setValue(result);
 		String expectedValue = locator.getExpectedValue();
-		if (disableValueCheck || StringUtils.isBlank(expectedValue) || this.fitnesseMarkup.compare(expectedValue, result)) {
+		if (disableValueCheck || StringUtils.isBlank(expectedValue) || expectation.matches(result)) {
 			return;
 		}
 		throw new NoSuchElementException(MessageFormat.format("Element with unexpected value [Expected: {0}, Obtained: {1}]", expectedValue, result));
@@ -272,10 +502,25 @@ public class WebDriverHelper {
 	 * @return if browser is available and can be used
 	 */
 	public boolean isBrowserAvailable() {
-		return isBrowserAvailable(this.driverCache.get(this.currentDriverId));
+		return isBrowserAvailable(currentDriver());
+	}
+
+	private WebDriver currentDriver() {
+		Integer driverId = this.currentDriverId;
+		return awaitScreenshot(driverId == null ? null : this.driverCache.get(driverId));
+	}
+
+	/**
+	 * Waits for the screenshot being taken in background, see {@link ScreenshotWriter}
+	 */
+	private static WebDriver awaitScreenshot(WebDriver driver) {
+		if (WebDriverHelper.SCREENSHOT_WRITER != null) {
+			WebDriverHelper.SCREENSHOT_WRITER.await(driver);
+		}
+		return driver;
 	}
 
-	private boolean isBrowserAvailable(WebDriver driver) {
+	static boolean isBrowserAvailable(WebDriver driver) {
 		// http://stackoverflow.com/questions/27616470/webdriver-how-to-check-if-browser-still-exists-or-still-open
 		String driverString = ObjectUtils.toString(driver);
 		return StringUtils.isNotBlank(driverString) && !StringUtils.containsIgnoreCase(driverString, "null");
@@ -285,14 +530,78 @@ public class WebDriverHelper {
 	 * @param timeoutInSeconds Timeout to wait for elements to be present. Default is 20 seconds
 	 */
 	public void setTimeoutInSeconds(int timeoutInSeconds) {
-		this.timeoutInSeconds = timeoutInSeconds;
+		setTimeoutInMillis(TimeUnit.SECONDS.toMillis(timeoutInSeconds));
 	}
 
 	/**
-	 * @return Timeout to wait for elements to be present. Default is 20 seconds
+	 * @return Timeout to wait for elements to be present, rounded down to seconds. Default is 20 seconds
 	 */
 	public int getTimeoutInSeconds() {
-		return this.timeoutInSeconds;
+		return (int) TimeUnit.MILLISECONDS.toSeconds(this.timeoutInMillis);
+	}
+
+	/**
+	 * @param timeoutInMillis Timeout to wait for elements to be present. Default is 20000 milliseconds
+	 */
+	public void setTimeoutInMillis(long timeoutInMillis) {
+		this.timeoutInMillis = timeoutInMillis;
+	}
+
+	/**
+	 * @return Timeout to wait for elements to be present. Default is 20000 milliseconds
+	 */
+	public long getTimeoutInMillis() {
+		return this.timeoutInMillis;
+	}
+
+	/**
+	 * @param waitStrategy defines how long to wait between attempts while waiting for elements. Default is configured by {@link WaitStrategy#DEFAULT_STRATEGY_PROPERTY}. Note that
+	 *            {@link WaitStrategy.BuiltIn#mutation} changes the script timeout of the browser, see {@link MutationObserverWait}
+	 */
+	public void setWaitStrategy(WaitStrategy waitStrategy) {
+		this.waitStrategy = waitStrategy;
+	}
+
+	/**
+	 * @return defines how long to wait between attempts while waiting for elements
+	 */
+	public WaitStrategy getWaitStrategy() {
+		return this.waitStrategy;
+	}
+
+	/**
+	 * @return amount of standby browsers kept for each browser configuration, see {@link WebDriverPool#getMinIdle()}
+	 */
+	public int getBrowserPoolMinIdle() {
+		return WebDriverHelper.DRIVER_POOL.getMinIdle();
+	}
+
+	/**
+	 * @param minIdle amount of standby browsers kept for each browser configuration, see {@link WebDriverPool#setMinIdle(int)}
+	 */
+	public void setBrowserPoolMinIdle(int minIdle) {
+		WebDriverHelper.DRIVER_POOL.setMinIdle(minIdle);
+	}
+
+	/**
+	 * @return maximum amount of standby browsers kept for each browser configuration, see {@link WebDriverPool#getMaxSize()}
+	 */
+	public int getBrowserPoolMaxSize() {
+		return WebDriverHelper.DRIVER_POOL.getMaxSize();
+	}
+
+	/**
+	 * @param maxSize maximum amount of standby browsers kept for each browser configuration, see {@link WebDriverPool#setMaxSize(int)}
+	 */
+	public void setBrowserPoolMaxSize(int maxSize) {
+		WebDriverHelper.DRIVER_POOL.setMaxSize(maxSize);
+	}
+
+	/**
+	 * @return live browsers of this session, bounded and evicted as configured, see {@link WebDriverCache}
+	 */
+	public WebDriverCache getBrowserCache() {
+		return this.driverCache;
 	}
 
 	/**
@@ -310,7 +619,71 @@ public class WebDriverHelper {
 	 * @return Seconds the last action took to complete
 	 */
 	public long getLastActionDurationInSeconds() {
-		return this.lastActionDurationInSeconds;
+		return TimeUnit.NANOSECONDS.toSeconds(this.lastActionDurationInNanos);
+	}
+
+	/**
+	 * @return Nanoseconds the last action took to complete
+	 */
+	public long getLastActionDurationInNanos() {
+		return this.lastActionDurationInNanos;
+	}
+
+	/**
+	 * Searches the element, reusing the element found by previous commands with the same locator if any, see {@link WebElementCache}
+	 *
+	 * @param driver browser to search the element in
+	 * @param locator element locator
+	 * @return element found
+	 */
+	public WebElement findElement(WebDriver driver, WebElementSelector locator) {
+		return this.elementCache.find(driver, locator.getBy());
+	}
+
+	/**
+	 * @return elements kept by commands of this session, see {@link #findElement(WebDriver, WebElementSelector)}
+	 */
+	public WebElementCache getElementCache() {
+		return this.elementCache;
+	}
+
+	/**
+	 * @return breaker skipping waits when commands keep timing out
+	 */
+	public WaitCircuitBreaker getCircuitBreaker() {
+		return this.circuitBreaker;
+	}
+
+	/**
+	 * Must be called when a page starts running, so wire commands are grouped by page (see {@link WireCommandTracer}) and page limits of {@link #getCircuitBreaker()} are reset
+	 *
+	 * @param page full path of the page
+	 */
+	public void startPage(String page) {
+		if (!StringUtils.equals(this.currentPage, page)) {
+			this.currentPage = page;
+			this.screenshotsInPage.set(0);
+		}
+		this.circuitBreaker.startPage(page);
+		WireCommandTracer.startPage(page);
+	}
+
+	/**
+	 * @return latency statistics of all commands ran in this JVM
+	 */
+	public CommandMetrics getMetrics() {
+		return WebDriverHelper.METRICS;
+	}
+
+	public int getMaxScreenshotsPerPage() {
+		return this.maxScreenshotsPerPage;
+	}
+
+	/**
+	 * @param maxScreenshotsPerPage maximum screenshots taken after failures in the same page, 0 for no limit. Default is 0, can be changed with {@link #MAX_SCREENSHOTS_PER_PAGE_PROPERTY}
+	 */
+	public void setMaxScreenshotsPerPage(int maxScreenshotsPerPage) {
+		this.maxScreenshotsPerPage = Math.max(maxScreenshotsPerPage, 0);
 	}
 
 	public boolean getTakeScreenshotOnFailure() {
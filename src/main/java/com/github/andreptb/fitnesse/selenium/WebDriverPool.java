@@ -0,0 +1,294 @@
+package com.github.andreptb.fitnesse.selenium;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+
+/**
+ * Keeps pre-launched (standby) {@link WebDriver} instances, keyed by the same id {@link WebDriverHelper} uses to identify a browser configuration (browser, capabilities and preferences).
+ * When enabled, drivers are handed out from the standby drivers and a background task launches new ones until {@link #getMinIdle()} is reached again. Drivers returned with
+ * {@link #release(Integer, WebDriver)} are cleaned (cookies, storage and extra windows) and kept as standby instead of being quit, up to {@link #getMaxSize()} per configuration.
+ * <p>
+ * Pooling is disabled by default, in which case drivers are created when requested and quit when released. Defaults can be changed with the system properties {@link #MIN_IDLE_PROPERTY} and
+ * {@link #MAX_SIZE_PROPERTY}.
+ * </p>
+ */
+public class WebDriverPool {
+
+	/**
+	 * System property with the default amount of standby drivers to keep for each browser configuration
+	 */
+	public static final String MIN_IDLE_PROPERTY = "fitnesse.selenium.pool.minIdle";
+	/**
+	 * System property with the default maximum amount of standby drivers kept for each browser configuration
+	 */
+	public static final String MAX_SIZE_PROPERTY = "fitnesse.selenium.pool.maxSize";
+
+	/**
+	 * Page loaded in drivers returned to the pool
+	 */
+	private static final String BLANK_PAGE = "about:blank";
+
+	/**
+	 * Clears web storage of the current page. Fails silently since storage may not be available (blank pages, old browsers)
+	 */
+	private static final String CLEAR_STORAGE_SCRIPT = "try { window.localStorage.clear(); window.sessionStorage.clear(); } catch (e) {}";
+
+	/**
+	 * Creates a new driver for a browser configuration
+	 */
+	@FunctionalInterface
+	public interface WebDriverFactory {
+
+		WebDriver create() throws ReflectiveOperationException, IOException;
+	}
+
+	private Logger logger = Logger.getLogger(WebDriverPool.class.getName());
+
+	private final Map<Integer, Deque<WebDriver>> standbyDrivers = new ConcurrentHashMap<>();
+	private final Map<Integer, WebDriverFactory> factories = new ConcurrentHashMap<>();
+	private final Map<Integer, AtomicInteger> pendingLaunches = new ConcurrentHashMap<>();
+	private final ExecutorService launcher = Executors.newSingleThreadExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "fitnesse-selenium-pool");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	/**
+	 * Set by {@link #clear()}, once closed drivers are no longer kept nor launched
+	 */
+	private volatile boolean closed;
+	private volatile int minIdle = Math.max(Integer.getInteger(WebDriverPool.MIN_IDLE_PROPERTY, 0), 0);
+	private volatile int maxSize = Math.max(Integer.getInteger(WebDriverPool.MAX_SIZE_PROPERTY, this.minIdle), this.minIdle);
+
+	public WebDriverPool() {
+		// closed by the same hook draining quits, so standby drivers are quit before draining
+		WebDriverQuitter.beforeDrain(this::close);
+	}
+
+	/**
+	 * Hands out a standby driver for the configuration or, if none is available, creates a new one with <code>factory</code>. Triggers background launches so the configuration has
+	 * {@link #getMinIdle()} standby drivers again.
+	 *
+	 * @param key browser configuration id
+	 * @param factory used to create drivers for this configuration
+	 * @return driver ready to be used
+	 * @throws ReflectiveOperationException if driver class cannot be instantiated
+	 * @throws IOException if driver connection fails
+	 */
+	public WebDriver acquire(Integer key, WebDriverFactory factory) throws ReflectiveOperationException, IOException {
+		this.factories.put(key, factory);
+		WebDriver driver = pollStandbyDriver(key);
+		if (driver == null) {
+			driver = factory.create();
+		}
+		refill(key);
+		return driver;
+	}
+
+	private WebDriver pollStandbyDriver(Integer key) {
+		Deque<WebDriver> drivers = this.standbyDrivers.get(key);
+		WebDriver driver;
+		while (drivers != null && (driver = drivers.pollFirst()) != null) {
+			if (WebDriverHelper.isBrowserAvailable(driver)) {
+				return driver;
+			}
+			quietlyQuit(driver);
+		}
+		return null;
+	}
+
+	/**
+	 * Returns a driver to the pool. The driver will be cleaned and kept as standby if the configuration has less than {@link #getMaxSize()} standby drivers, otherwise it will be quit.
+	 *
+	 * @param key browser configuration id
+	 * @param driver to be returned
+	 */
+	public void release(Integer key, WebDriver driver) {
+		if (driver == null) {
+			return;
+		}
+		if (this.closed || !cleanup(driver) || !offerStandbyDriver(key, driver)) {
+			quietlyQuit(driver);
+		}
+		refill(key);
+	}
+
+	/**
+	 * Keeps the driver as standby, unless the configuration already has {@link #getMaxSize()} standby drivers or the pool is closed
+	 *
+	 * @return if the driver was kept
+	 */
+	private boolean offerStandbyDriver(Integer key, WebDriver driver) {
+		Deque<WebDriver> drivers = this.standbyDrivers.computeIfAbsent(key, k -> new ConcurrentLinkedDeque<>());
+		synchronized (lock(key)) {
+			if (this.closed || drivers.size() >= this.maxSize) {
+				return false;
+			}
+			return drivers.offerLast(driver);
+		}
+	}
+
+	/**
+	 * @return lock guarding standby drivers and pending launches of the configuration
+	 */
+	private AtomicInteger lock(Integer key) {
+		return this.pendingLaunches.computeIfAbsent(key, k -> new AtomicInteger());
+	}
+
+	/**
+	 * Cleans driver state so it can be reused by another test: closes extra windows, deletes cookies and clears web storage
+	 *
+	 * @param driver to be cleaned
+	 * @return if driver was cleaned successfuly and can be reused
+	 */
+	static boolean cleanup(WebDriver driver) {
+		try {
+			Set<String> windows = driver.getWindowHandles();
+			Iterator<String> windowIterator = windows.iterator();
+			String mainWindow = windowIterator.next();
+			while (windowIterator.hasNext()) {
+				driver.switchTo().window(windowIterator.next()).close();
+			}
+			driver.switchTo().window(mainWindow);
+			driver.manage().deleteAllCookies();
+			if (driver instanceof JavascriptExecutor) {
+				((JavascriptExecutor) driver).executeScript(WebDriverPool.CLEAR_STORAGE_SCRIPT);
+			}
+			driver.get(WebDriverPool.BLANK_PAGE);
+			return true;
+		} catch (Exception e) {
+			Logger.getLogger(WebDriverPool.class.getName()).log(Level.FINE, "Failed to clean driver, it won't be reused", e);
+		}
+		return false;
+	}
+
+	private void refill(Integer key) {
+		WebDriverFactory factory = this.factories.get(key);
+		if (factory == null || this.closed) {
+			return;
+		}
+		AtomicInteger pending = lock(key);
+		Deque<WebDriver> drivers = this.standbyDrivers.computeIfAbsent(key, k -> new ConcurrentLinkedDeque<>());
+		synchronized (pending) {
+			while (!this.closed && drivers.size() + pending.get() < Math.min(this.minIdle, this.maxSize)) {
+				pending.incrementAndGet();
+				try {
+					this.launcher.execute(() -> launch(key, factory, pending));
+				} catch (RejectedExecutionException e) {
+					// pool closed meanwhile
+					pending.decrementAndGet();
+					return;
+				}
+			}
+		}
+	}
+
+	private void launch(Integer key, WebDriverFactory factory, AtomicInteger pending) {
+		try {
+			WebDriver driver = factory.create();
+			// launches finishing after the pool is closed would leave browsers nobody quits
+			if (!offerStandbyDriver(key, driver)) {
+				quietlyQuit(driver);
+			}
+		} catch (Exception e) {
+			if (!this.closed) {
+				this.logger.log(Level.WARNING, "Failed to launch standby driver", e);
+			}
+		} finally {
+			pending.decrementAndGet();
+		}
+	}
+
+	/**
+	 * Closes the pool: cancels pending launches and quits all standby drivers, in background (see {@link WebDriverQuitter}). Launches already running quit their driver when they
+	 * finish and released drivers are quit from now on
+	 */
+	public void clear() {
+		this.closed = true;
+		this.launcher.shutdownNow();
+		this.standbyDrivers.forEach((key, drivers) -> {
+			List<WebDriver> closedDrivers = new ArrayList<>();
+			synchronized (lock(key)) {
+				WebDriver driver;
+				while ((driver = drivers.pollFirst()) != null) {
+					closedDrivers.add(driver);
+				}
+			}
+			closedDrivers.forEach(this::quietlyQuit);
+		});
+	}
+
+	/**
+	 * Closes the pool (see {@link #clear()}) and waits until the deadline for running launches, so their drivers are quit
+	 *
+	 * @param deadline see {@link System#nanoTime()}
+	 */
+	private void close(long deadline) {
+		clear();
+		try {
+			if (!this.launcher.awaitTermination(Math.max(deadline - System.nanoTime(), 0), TimeUnit.NANOSECONDS)) {
+				this.logger.warning("Standby drivers still being launched, giving up");
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private void quietlyQuit(WebDriver driver) {
+		WebDriverQuitter.quit(driver);
+	}
+
+	/**
+	 * @return amount of standby drivers kept for each browser configuration. 0 (default) disables pre-launching
+	 */
+	public int getMinIdle() {
+		return this.minIdle;
+	}
+
+	/**
+	 * @param minIdle amount of standby drivers kept for each browser configuration. Raises {@link #getMaxSize()} if needed
+	 */
+	public void setMinIdle(int minIdle) {
+		this.minIdle = Math.max(minIdle, 0);
+		this.maxSize = Math.max(this.maxSize, this.minIdle);
+		this.factories.keySet().forEach(this::refill);
+	}
+
+	/**
+	 * @return maximum amount of standby drivers kept for each browser configuration. 0 (default) means released drivers are always quit
+	 */
+	public int getMaxSize() {
+		return this.maxSize;
+	}
+
+	/**
+	 * @param maxSize maximum amount of standby drivers kept for each browser configuration. Lowers {@link #getMinIdle()} if needed
+	 */
+	public void setMaxSize(int maxSize) {
+		this.maxSize = Math.max(maxSize, 0);
+		this.minIdle = Math.min(this.minIdle, this.maxSize);
+		this.standbyDrivers.values().forEach(drivers -> {
+			WebDriver driver;
+			while (drivers.size() > this.maxSize && (driver = drivers.pollLast()) != null) {
+				quietlyQuit(driver);
+			}
+		});
+	}
+}
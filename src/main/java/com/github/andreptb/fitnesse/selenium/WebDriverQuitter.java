@@ -0,0 +1,130 @@
+package com.github.andreptb.fitnesse.selenium;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongConsumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.openqa.selenium.WebDriver;
+
+/**
+ * Quits {@link WebDriver} instances in background, so tests don't wait for browsers to be torn down. Quits are executed by a bounded amount of threads, and when too many quits
+ * are pending the calling thread quits the browser itself. Pending quits are drained when the JVM exits, waiting at most {@link #SHUTDOWN_TIMEOUT_PROPERTY} seconds, after the tasks
+ * registered with {@link #beforeDrain(LongConsumer)} (such as closing {@link WebDriverPool}) ran within the same deadline.
+ * <p>
+ * Defaults can be changed with the system properties {@link #THREADS_PROPERTY}, {@link #QUEUE_SIZE_PROPERTY} and {@link #SHUTDOWN_TIMEOUT_PROPERTY}.
+ * </p>
+ */
+public final class WebDriverQuitter {
+
+	/**
+	 * System property with the amount of threads quitting browsers. Default is 4
+	 */
+	public static final String THREADS_PROPERTY = "fitnesse.selenium.quit.threads";
+	/**
+	 * System property with the maximum amount of pending quits before browsers are quit by the calling thread. Default is 32
+	 */
+	public static final String QUEUE_SIZE_PROPERTY = "fitnesse.selenium.quit.queueSize";
+	/**
+	 * System property with the maximum amount of seconds the JVM exit waits for pending quits. Default is 30
+	 */
+	public static final String SHUTDOWN_TIMEOUT_PROPERTY = "fitnesse.selenium.quit.shutdownTimeoutInSeconds";
+
+	private static final Logger LOGGER = Logger.getLogger(WebDriverQuitter.class.getName());
+
+	/**
+	 * Tasks run by the shutdown hook before draining, see {@link #beforeDrain(LongConsumer)}
+	 */
+	private static final List<LongConsumer> BEFORE_DRAIN_TASKS = new CopyOnWriteArrayList<>();
+
+	private static final ThreadPoolExecutor EXECUTOR = WebDriverQuitter.createExecutor();
+
+	static {
+		Runtime.getRuntime().addShutdownHook(new Thread(WebDriverQuitter::drain, "fitnesse-selenium-quit-shutdown"));
+	}
+
+	private WebDriverQuitter() {
+	}
+
+	private static ThreadPoolExecutor createExecutor() {
+		int threads = Math.max(Integer.getInteger(WebDriverQuitter.THREADS_PROPERTY, 4), 1);
+		int queueSize = Math.max(Integer.getInteger(WebDriverQuitter.QUEUE_SIZE_PROPERTY, 32), 1);
+		AtomicInteger threadCount = new AtomicInteger();
+		ThreadFactory threadFactory = runnable -> {
+			Thread thread = new Thread(runnable, "fitnesse-selenium-quit-" + threadCount.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		};
+		// quits rejected because the queue is full are run by the calling thread. Once drained, they run in a daemon thread, so a hung quit doesn't block the JVM exit
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS, new ArrayBlockingQueue<>(queueSize), threadFactory, (runnable, rejectingExecutor) -> {
+			if (rejectingExecutor.isShutdown()) {
+				threadFactory.newThread(runnable).start();
+			} else {
+				runnable.run();
+			}
+		});
+		executor.allowCoreThreadTimeOut(true);
+		return executor;
+	}
+
+	/**
+	 * Quietly quits the driver in background
+	 *
+	 * @param driver to be quit, ignored if null
+	 */
+	public static void quit(WebDriver driver) {
+		if (driver == null) {
+			return;
+		}
+		WebDriverQuitter.EXECUTOR.execute(() -> {
+			try {
+				driver.quit();
+			} catch (Exception e) {
+				WebDriverQuitter.LOGGER.log(Level.FINE, "Failed to quit driver", e);
+			}
+		});
+	}
+
+	/**
+	 * @return amount of quits pending or in progress
+	 */
+	public static int getPendingQuits() {
+		return WebDriverQuitter.EXECUTOR.getQueue().size() + WebDriverQuitter.EXECUTOR.getActiveCount();
+	}
+
+	/**
+	 * Registers a task to run when the JVM exits, before pending quits are drained. Shutdown hooks run in no particular order, so components quitting browsers on exit register here
+	 * instead of adding their own hook, otherwise their quits could be submitted after draining
+	 *
+	 * @param task receiving the deadline (see {@link System#nanoTime()}) to finish within
+	 */
+	static void beforeDrain(LongConsumer task) {
+		WebDriverQuitter.BEFORE_DRAIN_TASKS.add(task);
+	}
+
+	private static void drain() {
+		long timeout = Math.max(Long.getLong(WebDriverQuitter.SHUTDOWN_TIMEOUT_PROPERTY, 30), 0);
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(timeout);
+		for (LongConsumer task : WebDriverQuitter.BEFORE_DRAIN_TASKS) {
+			try {
+				task.accept(deadline);
+			} catch (RuntimeException e) {
+				WebDriverQuitter.LOGGER.log(Level.WARNING, "Failed to run shutdown task before quitting browsers", e);
+			}
+		}
+		WebDriverQuitter.EXECUTOR.shutdown();
+		try {
+			if (!WebDriverQuitter.EXECUTOR.awaitTermination(Math.max(deadline - System.nanoTime(), 0), TimeUnit.NANOSECONDS)) {
+				WebDriverQuitter.LOGGER.warning("Browsers still being quit after " + timeout + " seconds, giving up");
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
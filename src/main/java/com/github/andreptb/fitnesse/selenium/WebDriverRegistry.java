@@ -0,0 +1,172 @@
+package com.github.andreptb.fitnesse.selenium;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Modifier;
+import java.text.MessageFormat;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+
+import org.apache.commons.lang3.ClassUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.openqa.selenium.Capabilities;
+import org.openqa.selenium.WebDriver;
+import org.reflections.Reflections;
+
+/**
+ * Resolves the {@link WebDriver} implementation used by 'start browser'. Implementations are looked up in the following order:
+ * <ul>
+ * <li>Aliases declared in the {@link #INDEX_RESOURCE} index, such as 'chrome', 'ff' or 'htmlunit'</li>
+ * <li>Fully qualified class names, such as 'org.openqa.selenium.firefox.FirefoxDriver'</li>
+ * <li>Indexed implementations which simple name starts with the informed browser, such as 'firefox' or 'internet'</li>
+ * <li>Implementations found by scanning {@link WebDriver} package. The scan runs at most once per JVM and only if the steps above fail</li>
+ * </ul>
+ * Resolved constructors are cached, so subsequent resolutions of the same browser don't use reflection lookups.
+ */
+public class WebDriverRegistry {
+
+	/**
+	 * Classpath resource containing browser aliases and the implementations they map to
+	 */
+	static final String INDEX_RESOURCE = "webdrivers.properties";
+
+	private Logger logger = Logger.getLogger(WebDriverRegistry.class.getName());
+
+	/**
+	 * Alias (lower case) to implementation class name, loaded from {@link #INDEX_RESOURCE}
+	 */
+	private final Map<String, String> index;
+	/**
+	 * Cache of resolved constructors, keyed by lower case browser
+	 */
+	private final Map<String, Constructor<? extends WebDriver>> constructorCache = new ConcurrentHashMap<>();
+	/**
+	 * Implementations found by classpath scan, see {@link #scan()}
+	 */
+	private volatile Collection<Class<? extends WebDriver>> scannedImplementations;
+
+	private final long indexLoadTimeInNanos;
+	private volatile long scanTimeInNanos = -1;
+
+	public WebDriverRegistry() {
+		long start = System.nanoTime();
+		this.index = loadIndex();
+		this.indexLoadTimeInNanos = System.nanoTime() - start;
+	}
+
+	private Map<String, String> loadIndex() {
+		Properties properties = new Properties();
+		try (InputStream indexStream = WebDriverRegistry.class.getResourceAsStream(WebDriverRegistry.INDEX_RESOURCE)) {
+			if (indexStream != null) {
+				properties.load(indexStream);
+			}
+		} catch (IOException e) {
+			this.logger.log(Level.WARNING, "Failed to load WebDriver index, implementations will be resolved by classpath scan", e);
+		}
+		return properties.stringPropertyNames().stream().sorted().collect(Collectors.toMap(StringUtils::lowerCase, properties::getProperty, (first, second) -> first, LinkedHashMap::new));
+	}
+
+	/**
+	 * Resolves the constructor of a {@link WebDriver} implementation that accepts {@link Capabilities} as its only argument.
+	 *
+	 * @param browser alias, fully qualified class name or implementation simple name prefix
+	 * @return the resolved constructor, or {@link Optional#empty()} if no suitable implementation is available
+	 */
+	public Optional<Constructor<? extends WebDriver>> resolve(String browser) {
+		String key = StringUtils.lowerCase(StringUtils.deleteWhitespace(browser));
+		if (StringUtils.isBlank(key)) {
+			return Optional.empty();
+		}
+		Constructor<? extends WebDriver> constructor = this.constructorCache.get(key);
+		if (constructor != null) {
+			return Optional.of(constructor);
+		}
+		long start = System.nanoTime();
+		boolean className = StringUtils.contains(key, ClassUtils.PACKAGE_SEPARATOR);
+		constructor = resolveFromIndex(key, browser, className).orElseGet(() -> className ? null : resolveFromScan(key));
+		if (constructor != null) {
+			this.constructorCache.putIfAbsent(key, constructor);
+			this.logger.log(Level.INFO, MessageFormat.format("Resolved [{0}] to [{1}] in {2} ms (index load: {3} ms, classpath scan: {4})", browser, constructor.getDeclaringClass().getName(), toMillis(System.nanoTime() - start), toMillis(this.indexLoadTimeInNanos), this.scanTimeInNanos < 0 ? "not performed" : toMillis(this.scanTimeInNanos) + " ms"));
+		}
+		return Optional.ofNullable(constructor);
+	}
+
+	private Optional<Constructor<? extends WebDriver>> resolveFromIndex(String key, String browser, boolean className) {
+		String indexedClassName = this.index.get(key);
+		if (indexedClassName != null) {
+			return toConstructor(indexedClassName);
+		}
+		if (className) {
+			return toConstructor(StringUtils.deleteWhitespace(browser));
+		}
+		return this.index.values().stream().distinct().filter(implementation -> StringUtils.startsWithIgnoreCase(ClassUtils.getShortClassName(implementation), key)).map(this::toConstructor).filter(Optional::isPresent).map(Optional::get).findFirst();
+	}
+
+	private Constructor<? extends WebDriver> resolveFromScan(String key) {
+		return scan().stream().filter(availableDriver -> StringUtils.startsWithIgnoreCase(availableDriver.getSimpleName(), key)).map(this::toConstructor).filter(Optional::isPresent).map(Optional::get).findFirst().orElse(null);
+	}
+
+	private Collection<Class<? extends WebDriver>> scan() {
+		if (this.scannedImplementations == null) {
+			synchronized (this) {
+				if (this.scannedImplementations == null) {
+					long start = System.nanoTime();
+					Reflections reflections = new Reflections(WebDriver.class.getPackage().getName());
+					this.scannedImplementations = reflections.getSubTypesOf(WebDriver.class).stream().sorted(Comparator.comparing(Class::getName)).collect(Collectors.toList());
+					this.scanTimeInNanos = System.nanoTime() - start;
+					this.logger.log(Level.INFO, MessageFormat.format("WebDriver classpath scan took {0} ms, consider adding an alias to {1}", toMillis(this.scanTimeInNanos), WebDriverRegistry.INDEX_RESOURCE));
+				}
+			}
+		}
+		return this.scannedImplementations;
+	}
+
+	private Optional<Constructor<? extends WebDriver>> toConstructor(String className) {
+		try {
+			return toConstructor(Class.forName(className).asSubclass(WebDriver.class));
+		} catch (ClassNotFoundException | ClassCastException | LinkageError e) {
+			this.logger.log(Level.FINE, "WebDriver implementation not available: " + className, e);
+		}
+		return Optional.empty();
+	}
+
+	private Optional<Constructor<? extends WebDriver>> toConstructor(Class<? extends WebDriver> driverClass) {
+		if (driverClass.isInterface() || Modifier.isAbstract(driverClass.getModifiers())) {
+			return Optional.empty();
+		}
+		try {
+			return Optional.of(driverClass.getConstructor(Capabilities.class));
+		} catch (NoSuchMethodException e) {
+			this.logger.log(Level.FINE, "WebDriver implementation can't be created with capabilities: " + driverClass, e);
+		}
+		return Optional.empty();
+	}
+
+	private long toMillis(long nanos) {
+		return TimeUnit.NANOSECONDS.toMillis(nanos);
+	}
+
+	/**
+	 * @return time spent loading {@link #INDEX_RESOURCE}, in milliseconds
+	 */
+	public long getIndexLoadTimeInMillis() {
+		return toMillis(this.indexLoadTimeInNanos);
+	}
+
+	/**
+	 * @return time spent scanning the classpath for implementations, in milliseconds. -1 if the scan was never needed
+	 */
+	public long getScanTimeInMillis() {
+		return this.scanTimeInNanos < 0 ? this.scanTimeInNanos : toMillis(this.scanTimeInNanos);
+	}
+}
@@ -0,0 +1,60 @@
+package com.github.andreptb.fitnesse.selenium;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * Keeps browser sessions ({@link WebDriverHelper} instances) by name, so independent browser flows can run concurrently in the same JVM without sharing driver state.
+ * Each thread is bound to a session, which is {@link #DEFAULT_SESSION} until {@link #use(String)} binds the thread to another one. Fixtures bind the thread when created, so
+ * the binding doesn't leak to later tables. Sessions are kept between table invocations, so every fixture instance bound to the same session name drives the same browsers.
+ */
+public final class WebDriverSessionContext {
+
+	/**
+	 * Session used by threads not bound to any other session
+	 */
+	public static final String DEFAULT_SESSION = "default";
+
+	private static final Map<String, WebDriverHelper> SESSIONS = new ConcurrentHashMap<>();
+
+	private static final ThreadLocal<String> CURRENT_SESSION = ThreadLocal.withInitial(() -> WebDriverSessionContext.DEFAULT_SESSION);
+
+	private WebDriverSessionContext() {
+	}
+
+	/**
+	 * @return session bound to the current thread
+	 */
+	public static WebDriverHelper current() {
+		return WebDriverSessionContext.get(WebDriverSessionContext.CURRENT_SESSION.get());
+	}
+
+	/**
+	 * @return name of the session bound to the current thread
+	 */
+	public static String currentName() {
+		return WebDriverSessionContext.CURRENT_SESSION.get();
+	}
+
+	/**
+	 * Binds the current thread to a session, creating it if needed
+	 *
+	 * @param session name. If blank, {@link #DEFAULT_SESSION} is used
+	 * @return the session now bound to the current thread
+	 */
+	public static WebDriverHelper use(String session) {
+		String sessionName = StringUtils.defaultIfBlank(StringUtils.trim(session), WebDriverSessionContext.DEFAULT_SESSION);
+		WebDriverSessionContext.CURRENT_SESSION.set(sessionName);
+		return WebDriverSessionContext.get(sessionName);
+	}
+
+	/**
+	 * @param session name
+	 * @return the session with the given name, created if needed
+	 */
+	public static WebDriverHelper get(String session) {
+		return WebDriverSessionContext.SESSIONS.computeIfAbsent(session, name -> new WebDriverHelper());
+	}
+}
@@ -0,0 +1,196 @@
+package com.github.andreptb.fitnesse.selenium;
+
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+
+import com.github.andreptb.fitnesse.selenium.SeleniumLocatorParser.ByFocus;
+
+/**
+ * Keeps the elements found by commands, so commands repeating a locator (such as a table checking the text, value and attributes of the same element) reuse the element instead of
+ * searching it again in the browser. Elements are kept by browser, window, selected frame and locator, and discarded when:
+ * <ul>
+ * <li>An action runs (such as open, click, type, select, window and frame selection), since actions may navigate or change the page</li>
+ * <li>An element is stale (removed from the page), discarding all elements of the browser</li>
+ * <li>A command fails or doesn't match the expected value using an element, so the next attempt searches the element again</li>
+ * </ul>
+ * Pages changing elements in place (such as scripts re-rendering or re-ordering a list) may make the locator match a different element than the one kept, so the cache is disabled by
+ * default and can be enabled with {@link #ENABLED_PROPERTY} system property.
+ */
+public class WebElementCache {
+
+	/**
+	 * System property enabling the cache by default when <b>true</b>
+	 */
+	public static final String ENABLED_PROPERTY = "fitnesse.selenium.elementCache";
+
+	/**
+	 * Maximum amount of elements kept by browser, least recently used are discarded first
+	 */
+	private static final int MAX_ELEMENTS_PER_BROWSER = 256;
+
+	/**
+	 * Position of the locator in the keys of the elements kept, see {@link #key(WebDriver, By)}
+	 */
+	private static final int LOCATOR_KEY_INDEX = 2;
+
+	private final Map<WebDriver, Map<List<String>, WebElement>> elements = new ConcurrentHashMap<>();
+	private final Map<WebDriver, List<String>> selectedFrames = new ConcurrentHashMap<>();
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder invalidations = new LongAdder();
+	private volatile boolean enabled = Boolean.getBoolean(WebElementCache.ENABLED_PROPERTY);
+
+	/**
+	 * @param driver browser to search the element in
+	 * @param by element locator
+	 * @return element kept for the locator in the current window and frame, or the element searched in the browser
+	 */
+	public WebElement find(WebDriver driver, By by) {
+		// focused element changes without commands, so it's always searched
+		if (!this.enabled || by instanceof ByFocus) {
+			return driver.findElement(by);
+		}
+		Map<List<String>, WebElement> browserElements = this.elements.computeIfAbsent(driver, key -> new LinkedHashMap<List<String>, WebElement>(16, 0.75f, true) {
+
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<List<String>, WebElement> eldest) {
+				return size() > WebElementCache.MAX_ELEMENTS_PER_BROWSER;
+			}
+		});
+		List<String> key = key(driver, by);
+		synchronized (browserElements) {
+			WebElement element = browserElements.get(key);
+			if (element != null) {
+				this.hits.increment();
+				return element;
+			}
+		}
+		this.misses.increment();
+		WebElement element = driver.findElement(by);
+		synchronized (browserElements) {
+			browserElements.put(key, element);
+		}
+		return element;
+	}
+
+	private List<String> key(WebDriver driver, By by) {
+		return Arrays.asList(driver.getWindowHandle(), String.valueOf(this.selectedFrames.getOrDefault(driver, Collections.<String> emptyList())), by.toString());
+	}
+
+	/**
+	 * Tracks the frame selected, so elements of different frames aren't mixed
+	 *
+	 * @param driver browser
+	 * @param frame locator of the frame selected, inside the frame currently selected. If null, the top frame is selected, such as after navigating or selecting a window
+	 */
+	public void selectFrame(WebDriver driver, String frame) {
+		if (frame == null) {
+			this.selectedFrames.remove(driver);
+			return;
+		}
+		this.selectedFrames.compute(driver, (key, frames) -> {
+			List<String> selected = new ArrayList<>();
+			if (frames != null) {
+				selected.addAll(frames);
+			}
+			selected.add(frame);
+			return Collections.unmodifiableList(selected);
+		});
+	}
+
+	/**
+	 * Tracks the selection of the parent of the frame currently selected, see {@link #selectFrame(WebDriver, String)}
+	 *
+	 * @param driver browser
+	 */
+	public void selectParentFrame(WebDriver driver) {
+		this.selectedFrames.computeIfPresent(driver, (key, frames) -> frames.size() > 1 ? Collections.unmodifiableList(new ArrayList<>(frames.subList(0, frames.size() - 1))) : null);
+	}
+
+	/**
+	 * Discards the element kept for the locator
+	 *
+	 * @param driver browser
+	 * @param by element locator
+	 */
+	public void remove(WebDriver driver, By by) {
+		Map<List<String>, WebElement> browserElements = driver == null || by == null ? null : this.elements.get(driver);
+		if (browserElements != null) {
+			String locator = by.toString();
+			synchronized (browserElements) {
+				// discarded from all windows and frames, so the current ones aren't asked to the browser
+				browserElements.keySet().removeIf(key -> locator.equals(key.get(WebElementCache.LOCATOR_KEY_INDEX)));
+			}
+		}
+	}
+
+	/**
+	 * Discards all elements kept for the browser
+	 *
+	 * @param driver browser
+	 */
+	public void invalidate(WebDriver driver) {
+		if (driver != null && this.elements.remove(driver) != null) {
+			this.invalidations.increment();
+		}
+	}
+
+	/**
+	 * Discards all elements and the frame selection tracked for the browser, such as when the browser is released
+	 *
+	 * @param driver browser
+	 */
+	public void release(WebDriver driver) {
+		if (driver != null) {
+			invalidate(driver);
+			this.selectedFrames.remove(driver);
+		}
+	}
+
+	public long getHits() {
+		return this.hits.sum();
+	}
+
+	public long getMisses() {
+		return this.misses.sum();
+	}
+
+	/**
+	 * @return how many times all elements of a browser were discarded
+	 */
+	public long getInvalidations() {
+		return this.invalidations.sum();
+	}
+
+	public boolean isEnabled() {
+		return this.enabled;
+	}
+
+	/**
+	 * @param enabled if false, elements are always searched in the browser
+	 */
+	public void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+		if (!enabled) {
+			this.elements.clear();
+		}
+	}
+
+	@Override
+	public String toString() {
+		return MessageFormat.format("hits={0}, misses={1}, invalidations={2}", String.valueOf(getHits()), String.valueOf(getMisses()), String.valueOf(getInvalidations()));
+	}
+}
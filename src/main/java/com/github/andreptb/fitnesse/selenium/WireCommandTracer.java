@@ -0,0 +1,257 @@
+package com.github.andreptb.fitnesse.selenium;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.text.MessageFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.reflect.FieldUtils;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.remote.BeanToJsonConverter;
+import org.openqa.selenium.remote.CommandExecutor;
+import org.openqa.selenium.remote.RemoteWebDriver;
+
+/**
+ * Traces the wire commands (HTTP round-trips to the browser driver) issued by each fixture command. Enabled by {@link #TRACE_FILE_PROPERTY}, which also names the file where
+ * <a href="https://docs.google.com/document/d/1CvAClvFfyA5R-PhYUmn5OOQtYMH4h6I0nSsKchNAySU">Chrome trace-event</a> JSON is written, so fixture commands and their wire commands can be
+ * opened as a timeline in <code>chrome://tracing</code> or Perfetto.
+ * <p>
+ * Wire command statistics are grouped by page (see {@link #startPage(String)}) and, when the next page starts, logged and written to the trace file as well.
+ * </p>
+ */
+public final class WireCommandTracer {
+
+	/**
+	 * System property with the trace file path. Wire commands are not traced unless set
+	 */
+	public static final String TRACE_FILE_PROPERTY = "fitnesse.selenium.trace.file";
+
+	/**
+	 * Fixture command of wire commands issued outside of any fixture command, such as the ones issued by the driver constructor
+	 */
+	private static final String NO_COMMAND = "-";
+
+	/**
+	 * Constant to reference {@link RemoteWebDriver} executor private field
+	 */
+	private static final String REMOTE_WEBDRIVER_EXECUTOR_FIELD = "executor";
+
+	private static final Logger LOGGER = Logger.getLogger(WireCommandTracer.class.getName());
+
+	private static final File TRACE_FILE = StringUtils.isBlank(System.getProperty(WireCommandTracer.TRACE_FILE_PROPERTY)) ? null : new File(System.getProperty(WireCommandTracer.TRACE_FILE_PROPERTY));
+
+	private static final ThreadLocal<String> CURRENT_COMMAND = ThreadLocal.withInitial(() -> WireCommandTracer.NO_COMMAND);
+
+	private static final BeanToJsonConverter JSON = new BeanToJsonConverter();
+
+	/**
+	 * Statistics of the current page, keyed by fixture command and wire command
+	 */
+	private static final Map<String, WireCommandStats> PAGE_STATS = new ConcurrentHashMap<>();
+
+	private static String currentPage;
+	private static long currentPageStartInNanos;
+	private static Writer traceWriter;
+
+	static {
+		if (WireCommandTracer.TRACE_FILE != null) {
+			Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+				WireCommandTracer.startPage(null);
+				WireCommandTracer.closeTraceFile();
+			}, "fitnesse-selenium-trace-shutdown"));
+		}
+	}
+
+	private WireCommandTracer() {
+	}
+
+	/**
+	 * @return if wire commands are being traced, see {@link #TRACE_FILE_PROPERTY}
+	 */
+	public static boolean isEnabled() {
+		return WireCommandTracer.TRACE_FILE != null;
+	}
+
+	/**
+	 * Replaces the command executor of remote drivers (local drivers such as chrome and firefox are remote drivers as well) with one recording wire commands. Does nothing if tracing
+	 * is not enabled or the driver is already traced
+	 *
+	 * @param driver to be traced
+	 * @return the same driver
+	 */
+	static WebDriver instrument(WebDriver driver) {
+		if (!WireCommandTracer.isEnabled() || !(driver instanceof RemoteWebDriver)) {
+			return driver;
+		}
+		CommandExecutor executor = ((RemoteWebDriver) driver).getCommandExecutor();
+		if (executor != null && !(executor instanceof TracingCommandExecutor)) {
+			try {
+				FieldUtils.writeField(driver, WireCommandTracer.REMOTE_WEBDRIVER_EXECUTOR_FIELD, new TracingCommandExecutor(executor), true);
+			} catch (IllegalAccessException | IllegalArgumentException e) {
+				WireCommandTracer.LOGGER.log(Level.FINE, "Failed to trace driver commands", e);
+			}
+		}
+		return driver;
+	}
+
+	/**
+	 * @param executor to be traced
+	 * @return executor recording wire commands, or the same executor if tracing is not enabled
+	 */
+	static CommandExecutor instrument(CommandExecutor executor) {
+		return WireCommandTracer.isEnabled() ? new TracingCommandExecutor(executor) : executor;
+	}
+
+	/**
+	 * Attributes the wire commands issued by the current thread to a fixture command, until {@link #exitCommand(String, String, long)} is called
+	 *
+	 * @param command fixture command
+	 * @return fixture command being replaced, to be restored by {@link #exitCommand(String, String, long)}
+	 */
+	static String enterCommand(String command) {
+		String previous = WireCommandTracer.CURRENT_COMMAND.get();
+		WireCommandTracer.CURRENT_COMMAND.set(StringUtils.defaultIfBlank(command, WireCommandTracer.NO_COMMAND));
+		return previous;
+	}
+
+	/**
+	 * @param command fixture command finished
+	 * @param previous fixture command returned by {@link #enterCommand(String)}
+	 * @param startInNanos when the fixture command started, from {@link System#nanoTime()}
+	 */
+	static void exitCommand(String command, String previous, long startInNanos) {
+		WireCommandTracer.CURRENT_COMMAND.set(previous);
+		if (WireCommandTracer.isEnabled()) {
+			WireCommandTracer.writeTraceEvent(command, "fixture", startInNanos, System.nanoTime() - startInNanos, null);
+		}
+	}
+
+	static void record(String wireCommand, long startInNanos, long durationInNanos, long requestBytes, long responseBytes, String state) {
+		String command = WireCommandTracer.CURRENT_COMMAND.get();
+		WireCommandTracer.PAGE_STATS.computeIfAbsent(command + " > " + wireCommand, key -> new WireCommandStats()).record(durationInNanos, requestBytes, responseBytes);
+		Map<String, Object> args = new LinkedHashMap<>();
+		args.put("fixtureCommand", command);
+		args.put("requestBytes", requestBytes);
+		args.put("responseBytes", responseBytes);
+		args.put("state", state);
+		WireCommandTracer.writeTraceEvent(wireCommand, "wire", startInNanos, durationInNanos, args);
+	}
+
+	/**
+	 * Starts a new page. If a different page was being traced, its statistics are logged and written to the trace file, then cleared
+	 *
+	 * @param page full path of the page, null if no page is running
+	 */
+	public static synchronized void startPage(String page) {
+		if (!WireCommandTracer.isEnabled() || Objects.equals(page, WireCommandTracer.currentPage)) {
+			return;
+		}
+		long now = System.nanoTime();
+		if (WireCommandTracer.currentPage != null || !WireCommandTracer.PAGE_STATS.isEmpty()) {
+			String summary = WireCommandTracer.summary(StringUtils.LF);
+			if (StringUtils.isNotBlank(summary)) {
+				WireCommandTracer.LOGGER.info(MessageFormat.format("Wire commands of {0}:{1}{2}", StringUtils.defaultString(WireCommandTracer.currentPage, WireCommandTracer.NO_COMMAND), StringUtils.LF, summary));
+			}
+			if (WireCommandTracer.currentPage != null) {
+				Map<String, Object> args = new TreeMap<>();
+				WireCommandTracer.PAGE_STATS.forEach((key, stats) -> args.put(key, stats.toString()));
+				WireCommandTracer.writeTraceEvent(WireCommandTracer.currentPage, "page", WireCommandTracer.currentPageStartInNanos, now - WireCommandTracer.currentPageStartInNanos, args);
+			}
+			WireCommandTracer.PAGE_STATS.clear();
+		}
+		WireCommandTracer.currentPage = page;
+		WireCommandTracer.currentPageStartInNanos = now;
+		WireCommandTracer.flushTraceFile();
+	}
+
+	/**
+	 * @param separator between wire commands
+	 * @return statistics of the wire commands issued in the current page, sorted by fixture command and wire command. Durations in milliseconds
+	 */
+	public static String summary(String separator) {
+		return new TreeMap<>(WireCommandTracer.PAGE_STATS).entrySet().stream().map(entry -> entry.getKey() + ": " + entry.getValue()).collect(Collectors.joining(separator));
+	}
+
+	private static synchronized void writeTraceEvent(String name, String category, long startInNanos, long durationInNanos, Map<String, Object> args) {
+		Map<String, Object> event = new LinkedHashMap<>();
+		event.put("name", name);
+		event.put("cat", category);
+		event.put("ph", "X");
+		event.put("ts", TimeUnit.NANOSECONDS.toMicros(startInNanos));
+		event.put("dur", TimeUnit.NANOSECONDS.toMicros(durationInNanos));
+		event.put("pid", 1);
+		event.put("tid", Thread.currentThread().getId());
+		if (args != null) {
+			event.put("args", args);
+		}
+		try {
+			if (WireCommandTracer.traceWriter == null) {
+				FileUtils.forceMkdir(WireCommandTracer.TRACE_FILE.getAbsoluteFile().getParentFile());
+				WireCommandTracer.traceWriter = Files.newBufferedWriter(WireCommandTracer.TRACE_FILE.toPath(), StandardCharsets.UTF_8);
+				// JSON array format, the closing bracket is optional so the file is readable even if the JVM is killed
+				WireCommandTracer.traceWriter.write("[" + StringUtils.LF);
+			}
+			WireCommandTracer.traceWriter.write(WireCommandTracer.JSON.convert(event) + "," + StringUtils.LF);
+		} catch (IOException e) {
+			WireCommandTracer.LOGGER.log(Level.WARNING, "Failed to write trace event", e);
+		}
+	}
+
+	private static synchronized void flushTraceFile() {
+		try {
+			if (WireCommandTracer.traceWriter != null) {
+				WireCommandTracer.traceWriter.flush();
+			}
+		} catch (IOException e) {
+			WireCommandTracer.LOGGER.log(Level.WARNING, "Failed to flush trace file", e);
+		}
+	}
+
+	private static synchronized void closeTraceFile() {
+		try {
+			if (WireCommandTracer.traceWriter != null) {
+				WireCommandTracer.traceWriter.close();
+				WireCommandTracer.traceWriter = null;
+			}
+		} catch (IOException e) {
+			WireCommandTracer.LOGGER.log(Level.WARNING, "Failed to close trace file", e);
+		}
+	}
+
+	/**
+	 * Statistics of a wire command issued by a fixture command
+	 */
+	private static class WireCommandStats {
+
+		private final LatencyHistogram latency = new LatencyHistogram();
+		private final LongAdder requestBytes = new LongAdder();
+		private final LongAdder responseBytes = new LongAdder();
+
+		private void record(long durationInNanos, long requestBytes, long responseBytes) {
+			this.latency.record(durationInNanos);
+			this.requestBytes.add(requestBytes);
+			this.responseBytes.add(responseBytes);
+		}
+
+		@Override
+		public String toString() {
+			return MessageFormat.format("count={0}, total={1}ms, p95={2}ms, max={3}ms, requestBytes={4}, responseBytes={5}", String.valueOf(this.latency.getCount()),
+				String.valueOf(TimeUnit.NANOSECONDS.toMillis(this.latency.getTotal())), String.valueOf(TimeUnit.NANOSECONDS.toMillis(this.latency.getPercentile(95))),
+				String.valueOf(TimeUnit.NANOSECONDS.toMillis(this.latency.getMax())), String.valueOf(this.requestBytes.sum()), String.valueOf(this.responseBytes.sum()));
+		}
+	}
+}
@@ -14,6 +14,9 @@ import org.apache.commons.lang.StringUtils;
 import org.apache.commons.lang.math.NumberUtils;
 import org.apache.commons.lang3.tuple.Pair;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
 /**
  * General utilities to process FitNesse markup syntax so can be used by Selenium Fixture
  */
@@ -23,10 +26,64 @@ public class FitnesseMarkup {
 	 * Markup which presents image preview and download link
 	 */
 	private static final String SCREENSHOT_LINK_MARKUP = "<a href=\"javascript:void(0)\" onclick=\"window.open(this.childNodes[0].getAttribute(''src''));\"><img src=\"data:image/png;base64,{0}\" height=\"200\"></img</a>";
+	/**
+	 * Markup which presents a screenshot file, see {@link #imgLink(Object)}. Retries loading the image while the file is being written
+	 */
+	private static final String SCREENSHOT_FILE_LINK_MARKUP = "<a href=\"{0}\" target=\"_blank\"><img src=\"{0}\" height=\"200\" alt=\"screenshot\" onerror=\"this.retries=(this.retries||0)+1;if(this.retries<=30)setTimeout(this.setAttribute.bind(this,''src'',''{0}?''+this.retries),1000);\"></img></a>";
+	/**
+	 * Markup which presents the thumbnail of a screenshot file, linked to the screenshot file. Thumbnail is already downscaled to the size it should be displayed
+	 */
+	private static final String SCREENSHOT_THUMBNAIL_LINK_MARKUP = "<a href=\"{0}\" target=\"_blank\"><img src=\"{1}\" alt=\"screenshot\" onerror=\"this.retries=(this.retries||0)+1;if(this.retries<=30)setTimeout(this.setAttribute.bind(this,''src'',''{1}?''+this.retries),1000);\"></img></a>";
+	/**
+	 * Separates the screenshot file URL from its thumbnail URL, see {@link #imgLink(Object)}. URLs and base64 screenshot data never contain it
+	 */
+	public static final String SCREENSHOT_THUMBNAIL_SEPARATOR = " ";
+	/**
+	 * Extension of screenshot files, base64 screenshot data never ends with it
+	 */
+	private static final String SCREENSHOT_FILE_EXTENSION = ".png";
 	/**
 	 * @see #compare(Object, Object)
 	 */
 	private static final Pattern FITNESSE_REGEX_MARKUP_PATTERN = Pattern.compile("^=~/(.+)/");
+	/**
+	 * System property with the maximum amount of compiled regular expression comparisons kept, see {@link #compare(Object, Object)}. Default is 256, 0 disables the cache
+	 */
+	public static final String PATTERN_CACHE_SIZE_PROPERTY = "fitnesse.selenium.patternCache.maxSize";
+	/**
+	 * Compiled regular expression comparisons by regular expression, least recently used are discarded first
+	 */
+	private static final Cache<String, Pattern> COMPILED_PATTERNS = CacheBuilder.newBuilder()
+		.maximumSize(Math.max(Long.getLong(FitnesseMarkup.PATTERN_CACHE_SIZE_PROPERTY, 256), 0)).build();
+
+	/**
+	 * Beginning of keyboard special key markup, see {@link #KEYBOARD_SPECIAL_KEY_RENDERING_MARKUP}
+	 */
+	private static final String KEYBOARD_SPECIAL_KEY_MARKUP_START = "<span keycode=\"";
+	/**
+	 * End of keyboard special key markup, see {@link #KEYBOARD_SPECIAL_KEY_RENDERING_MARKUP}
+	 */
+	private static final String KEYBOARD_SPECIAL_KEY_MARKUP_END = "/span>";
+	/**
+	 * Text of the markup FitNesse renders for undefined variables
+	 */
+	private static final String UNDEFINED_VARIABLE_MARKER = "undefined variable:";
+	/**
+	 * End of the markup FitNesse renders for links creating wiki pages
+	 */
+	private static final String CREATE_PAGE_LINK_MARKER = "[?]</a>";
+	/**
+	 * Markup FitNesse renders for undefined variables, see {@link #clean(Object)}
+	 */
+	private static final Pattern UNDEFINED_VARIABLE_MARKUP_PATTERN = Pattern.compile("<span[^>]+>undefined variable:[^<]+</span>");
+	/**
+	 * Markup FitNesse renders for links creating wiki pages, see {@link #clean(Object)}
+	 */
+	private static final Pattern CREATE_PAGE_LINK_MARKUP_PATTERN = Pattern.compile("<a[^>]+>\\[\\?\\]</a>");
+	/**
+	 * HTML tags, see {@link #clean(Object)}
+	 */
+	private static final Pattern HTML_TAG_PATTERN = Pattern.compile("</?.[^>]+>");
 
 	/**
 	 * Constant used to register selenium special keys as system properties
@@ -81,25 +138,86 @@ public class FitnesseMarkup {
 	 * <p>
 	 * http://fitnesse.org/FitNesse.FullReferenceGuide.UserGuide.WritingAcceptanceTests.SliM.ValueComparisons
 	 * </p>
-	 * For now supports only exact equal and regular expression comparisons
+	 * For now supports only exact equal and regular expression comparisons. To compare several values with the same expected value, see {@link #expectation(Object)}
 	 *
 	 * @param expected value
 	 * @param obtained value
 	 * @return comparisonResult
 	 */
 	public boolean compare(Object expected, Object obtained) {
+		return expectation(expected).matches(obtained);
+	}
+
+	/**
+	 * Parses the expected value once, so it can be compared with several obtained values, such as the values obtained by each attempt of a command waiting for an element
+	 *
+	 * @param expected value
+	 * @return expectation comparing obtained values as {@link #compare(Object, Object)}
+	 */
+	public Expectation expectation(Object expected) {
 		String cleanedExpected = clean(expected);
-		String cleanedObtained = clean(obtained);
 		boolean not = StringUtils.startsWith(cleanedExpected, FitnesseMarkup.SELECTOR_VALUE_DENY_INDICATOR);
 		cleanedExpected = StringUtils.stripStart(cleanedExpected, FitnesseMarkup.SELECTOR_VALUE_DENY_INDICATOR);
 		Matcher matcher = FitnesseMarkup.FITNESSE_REGEX_MARKUP_PATTERN.matcher(cleanedExpected);
-		boolean result = false;
 		if (matcher.matches()) {
-			result = Pattern.compile(matcher.group(NumberUtils.INTEGER_ONE), Pattern.DOTALL).matcher(cleanedObtained).matches();
-		} else {
-			result = StringUtils.equals(cleanedExpected, cleanedObtained);
+			return new Expectation(this, not, null, matcher.group(NumberUtils.INTEGER_ONE));
+		}
+		return new Expectation(this, not, cleanedExpected, null);
+	}
+
+	/**
+	 * Expected value parsed by {@link FitnesseMarkup#expectation(Object)}: a literal or a regular expression, possibly negated
+	 */
+	public static class Expectation {
+
+		private FitnesseMarkup fitnesseMarkup;
+		private boolean not;
+		private String literal;
+		private String regex;
+		private Pattern pattern;
+
+		private Expectation(FitnesseMarkup fitnesseMarkup, boolean not, String literal, String regex) {
+			this.fitnesseMarkup = fitnesseMarkup;
+			this.not = not;
+			this.literal = literal;
+			this.regex = regex;
+		}
+
+		/**
+		 * @param obtained value
+		 * @return comparisonResult, see {@link FitnesseMarkup#compare(Object, Object)}
+		 */
+		public boolean matches(Object obtained) {
+			String cleanedObtained = this.fitnesseMarkup.clean(obtained);
+			boolean result = false;
+			if (this.regex != null) {
+				// compiled when first needed, values not checked don't fail with invalid regular expressions
+				if (this.pattern == null) {
+					this.pattern = FitnesseMarkup.compilePattern(this.regex);
+				}
+				result = this.pattern.matcher(cleanedObtained).matches();
+			} else {
+				result = StringUtils.equals(this.literal, cleanedObtained);
+			}
+			return this.not ? !result : result;
+		}
+
+		@Override
+		public String toString() {
+			return (this.not ? FitnesseMarkup.SELECTOR_VALUE_DENY_INDICATOR : StringUtils.EMPTY) + (this.regex != null ? "=~/" + this.regex + "/" : this.literal);
 		}
-		return not ? !result : result;
+	}
+
+	/**
+	 * @return regular expression compiled for comparisons, kept for the next comparisons with the same regular expression
+	 */
+	private static Pattern compilePattern(String regex) {
+		Pattern pattern = FitnesseMarkup.COMPILED_PATTERNS.getIfPresent(regex);
+		if (pattern == null) {
+			pattern = Pattern.compile(regex, Pattern.DOTALL);
+			FitnesseMarkup.COMPILED_PATTERNS.put(regex, pattern);
+		}
+		return pattern;
 	}
 
 	/**
@@ -111,6 +229,7 @@ public class FitnesseMarkup {
 	 * <li>Strips undefined variable ocurrences on text</li>
 	 * <li>If value is associated with</li>
 	 * </ul>
+	 * Called several times by each command, so markup is scanned without regular expressions, except for undefined variables and wiki page creation links, which are rare.
 	 *
 	 * @param symbol to be cleaned
 	 * @return cleanedSymbol
@@ -118,19 +237,97 @@ public class FitnesseMarkup {
 	public String clean(Object symbol) {
 		// strips whitespace and accidental "null" string representation of null value
 		String strippedSymbol = StringUtils.remove(StringUtils.strip(ObjectUtils.toString(symbol)), "null");
-		if (StringUtils.isBlank(strippedSymbol)) {
+		// every markup starts with a tag, values without tags (most of them) have nothing to clean
+		if (StringUtils.isBlank(strippedSymbol) || strippedSymbol.indexOf('<') < 0) {
 			return strippedSymbol;
 		}
 		// transforms keyboard special keys markup
-		strippedSymbol = strippedSymbol.replaceAll("<span keycode=\"([^\"]+)\"[^/]+/span>", "$1");
-		// removes undefined variable references
-		strippedSymbol = strippedSymbol.replaceAll("<span[^>]+>undefined variable:[^<]+</span>", StringUtils.EMPTY);
-		// removes create wikipage markup
-		strippedSymbol = strippedSymbol.replaceAll("<a[^>]+>\\[\\?\\]</a>", StringUtils.EMPTY);
-		// removes undefined variable references
-		strippedSymbol = strippedSymbol.replaceAll("<span[^>]+>undefined variable:[^<]+</span>", StringUtils.EMPTY);
+		strippedSymbol = replaceKeyboardSpecialKeys(strippedSymbol);
+		if (strippedSymbol.contains(FitnesseMarkup.UNDEFINED_VARIABLE_MARKER) || strippedSymbol.contains(FitnesseMarkup.CREATE_PAGE_LINK_MARKER)) {
+			// removes undefined variable references
+			strippedSymbol = FitnesseMarkup.UNDEFINED_VARIABLE_MARKUP_PATTERN.matcher(strippedSymbol).replaceAll(StringUtils.EMPTY);
+			// removes create wikipage markup
+			strippedSymbol = FitnesseMarkup.CREATE_PAGE_LINK_MARKUP_PATTERN.matcher(strippedSymbol).replaceAll(StringUtils.EMPTY);
+			// removes undefined variable references revealed by removing create wikipage markup
+			strippedSymbol = FitnesseMarkup.UNDEFINED_VARIABLE_MARKUP_PATTERN.matcher(strippedSymbol).replaceAll(StringUtils.EMPTY);
+			// removes html tags
+			return FitnesseMarkup.HTML_TAG_PATTERN.matcher(strippedSymbol).replaceAll(StringUtils.EMPTY);
+		}
 		// removes html tags
-		return strippedSymbol.replaceAll("</?.[^>]+>", StringUtils.EMPTY);
+		return removeHtmlTags(strippedSymbol);
+	}
+
+	/**
+	 * Replaces keyboard special key markup with the key value, same as replacing <code>&lt;span keycode="([^"]+)"[^/]+/span&gt;</code> with <code>$1</code>
+	 */
+	private static String replaceKeyboardSpecialKeys(String symbol) {
+		int markupStart = symbol.indexOf(FitnesseMarkup.KEYBOARD_SPECIAL_KEY_MARKUP_START);
+		if (markupStart < 0) {
+			return symbol;
+		}
+		StringBuilder replaced = new StringBuilder(symbol.length());
+		int copied = 0;
+		while (markupStart >= 0) {
+			int keyStart = markupStart + FitnesseMarkup.KEYBOARD_SPECIAL_KEY_MARKUP_START.length();
+			int keyEnd = symbol.indexOf('"', keyStart);
+			// the key is followed by at least one character before the closing tag
+			int markupEnd = keyEnd < 0 ? -1 : symbol.indexOf('/', keyEnd + 1);
+			if (keyEnd > keyStart && markupEnd > keyEnd + 1 && symbol.startsWith(FitnesseMarkup.KEYBOARD_SPECIAL_KEY_MARKUP_END, markupEnd)) {
+				replaced.append(symbol, copied, markupStart).append(symbol, keyStart, keyEnd);
+				copied = markupEnd + FitnesseMarkup.KEYBOARD_SPECIAL_KEY_MARKUP_END.length();
+				markupStart = symbol.indexOf(FitnesseMarkup.KEYBOARD_SPECIAL_KEY_MARKUP_START, copied);
+			} else {
+				markupStart = symbol.indexOf(FitnesseMarkup.KEYBOARD_SPECIAL_KEY_MARKUP_START, markupStart + 1);
+			}
+		}
+		return replaced.append(symbol, copied, symbol.length()).toString();
+	}
+
+	/**
+	 * Removes html tags, same as removing {@link #HTML_TAG_PATTERN} matches
+	 */
+	private static String removeHtmlTags(String symbol) {
+		StringBuilder removed = new StringBuilder(symbol.length());
+		int copied = 0;
+		int tagStart = symbol.indexOf('<');
+		while (tagStart >= 0) {
+			int tagEnd = htmlTagEnd(symbol, tagStart);
+			if (tagEnd > 0) {
+				removed.append(symbol, copied, tagStart);
+				copied = tagEnd;
+				tagStart = symbol.indexOf('<', tagEnd);
+			} else {
+				tagStart = symbol.indexOf('<', tagStart + 1);
+			}
+		}
+		return copied == 0 ? symbol : removed.append(symbol, copied, symbol.length()).toString();
+	}
+
+	/**
+	 * @return end (exclusive) of the html tag starting at the index, -1 if {@link #HTML_TAG_PATTERN} doesn't match there
+	 */
+	private static int htmlTagEnd(String symbol, int tagStart) {
+		// as the regular expression does, tries with the optional slash first
+		int firstNameIndex = symbol.startsWith("/", tagStart + 1) ? tagStart + 2 : tagStart + 1;
+		for (int nameIndex = firstNameIndex; nameIndex > tagStart; nameIndex--) {
+			if (nameIndex >= symbol.length() || FitnesseMarkup.isLineTerminator(symbol.charAt(nameIndex))) {
+				continue;
+			}
+			// any character (code point) followed by at least one character before the closing bracket
+			int nameEnd = nameIndex + Character.charCount(symbol.codePointAt(nameIndex));
+			int tagEnd = symbol.indexOf('>', nameEnd);
+			if (tagEnd > nameEnd) {
+				return tagEnd + 1;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * @return if regular expressions dot doesn't match the character
+	 */
+	private static boolean isLineTerminator(char character) {
+		return character == '\n' || character == '\r' || character == '\u0085' || character == '\u2028' || character == '\u2029';
 	}
 
 	/**
@@ -138,15 +335,22 @@ public class FitnesseMarkup {
 	 * Usually used by fixtures that wants to return a image link for the test result.
 	 *
 	 * @param img
-	 *            File containing the image
+	 *            image data in base64 format or URL of the image file, optionally followed by {@link #SCREENSHOT_THUMBNAIL_SEPARATOR} and the URL of its thumbnail
 	 * @return Image link
 	 */
 	public String imgLink(Object img) {
-		return MessageFormat.format(FitnesseMarkup.SCREENSHOT_LINK_MARKUP, img);
+		String image = ObjectUtils.toString(img);
+		String url = StringUtils.substringBefore(image, FitnesseMarkup.SCREENSHOT_THUMBNAIL_SEPARATOR);
+		if (!StringUtils.endsWith(url, FitnesseMarkup.SCREENSHOT_FILE_EXTENSION)) {
+			return MessageFormat.format(FitnesseMarkup.SCREENSHOT_LINK_MARKUP, image);
+		}
+		String thumbnailUrl = StringUtils.substringAfter(image, FitnesseMarkup.SCREENSHOT_THUMBNAIL_SEPARATOR);
+		return StringUtils.isBlank(thumbnailUrl) ? MessageFormat.format(FitnesseMarkup.SCREENSHOT_FILE_LINK_MARKUP, url) : MessageFormat.format(FitnesseMarkup.SCREENSHOT_THUMBNAIL_LINK_MARKUP, url, thumbnailUrl);
 	}
 
 	/**
-	 * Creates img markup to be viewed in test page. Extracts the image content from an exception message generated by {@link #exceptionMessage(Object, String, Object...)}
+	 * Creates img markup to be viewed in test page. Extracts the image content from an exception message generated by {@link #exceptionMessage(Object, String, Object...)}, which
+	 * can be the screenshot data or the URL of a screenshot file
 	 *
 	 * @param exceptionMessage
 	 *            to be parsed
@@ -253,7 +457,7 @@ public class FitnesseMarkup {
 	 * @param originalMessage
 	 *            message taken from the exception
 	 * @param screenshotData
-	 *            screenshot data in base64 format
+	 *            screenshot data in base64 format or screenshot file URL
 	 * @param args
 	 *            extra arguments to be interpolated in {@link MessageFormat#format(Object)}
 	 * @return formatted message
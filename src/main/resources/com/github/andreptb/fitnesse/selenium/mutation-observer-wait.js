@@ -0,0 +1,43 @@
+/*
+ * Waits until the element appears (when absent) or the page changes (when present), so the caller can evaluate again.
+ * Arguments: locator type, locator value, maximum time to wait in milliseconds and the async script callback.
+ * Resolves with true if something changed, false if the maximum time to wait was reached.
+ */
+var locatorType = arguments[0], locatorValue = arguments[1], maxWait = arguments[2], callback = arguments[arguments.length - 1];
+var find = function() {
+	switch (locatorType) {
+	case 'id':
+		return document.getElementById(locatorValue);
+	case 'name':
+		return document.getElementsByName(locatorValue)[0];
+	case 'css':
+		return document.querySelector(locatorValue);
+	case 'xpath':
+		return document.evaluate(locatorValue, document, null, XPathResult.FIRST_ORDERED_NODE_TYPE, null).singleNodeValue;
+	case 'link':
+		return Array.prototype.filter.call(document.getElementsByTagName('a'), function(link) {
+			return (link.textContent || '').trim() === locatorValue;
+		})[0];
+	}
+	return null;
+};
+var wasPresent = !!find();
+var done = false, observer, timeout;
+var finish = function(changed) {
+	if (done) {
+		return;
+	}
+	done = true;
+	observer.disconnect();
+	clearTimeout(timeout);
+	callback(changed);
+};
+observer = new MutationObserver(function() {
+	if (wasPresent || find()) {
+		finish(true);
+	}
+});
+observer.observe(document.documentElement || document, { childList: true, subtree: true, attributes: true, characterData: true });
+timeout = setTimeout(function() {
+	finish(false);
+}, maxWait);
@@ -0,0 +1,101 @@
+package com.github.andreptb.fitnesse.selenium;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.remote.DesiredCapabilities;
+
+/**
+ * Eviction order and expiration of {@link WebDriverCache}, using a manual clock
+ */
+public class WebDriverCacheTest {
+
+	private AtomicLong now = new AtomicLong();
+	private List<Integer> evicted = new ArrayList<>();
+	private WebDriverCache cache = new WebDriverCache((key, driver) -> this.evicted.add(key), this.now::get);
+
+	@Test
+	public void unboundedByDefault() {
+		Assert.assertEquals(0, this.cache.getMaxSize());
+		for (int key = 0; key < 10; key++) {
+			this.cache.put(key, driver());
+		}
+		Assert.assertEquals(10, this.cache.size());
+		Assert.assertEquals(Collections.emptyList(), this.evicted);
+	}
+
+	@Test
+	public void evictsLeastRecentlyUsed() {
+		this.cache.setMaxSize(2);
+		this.cache.put(1, driver());
+		this.cache.put(2, driver());
+		this.cache.get(1);
+		this.cache.put(3, driver());
+		Assert.assertEquals(Arrays.asList(2), this.evicted);
+		this.cache.put(4, driver());
+		Assert.assertEquals(Arrays.asList(2, 1), this.evicted);
+		Assert.assertNull(this.cache.get(1));
+		Assert.assertNotNull(this.cache.get(3));
+		Assert.assertEquals(2L, this.cache.getEvictions().get(WebDriverCache.EvictionCause.size).longValue());
+	}
+
+	@Test
+	public void evictsIdleDriversExceptTheOneInUse() {
+		this.cache.setIdleTimeoutInSeconds(10);
+		this.cache.put(1, driver());
+		this.cache.put(2, driver());
+		tick(5);
+		this.cache.get(2);
+		tick(6);
+		Assert.assertNotNull(this.cache.get(1));
+		Assert.assertEquals(Collections.emptyList(), this.evicted);
+		tick(5);
+		this.cache.get(1);
+		Assert.assertEquals(Arrays.asList(2), this.evicted);
+		Assert.assertEquals(1L, this.cache.getEvictions().get(WebDriverCache.EvictionCause.idle).longValue());
+	}
+
+	@Test
+	public void evictsOldDriversEvenIfUsed() {
+		this.cache.setMaxAgeInSeconds(10);
+		this.cache.put(1, driver());
+		tick(6);
+		this.cache.put(2, driver());
+		tick(3);
+		this.cache.get(1);
+		this.cache.get(2);
+		Assert.assertEquals(Collections.emptyList(), this.evicted);
+		tick(2);
+		this.cache.get(2);
+		Assert.assertEquals(Arrays.asList(1), this.evicted);
+		Assert.assertEquals(1L, this.cache.getEvictions().get(WebDriverCache.EvictionCause.age).longValue());
+	}
+
+	@Test
+	public void firstKeyKeepsInsertionOrder() {
+		Assert.assertNull(this.cache.firstKey());
+		this.cache.put(1, driver());
+		this.cache.put(2, driver());
+		this.cache.put(3, driver());
+		this.cache.get(1);
+		this.cache.put(1, driver());
+		Assert.assertEquals(Integer.valueOf(1), this.cache.firstKey());
+		this.cache.remove(1);
+		Assert.assertEquals(Integer.valueOf(2), this.cache.firstKey());
+	}
+
+	private void tick(long seconds) {
+		this.now.addAndGet(TimeUnit.SECONDS.toNanos(seconds));
+	}
+
+	private static WebDriver driver() {
+		return new FakeWebDriver(new DesiredCapabilities());
+	}
+}
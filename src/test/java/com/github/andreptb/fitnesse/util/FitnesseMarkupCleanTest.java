@@ -0,0 +1,107 @@
+package com.github.andreptb.fitnesse.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang.ObjectUtils;
+import org.apache.commons.lang.StringUtils;
+import org.junit.Assert;
+import org.junit.Test;
+import org.openqa.selenium.Keys;
+
+/**
+ * Differential test of {@link FitnesseMarkup#clean(Object)}, comparing with the regular expressions based implementation it replaced. Values are the table cells of the wiki pages
+ * in fitnesse/FitNesseRoot, as written and wrapped in the markup FitNesse renders, plus random combinations of markup fragments.
+ */
+public class FitnesseMarkupCleanTest {
+
+	private static final String[] MARKUP_FRAGMENTS = { "<", ">", "/", "\"", "<span keycode=\"", "\uE007", "\">", "</span>", "/span>", "<span class=\"meta\">", "undefined variable:",
+		" VAR", "<a href=\"Page?edit\">", "[?]</a>", "</a>", "<b>", "</", "<a", "\n", "\r", "\u2028", "\uD83D\uDE00", "null", " ", "text", "id=user", "@value", "->", "=~/x/" };
+
+	private FitnesseMarkup fitnesseMarkup = new FitnesseMarkup();
+
+	@Test
+	public void cleansWikiPagesCellsAsBefore() throws IOException {
+		Collection<File> pages = FileUtils.listFiles(new File("fitnesse/FitNesseRoot"), new String[] { "txt" }, true);
+		Assert.assertFalse("no wiki pages found", pages.isEmpty());
+		Set<String> cells = new LinkedHashSet<>();
+		for (File page : pages) {
+			for (String line : FileUtils.readLines(page, StandardCharsets.UTF_8)) {
+				cells.add(line);
+				for (String cell : StringUtils.split(line, '|')) {
+					cells.add(cell);
+					cells.add("<span keycode=\"" + Keys.ENTER + "\">" + cell + "</span>");
+					cells.add("<span class=\"meta\">undefined variable: " + cell + "</span>");
+					cells.add(cell + "<a title=\"create page\" href=\"" + cell + "?edit&nonExistent=true\">[?]</a>");
+					cells.add("<a href=\"" + cell + "\">" + cell + "</a>");
+				}
+			}
+		}
+		for (String cell : cells) {
+			assertCleanedAsBefore(cell);
+		}
+	}
+
+	@Test
+	public void cleansMarkupFragmentsAsBefore() {
+		Random random = new Random(42);
+		for (int i = 0; i < 100000; i++) {
+			StringBuilder symbol = new StringBuilder();
+			for (int fragments = random.nextInt(12); fragments >= 0; fragments--) {
+				symbol.append(FitnesseMarkupCleanTest.MARKUP_FRAGMENTS[random.nextInt(FitnesseMarkupCleanTest.MARKUP_FRAGMENTS.length)]);
+			}
+			assertCleanedAsBefore(symbol.toString());
+		}
+	}
+
+	@Test
+	public void cleansEdgeCasesAsBefore() {
+		List<String> symbols = new ArrayList<>();
+		symbols.add(null);
+		symbols.add(StringUtils.EMPTY);
+		symbols.add(" null ");
+		symbols.add("<>");
+		symbols.add("<a>");
+		symbols.add("<ab>");
+		symbols.add("</a>");
+		symbols.add("</>>");
+		symbols.add("<\n>>");
+		symbols.add("</\nb>");
+		symbols.add("<\u0085b>");
+		symbols.add("<\uD83D\uDE00>");
+		symbols.add("<\uD83D\uDE00a>");
+		symbols.add("<span keycode=\"\">x</span>");
+		symbols.add("<span keycode=\"a\"/span>");
+		symbols.add("<span keycode=\"a\"b/span>");
+		symbols.add("<span keycode=\"a/b\">c</span>");
+		symbols.add("undefined var<span keycode=\"iable:\">x</span>");
+		symbols.add("<span class=\"meta\">undefined variable: WikiWord<a href=\"WikiWord?edit\">[?]</a></span>");
+		for (String symbol : symbols) {
+			assertCleanedAsBefore(symbol);
+		}
+	}
+
+	private void assertCleanedAsBefore(String symbol) {
+		Assert.assertEquals(symbol, cleanWithRegularExpressions(symbol), this.fitnesseMarkup.clean(symbol));
+	}
+
+	private static String cleanWithRegularExpressions(Object symbol) {
+		String strippedSymbol = StringUtils.remove(StringUtils.strip(ObjectUtils.toString(symbol)), "null");
+		if (StringUtils.isBlank(strippedSymbol)) {
+			return strippedSymbol;
+		}
+		strippedSymbol = strippedSymbol.replaceAll("<span keycode=\"([^\"]+)\"[^/]+/span>", "$1");
+		strippedSymbol = strippedSymbol.replaceAll("<span[^>]+>undefined variable:[^<]+</span>", StringUtils.EMPTY);
+		strippedSymbol = strippedSymbol.replaceAll("<a[^>]+>\\[\\?\\]</a>", StringUtils.EMPTY);
+		strippedSymbol = strippedSymbol.replaceAll("<span[^>]+>undefined variable:[^<]+</span>", StringUtils.EMPTY);
+		return strippedSymbol.replaceAll("</?.[^>]+>", StringUtils.EMPTY);
+	}
+}